@@ -0,0 +1,384 @@
+package controller;
+
+import model.Card;
+import model.Deck;
+import model.Player;
+import util.GameEvents;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe variant of GameEngine for moves that arrive from several threads
+ * (AI workers, network I/O threads).
+ *
+ * The whole game is one immutable State behind an AtomicReference. A move reads
+ * the current state, builds the next one and installs it with compareAndSet,
+ * retrying if another move got in first; a move that is not valid in the state it
+ * finally sees is rejected without changing anything. So every move is applied
+ * exactly once or cleanly rejected, and readers get a consistent snapshot of the
+ * whole game with a single volatile read, without locking.
+ *
+ * Cards are identified by index and face ID (see Deck.faceIdOf); the Card objects
+ * of a GameEngine are only read when converting one with of() and toEngine().
+ * There are no listeners: observers compare State.getVersion() with the version
+ * they last saw. The rules (and the points per pair, GameEngine.MATCH_POINTS) are
+ * those of GameEngine; the server runs every hosted game on this engine.
+ */
+public class ConcurrentGameEngine {
+    private final String p1Name;
+    private final String p2Name;
+    private final int[] faceIds;
+    private final long startTime;
+    private final AtomicReference<State> state;
+
+    /**
+     * What a submitted move did.
+     */
+    public enum Outcome {
+        REVEALED,  // first card of a turn, or a mismatch (switchTurn resolves it)
+        MATCHED,   // the player scored and keeps the turn
+        GAME_OVER, // the last pair was found
+        SWITCHED,  // the mismatch was hidden and the other player is on turn
+        REJECTED   // not allowed in the current state; nothing changed
+    }
+
+    /**
+     * Immutable snapshot of a game. A new one is created for every applied move.
+     */
+    public static final class State {
+        private final long version;  // number of moves applied so far
+        private final long[] faceUp; // one bit per card
+        private final long[] matched;
+        private final int matchedCount;
+        private final int first;     // pending selections (-1 = none)
+        private final int second;
+        private final int seat;      // 0 = Player 1's turn
+        private final int[] scores;
+        private final int[] moves;
+        private final int[] pairs;
+
+        private State(long version, long[] faceUp, long[] matched, int matchedCount, int first, int second,
+                      int seat, int[] scores, int[] moves, int[] pairs) {
+            this.version = version;
+            this.faceUp = faceUp;
+            this.matched = matched;
+            this.matchedCount = matchedCount;
+            this.first = first;
+            this.second = second;
+            this.seat = seat;
+            this.scores = scores;
+            this.moves = moves;
+            this.pairs = pairs;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isFaceUp(int index) {
+            return (faceUp[index >>> 6] & (1L << index)) != 0;
+        }
+
+        public boolean isMatched(int index) {
+            return (matched[index >>> 6] & (1L << index)) != 0;
+        }
+
+        /**
+         * Index of the first card turned over this turn, or -1.
+         */
+        public int getFirstSelected() {
+            return first;
+        }
+
+        /**
+         * Index of the second card of an unresolved mismatch, or -1.
+         */
+        public int getSecondSelected() {
+            return second;
+        }
+
+        /**
+         * true while a mismatch waits for switchTurn.
+         */
+        public boolean isProcessing() {
+            return second >= 0;
+        }
+
+        /**
+         * 0 if it is Player 1's turn, 1 for Player 2.
+         */
+        public int getCurrentSeat() {
+            return seat;
+        }
+
+        public int getScore(int seat) {
+            return scores[seat];
+        }
+
+        public int getMoves(int seat) {
+            return moves[seat];
+        }
+
+        public int getPairs(int seat) {
+            return pairs[seat];
+        }
+
+        public int getMatchedCount() {
+            return matchedCount;
+        }
+
+        /**
+         * Copies the board into the WireCodec state layout (face-up words, then matched words;
+         * a matched card only has its matched bit set).
+         * @param dst At least WireCodec.stateWords(card count) words.
+         */
+        public void copyBoard(long[] dst) {
+            int words = faceUp.length;
+            for (int w = 0; w < words; w++) {
+                dst[w] = faceUp[w] & ~matched[w];
+                dst[words + w] = matched[w];
+            }
+        }
+    }
+
+    /**
+     * Starts a new game on the given board; Player 1 moves first.
+     * @param faceIds Face ID of every card (see Deck.faceIdOf); each appears exactly twice.
+     */
+    public ConcurrentGameEngine(String p1Name, String p2Name, int[] faceIds) {
+        this(p1Name, p2Name, faceIds.clone(), System.currentTimeMillis(),
+             new State(0, new long[words(faceIds.length)], new long[words(faceIds.length)], 0, -1, -1, 0,
+                       new int[2], new int[2], new int[2]));
+    }
+
+    private ConcurrentGameEngine(String p1Name, String p2Name, int[] faceIds, long startTime, State initial) {
+        this.p1Name = p1Name;
+        this.p2Name = p2Name;
+        this.faceIds = faceIds;
+        this.startTime = startTime;
+        this.state = new AtomicReference<>(initial);
+    }
+
+    /**
+     * Starts a new game on a freshly shuffled board of the given number of pairs.
+     */
+    public static ConcurrentGameEngine deal(String p1Name, String p2Name, int pairs) {
+        Deck deck = new Deck();
+        deck.initializeDeck(Deck.VALUES, Deck.SUITS, null, pairs);
+        List<Card> cards = deck.getCards();
+        int[] faceIds = new int[cards.size()];
+        for (int i = 0; i < faceIds.length; i++) {
+            faceIds[i] = Deck.faceIdOf(cards.get(i));
+        }
+        return new ConcurrentGameEngine(p1Name, p2Name, faceIds);
+    }
+
+    /**
+     * Copies a GameEngine's game, e.g. a resumed one, including pending selections,
+     * scores and the player on turn. Must be called on the thread that owns the engine.
+     */
+    public static ConcurrentGameEngine of(GameEngine engine) {
+        List<Card> cards = engine.getCards();
+        int n = cards.size();
+        int[] faceIds = new int[n];
+        long[] faceUp = new long[words(n)];
+        long[] matched = new long[words(n)];
+        int matchedCount = 0;
+        for (int i = 0; i < n; i++) {
+            Card c = cards.get(i);
+            faceIds[i] = Deck.faceIdOf(c);
+            if (c.isFaceUp() || c.isMatched()) faceUp[i >>> 6] |= 1L << i;
+            if (c.isMatched()) {
+                matched[i >>> 6] |= 1L << i;
+                matchedCount++;
+            }
+        }
+        State s = new State(0, faceUp, matched, matchedCount,
+                engine.indexOf(engine.getFirstSelectedCard()), engine.indexOf(engine.getSecondSelectedCard()),
+                engine.getCurrentPlayer() == engine.getP1() ? 0 : 1,
+                new int[] {engine.getP1().getScore(), engine.getP2().getScore()},
+                new int[] {engine.getP1().getMoves(), engine.getP2().getMoves()},
+                new int[] {engine.getP1().getPairs(), engine.getP2().getPairs()});
+        return new ConcurrentGameEngine(engine.getP1().getName(), engine.getP2().getName(), faceIds,
+                                        System.currentTimeMillis() - engine.getElapsedMillis(), s);
+    }
+
+    /**
+     * Copies the current game into a new headless two-player GameEngine (no card images),
+     * e.g. to save it as a GameSnapshot. The opposite of of().
+     */
+    public GameEngine toEngine() {
+        State s = getState();
+        Deck deck = new Deck();
+        deck.loadLayout(faceIds, null);
+        List<Card> cards = deck.getCards();
+        for (int i = 0; i < cards.size(); i++) {
+            cards.get(i).setFaceUp(s.isFaceUp(i));
+            cards.get(i).setMatched(s.isMatched(i));
+        }
+        Player p1 = new Player(p1Name) { @Override public void playTurn() {} };
+        Player p2 = new Player(p2Name) { @Override public void playTurn() {} };
+        p1.restoreCounters(s.scores[0], s.moves[0], s.pairs[0]);
+        p2.restoreCounters(s.scores[1], s.moves[1], s.pairs[1]);
+        GameEngine engine = new GameEngine(p1, p2, cards, true, false); // Headless: nobody looks at its timings
+        engine.restoreState(s.seat == 1, s.first < 0 ? null : cards.get(s.first),
+                            s.second < 0 ? null : cards.get(s.second), getElapsedMillis());
+        return engine;
+    }
+
+    /**
+     * Turns a card over for the player on turn.
+     */
+    public Outcome select(int cardIndex) {
+        return select(-1, cardIndex, -1);
+    }
+
+    /**
+     * Turns a card over only if no other move was applied since the given state,
+     * so a client that retries a request cannot apply it twice.
+     * @param expectedVersion State.getVersion() the move was decided on, or -1 for any.
+     */
+    public Outcome select(int cardIndex, long expectedVersion) {
+        return select(-1, cardIndex, expectedVersion);
+    }
+
+    /**
+     * Turns a card over for the given seat only: rejected if the other player is on turn,
+     * however the moves of both players interleave.
+     * @param seat 0 for Player 1, 1 for Player 2, or -1 for whoever is on turn.
+     * @param expectedVersion State.getVersion() the move was decided on, or -1 for any.
+     */
+    public Outcome select(int seat, int cardIndex, long expectedVersion) {
+        while (true) {
+            State s = state.get();
+            if (expectedVersion >= 0 && s.version != expectedVersion) return Outcome.REJECTED;
+            if (seat >= 0 && s.seat != seat) return Outcome.REJECTED;
+            if (cardIndex < 0 || cardIndex >= faceIds.length || s.isProcessing()
+                    || s.isFaceUp(cardIndex) || s.isMatched(cardIndex)) {
+                return Outcome.REJECTED;
+            }
+
+            long[] faceUp = s.faceUp.clone();
+            faceUp[cardIndex >>> 6] |= 1L << cardIndex;
+
+            State next;
+            Outcome outcome;
+            if (s.first < 0) {
+                next = new State(s.version + 1, faceUp, s.matched, s.matchedCount, cardIndex, -1, s.seat,
+                                 s.scores, s.moves, s.pairs);
+                outcome = Outcome.REVEALED;
+            } else {
+                int[] moves = add(s.moves, s.seat, 1);
+                if (faceIds[s.first] == faceIds[cardIndex]) {
+                    long[] matched = s.matched.clone();
+                    matched[s.first >>> 6] |= 1L << s.first;
+                    matched[cardIndex >>> 6] |= 1L << cardIndex;
+                    next = new State(s.version + 1, faceUp, matched, s.matchedCount + 2, -1, -1, s.seat,
+                                     add(s.scores, s.seat, GameEngine.MATCH_POINTS), moves, add(s.pairs, s.seat, 1));
+                    outcome = next.matchedCount == faceIds.length ? Outcome.GAME_OVER : Outcome.MATCHED;
+                } else {
+                    next = new State(s.version + 1, faceUp, s.matched, s.matchedCount, s.first, cardIndex, s.seat,
+                                     s.scores, moves, s.pairs);
+                    outcome = Outcome.REVEALED;
+                }
+            }
+            if (state.compareAndSet(s, next)) {
+                if (outcome == Outcome.GAME_OVER) recordGameOver(next);
+                return outcome;
+            }
+        }
+    }
+
+    /**
+     * Hides the cards of a mismatch and passes the turn.
+     * Rejected if there is no mismatch to resolve, so two threads resolving the same
+     * mismatch switch the turn only once.
+     */
+    public Outcome switchTurn() {
+        return switchTurn(-1, -1);
+    }
+
+    /**
+     * Like switchTurn(), but only if no other move was applied since the given state.
+     */
+    public Outcome switchTurn(long expectedVersion) {
+        return switchTurn(-1, expectedVersion);
+    }
+
+    /**
+     * Like switchTurn(long), but only for the given seat (-1 for whoever is on turn).
+     */
+    public Outcome switchTurn(int seat, long expectedVersion) {
+        while (true) {
+            State s = state.get();
+            if (expectedVersion >= 0 && s.version != expectedVersion) return Outcome.REJECTED;
+            if (seat >= 0 && s.seat != seat) return Outcome.REJECTED;
+            if (!s.isProcessing()) return Outcome.REJECTED;
+
+            long[] faceUp = s.faceUp.clone();
+            faceUp[s.first >>> 6] &= ~(1L << s.first);
+            faceUp[s.second >>> 6] &= ~(1L << s.second);
+            State next = new State(s.version + 1, faceUp, s.matched, s.matchedCount, -1, -1, 1 - s.seat,
+                                   s.scores, s.moves, s.pairs);
+            if (state.compareAndSet(s, next)) {
+                GameEvents.TurnSwitch event = new GameEvents.TurnSwitch();
+                if (event.shouldCommit()) {
+                    event.from = getPlayerName(s.seat);
+                    event.to = getPlayerName(next.seat);
+                    event.commit();
+                }
+                return Outcome.SWITCHED;
+            }
+        }
+    }
+
+    /**
+     * The current game, consistent across all its fields.
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    public int getCardCount() {
+        return faceIds.length;
+    }
+
+    public int getFaceId(int index) {
+        return faceIds[index];
+    }
+
+    public String getPlayerName(int seat) {
+        return seat == 0 ? p1Name : p2Name;
+    }
+
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Emits the GameOver event for the final state (if JFR records it), like GameEngine does.
+     */
+    private void recordGameOver(State s) {
+        GameEvents.GameOver event = new GameEvents.GameOver();
+        if (!event.shouldCommit()) return;
+        event.winner = s.scores[0] == s.scores[1] ? "Draw" : getPlayerName(s.scores[0] > s.scores[1] ? 0 : 1);
+        event.score1 = s.scores[0];
+        event.score2 = s.scores[1];
+        event.moves = s.moves[0] + s.moves[1];
+        event.cards = faceIds.length;
+        event.gameMillis = getElapsedMillis();
+        event.commit();
+    }
+
+    private static int words(int cards) {
+        return (cards + 63) >>> 6;
+    }
+
+    private static int[] add(int[] values, int seat, int amount) {
+        int[] copy = values.clone();
+        copy[seat] += amount;
+        return copy;
+    }
+}
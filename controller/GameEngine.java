@@ -2,13 +2,19 @@ package controller;
 
 import model.Card;
 import model.Player;
+import util.GameEvents;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages the core game logic, including turn management, 
  * card matching validation, and score updates.
+ * Not thread-safe: all calls must come from one thread (the EDT in the UI).
+ * ConcurrentGameEngine accepts moves from any thread.
  */
 public class GameEngine {
+    public static final int MATCH_POINTS = 10; // Score for each pair found
+
     private Player p1;
     private Player p2;
     private Player currentPlayer;
@@ -19,8 +25,23 @@ public class GameEngine {
     private Card firstSelectedCard;
     private Card secondSelectedCard;
     private boolean isProcessing; // Locks input during animations
+    private long startTime;       // When the game started (epoch millis)
+    private long firstRevealNanos; // When the pending first card was turned (0 = unknown)
+    private boolean timed;         // false: moves are not timed (see setTimed)
+    private final MoveStats moveStats;
+
+    // Observers notified of every applied move (journal, spectators, ...)
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
 
     public GameEngine(Player p1, Player p2, List<Card> cards, boolean isPvP) {
+        this(p1, p2, cards, isPvP, true);
+    }
+
+    /**
+     * @param timed false for a headless engine whose move timings nobody looks at
+     *              (see setTimed); it never allocates the timing histograms.
+     */
+    public GameEngine(Player p1, Player p2, List<Card> cards, boolean isPvP, boolean timed) {
         this.p1 = p1;
         this.p2 = p2;
         this.cards = cards;
@@ -29,10 +50,14 @@ public class GameEngine {
         // Player 1 always starts the game
         this.currentPlayer = p1;
         this.isProcessing = false;
+        this.startTime = System.currentTimeMillis();
+        this.moveStats = new MoveStats((int) Math.round(Math.sqrt(cards.size())));
+        setTimed(timed);
     }
 
     /**
      * Handles the logic when a card is clicked.
+     * Listeners are notified once the selection is fully applied (including a match).
      * @param card The card that was clicked.
      * @return true if a match was found, false otherwise.
      */
@@ -42,18 +67,35 @@ public class GameEngine {
             return false;
         }
 
+        boolean isMatch = applySelection(card);
+        for (GameListener l : listeners) {
+            l.onCardSelected(this, indexOf(card));
+        }
+        return isMatch;
+    }
+
+    /**
+     * Reveals a valid selection and evaluates the turn.
+     */
+    private boolean applySelection(Card card) {
         // Reveal the card
         card.setFaceUp(true);
 
         // Case 1: First card selection
         if (firstSelectedCard == null) {
             firstSelectedCard = card;
+            firstRevealNanos = timed ? System.nanoTime() : 0;
             return false; // No match possible yet, waiting for second card
         } 
         // Case 2: Second card selection
         else {
             secondSelectedCard = card;
+            if (firstRevealNanos != 0) {
+                moveStats.record(currentSeat(), MoveStats.Kind.THINK, System.nanoTime() - firstRevealNanos);
+                firstRevealNanos = 0;
+            }
             isProcessing = true; // Lock input to prevent cheating
+            currentPlayer.addMove();
 
             // Check if the two selected cards match
             if (checkMatch(firstSelectedCard, secondSelectedCard)) {
@@ -62,10 +104,12 @@ public class GameEngine {
                 secondSelectedCard.setMatched(true);
                 
                 // Update score for the current player
-                currentPlayer.addScore(10);
+                currentPlayer.addScore(MATCH_POINTS);
+                currentPlayer.addPair();
                 
                 // Reset selections for the next move (Player keeps turn)
                 resetSelections();
+                recordGameOver();
                 return true;
             } else {
                 // No match found
@@ -101,11 +145,42 @@ public class GameEngine {
         isProcessing = false;
 
         // Toggle player turn
+        Player previous = currentPlayer;
         if (currentPlayer == p1) {
             currentPlayer = p2;
         } else {
             currentPlayer = p1;
         }
+
+        GameEvents.TurnSwitch event = new GameEvents.TurnSwitch();
+        if (event.shouldCommit()) {
+            event.from = previous.getName();
+            event.to = currentPlayer.getName();
+            event.commit();
+        }
+
+        for (GameListener l : listeners) {
+            l.onTurnSwitched(this);
+        }
+    }
+
+    /**
+     * Position of a card instance on the board, or -1 if it is not part of this game.
+     */
+    public int indexOf(Card card) {
+        // Identity lookup: the two cards of a pair are equal by value
+        for (int i = 0; i < cards.size(); i++) {
+            if (cards.get(i) == card) return i;
+        }
+        return -1;
+    }
+
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -118,6 +193,25 @@ public class GameEngine {
         isProcessing = false;
     }
 
+    /**
+     * Emits the GameOver event if the last pair was just found (and JFR records it).
+     */
+    private void recordGameOver() {
+        GameEvents.GameOver event = new GameEvents.GameOver();
+        if (!event.shouldCommit() || !isGameOver()) return;
+        event.winner = getWinner().getName();
+        event.score1 = p1.getScore();
+        event.score2 = p2.getScore();
+        event.moves = p1.getMoves() + p2.getMoves();
+        event.cards = cards.size();
+        event.gameMillis = getElapsedMillis();
+        event.commit();
+    }
+
+    private int currentSeat() {
+        return currentPlayer == p1 ? 0 : 1;
+    }
+
     /**
      * Checks if all cards on the board have been matched.
      */
@@ -143,6 +237,39 @@ public class GameEngine {
         }; 
     }
 
+    /**
+     * Records how long the current player's last click took to show its card.
+     */
+    public void recordRevealLatency(long nanos) {
+        if (timed) moveStats.record(currentSeat(), MoveStats.Kind.REVEAL, nanos);
+    }
+
+    /**
+     * Records how long the AI on turn took to pick its last card.
+     */
+    public void recordAiDecision(long nanos) {
+        if (timed) moveStats.record(currentSeat(), MoveStats.Kind.AI_DECISION, nanos);
+    }
+
+    /**
+     * Turns move timing on or off. Off while a journal is replayed, whose moves arrive
+     * far faster than anyone plays, and for headless engines nobody shows timings of.
+     * Turning it on allocates the histograms, so recording a move never does; an engine
+     * that is never timed never allocates them. A think time already running is dropped.
+     */
+    public void setTimed(boolean timed) {
+        this.timed = timed;
+        firstRevealNanos = 0;
+        if (timed) moveStats.allocate();
+    }
+
+    /**
+     * Timings of the moves made so far, per player.
+     */
+    public MoveStats getMoveStats() {
+        return moveStats;
+    }
+
     // --- Getters for UI access ---
 
     public Player getCurrentPlayer() {
@@ -157,10 +284,41 @@ public class GameEngine {
         return isProcessing;
     }
 
+    public Card getFirstSelectedCard() {
+        return firstSelectedCard;
+    }
+
+    public boolean isPvP() {
+        return isPvP;
+    }
+
+    /**
+     * Restores turn state when a saved game is loaded.
+     * Card face-up/matched flags and player counters must already be restored.
+     * @param p2Turn true if it is Player 2's turn.
+     * @param first The pending first selection of the turn, or null.
+     * @param second The pending second selection (mismatch not yet resolved), or null.
+     * @param elapsedMillis Time already played before the game was saved.
+     */
+    public void restoreState(boolean p2Turn, Card first, Card second, long elapsedMillis) {
+        this.currentPlayer = p2Turn ? p2 : p1;
+        this.firstSelectedCard = first;
+        this.secondSelectedCard = second;
+        this.isProcessing = second != null;
+        this.startTime = System.currentTimeMillis() - elapsedMillis;
+    }
+
     public Card getSecondSelectedCard() {
         return secondSelectedCard;
     }
     
+    /**
+     * Milliseconds since the game started.
+     */
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startTime;
+    }
+
     public Player getP1() { return p1; }
     public Player getP2() { return p2; }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package controller;
+
+/**
+ * Receives notifications about moves applied by a GameEngine.
+ * Used by components that record or mirror a game (e.g., the move journal).
+ * Callbacks run on the thread that made the move and should return quickly.
+ */
+public interface GameListener {
+    /**
+     * A card was revealed by an accepted selection. The engine already reflects
+     * the whole move, including a match and its score.
+     * @param engine The engine the move was applied to.
+     * @param cardIndex Position of the card in engine.getCards().
+     */
+    default void onCardSelected(GameEngine engine, int cardIndex) {}
+
+    /**
+     * Unmatched cards were hidden and the turn passed to the other player.
+     */
+    default void onTurnSwitched(GameEngine engine) {}
+}
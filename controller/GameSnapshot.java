@@ -0,0 +1,292 @@
+package controller;
+
+import model.Card;
+import model.ComputerPlayer;
+import model.Deck;
+import model.Player;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of an in-progress game.
+ * Covers the board layout, face-up/matched bits, players and scores, whose turn it is,
+ * the pending selection and the AI memory. A 10x10 game fits in a few hundred bytes
+ * and is written with a single ByteBuffer pass, cheap enough to autosave after every move.
+ *
+ * Layout (big-endian):
+ * magic, version, grid size, PvP flag, current player, elapsed millis,
+ * per player: name, score, moves, pairs; AI difficulty,
+ * card count, one face ID per card, face-up bitset, matched bitset,
+ * first/second selection index (-1 = none), AI memory (count + card indices),
+ * move timings (version 2, see MoveStats.write), CRC32 of everything before it.
+ * Version 1 snapshots (without timings) are still read.
+ */
+public class GameSnapshot {
+    private static final int MAGIC = 0x4D4D4753; // "MMGS"
+    private static final byte VERSION = 2;
+
+    // Largest snapshot: 10x10 board with full AI memory, two long names and six
+    // move timing histograms spread over every bucket from microseconds to an hour
+    static final int MAX_SIZE = 24 * 1024;
+
+    private static final String[] DIFFICULTIES = {"Easy", "Normal", "Hard"};
+
+    // Reused for every autosave so saving does not allocate
+    private static final ByteBuffer IO_BUFFER = ByteBuffer.allocateDirect(MAX_SIZE);
+
+    private final GameEngine engine;
+    private final int gridSize;
+
+    private GameSnapshot(GameEngine engine, int gridSize) {
+        this.engine = engine;
+        this.gridSize = gridSize;
+    }
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Encodes the game at the buffer's position.
+     * @param dst Buffer with at least a few kilobytes remaining.
+     */
+    public static void write(GameEngine engine, int gridSize, ByteBuffer dst) {
+        int start = dst.position();
+        List<Card> cards = engine.getCards();
+
+        dst.putInt(MAGIC);
+        dst.put(VERSION);
+        dst.put((byte) gridSize);
+        dst.put((byte) (engine.isPvP() ? 1 : 0));
+        dst.put((byte) (engine.getCurrentPlayer() == engine.getP2() ? 1 : 0));
+        dst.putLong(engine.getElapsedMillis());
+
+        writePlayer(engine.getP1(), dst);
+        writePlayer(engine.getP2(), dst);
+        Player p2 = engine.getP2();
+        dst.put((byte) (p2 instanceof ComputerPlayer ? difficultyCode(((ComputerPlayer) p2).getDifficulty()) : -1));
+
+        // Board: one face ID byte per card, then two bitsets
+        int n = cards.size();
+        dst.putShort((short) n);
+        for (Card c : cards) {
+            dst.put((byte) Deck.faceIdOf(c));
+        }
+        writeBits(cards, true, dst);
+        writeBits(cards, false, dst);
+
+        dst.putShort((short) engine.indexOf(engine.getFirstSelectedCard()));
+        dst.putShort((short) engine.indexOf(engine.getSecondSelectedCard()));
+
+        // AI memory as card indices
+        if (p2 instanceof ComputerPlayer) {
+            List<Card> memory = ((ComputerPlayer) p2).getMemory();
+            dst.putShort((short) memory.size());
+            for (Card c : memory) {
+                dst.putShort((short) engine.indexOf(c));
+            }
+        } else {
+            dst.putShort((short) 0);
+        }
+
+        engine.getMoveStats().write(dst);
+
+        dst.putInt(checksum(dst, start, dst.position()));
+    }
+
+    /**
+     * Decodes a game written by write, starting at the buffer's position.
+     * @param imagePath Base path for card images, or null to restore without images.
+     * @throws IOException if the data is not a snapshot, has an unknown version or is corrupt.
+     */
+    public static GameSnapshot read(ByteBuffer src, String imagePath) throws IOException {
+        try {
+            return decode(src, imagePath);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt snapshot", e);
+        }
+    }
+
+    private static GameSnapshot decode(ByteBuffer src, String imagePath) throws IOException {
+        int start = src.position();
+        if (src.remaining() < 8 || src.getInt() != MAGIC) throw new IOException("Not a game snapshot");
+        int version = src.get();
+        if (version < 1 || version > VERSION) throw new IOException("Unsupported snapshot version");
+
+        int gridSize = src.get();
+        boolean isPvP = src.get() == 1;
+        boolean p2Turn = src.get() == 1;
+        long elapsed = src.getLong();
+
+        Player p1 = readHuman(src);
+        String p2Name = readString(src);
+        int[] p2Counters = {src.getInt(), src.getInt(), src.getInt()};
+        int difficulty = src.get();
+
+        Player p2;
+        if (isPvP) {
+            p2 = new Player(p2Name) { @Override public void playTurn() {} };
+        } else {
+            ComputerPlayer ai = new ComputerPlayer();
+            ai.setName(p2Name);
+            ai.setDifficulty(DIFFICULTIES[Math.max(0, difficulty)]);
+            p2 = ai;
+        }
+        p2.restoreCounters(p2Counters[0], p2Counters[1], p2Counters[2]);
+
+        int n = src.getShort();
+        int[] faces = new int[n];
+        for (int i = 0; i < n; i++) {
+            faces[i] = src.get();
+        }
+        Deck deck = new Deck();
+        deck.loadLayout(faces, imagePath);
+        List<Card> cards = deck.getCards();
+        readBits(cards, true, src);
+        readBits(cards, false, src);
+
+        Card first = cardAt(cards, src.getShort());
+        Card second = cardAt(cards, src.getShort());
+
+        List<Card> memory = new ArrayList<>();
+        int memorySize = src.getShort();
+        for (int i = 0; i < memorySize; i++) {
+            memory.add(cards.get(src.getShort()));
+        }
+
+        // Headless restores (servers, journal replays) keep no timings of their own
+        GameEngine engine = new GameEngine(p1, p2, cards, isPvP, imagePath != null);
+        if (version >= 2) engine.getMoveStats().read(src);
+
+        int expected = checksum(src, start, src.position());
+        if (src.getInt() != expected) throw new IOException("Snapshot checksum mismatch");
+
+        engine.restoreState(p2Turn, first, second, elapsed);
+        if (p2 instanceof ComputerPlayer) {
+            ((ComputerPlayer) p2).restoreMemory(memory);
+        }
+        return new GameSnapshot(engine, gridSize);
+    }
+
+    /**
+     * Writes the game to a file, replacing its previous content.
+     * The snapshot goes to a temporary file that is then renamed over the old one,
+     * so a crash while saving leaves the previous snapshot intact, never a partial one.
+     * No fsync: an autosave lost to a power cut only costs the last moves.
+     */
+    public static synchronized void save(GameEngine engine, int gridSize, Path path) throws IOException {
+        IO_BUFFER.clear();
+        write(engine, gridSize, IO_BUFFER);
+        IO_BUFFER.flip();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (IO_BUFFER.hasRemaining()) {
+                ch.write(IO_BUFFER);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a game saved with save.
+     * @param imagePath Base path for card images, or null to restore without images.
+     */
+    public static synchronized GameSnapshot load(Path path, String imagePath) throws IOException {
+        IO_BUFFER.clear();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            int n;
+            do {
+                n = ch.read(IO_BUFFER);
+            } while (n > 0 && IO_BUFFER.hasRemaining());
+        }
+        IO_BUFFER.flip();
+        return read(IO_BUFFER, imagePath);
+    }
+
+    // --- Private Helper Methods ---
+
+    private static void writePlayer(Player p, ByteBuffer dst) {
+        writeString(p.getName(), dst);
+        dst.putInt(p.getScore());
+        dst.putInt(p.getMoves());
+        dst.putInt(p.getPairs());
+    }
+
+    private static Player readHuman(ByteBuffer src) {
+        Player p = new Player(readString(src)) { @Override public void playTurn() {} };
+        p.restoreCounters(src.getInt(), src.getInt(), src.getInt());
+        return p;
+    }
+
+    private static void writeString(String s, ByteBuffer dst) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, 255);
+        dst.put((byte) len);
+        dst.put(bytes, 0, len);
+    }
+
+    private static String readString(ByteBuffer src) {
+        byte[] bytes = new byte[src.get() & 0xFF];
+        src.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Packs the face-up (or matched) flag of every card into a bitset, 8 cards per byte.
+     */
+    private static void writeBits(List<Card> cards, boolean faceUp, ByteBuffer dst) {
+        int bits = 0;
+        for (int i = 0; i < cards.size(); i++) {
+            Card c = cards.get(i);
+            if (faceUp ? c.isFaceUp() : c.isMatched()) bits |= 1 << (i & 7);
+            if ((i & 7) == 7 || i == cards.size() - 1) {
+                dst.put((byte) bits);
+                bits = 0;
+            }
+        }
+    }
+
+    private static void readBits(List<Card> cards, boolean faceUp, ByteBuffer src) {
+        int bits = 0;
+        for (int i = 0; i < cards.size(); i++) {
+            if ((i & 7) == 0) bits = src.get();
+            boolean set = (bits & (1 << (i & 7))) != 0;
+            if (faceUp) cards.get(i).setFaceUp(set);
+            else cards.get(i).setMatched(set);
+        }
+    }
+
+    private static Card cardAt(List<Card> cards, int index) {
+        return index < 0 ? null : cards.get(index);
+    }
+
+    private static int difficultyCode(String difficulty) {
+        for (int i = 0; i < DIFFICULTIES.length; i++) {
+            if (DIFFICULTIES[i].equals(difficulty)) return i;
+        }
+        return 0;
+    }
+
+    private static int checksum(ByteBuffer buffer, int from, int to) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(from).limit(to);
+        CRC32 crc = new CRC32();
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+}
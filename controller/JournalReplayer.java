@@ -0,0 +1,62 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Headless tool that re-runs every game recorded in a move journal through
+ * GameEngine as fast as possible, checks the final scores against the recorded
+ * ones and reports how much faster than real time the replay ran.
+ *
+ * Usage: java -cp bin controller.JournalReplayer [journal file] [passes]
+ */
+public class JournalReplayer {
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "moves.journal");
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        byte[] journal = Files.readAllBytes(path);
+
+        for (int pass = 1; pass <= passes; pass++) {
+            int games = 0, mismatches = 0;
+            long moves = 0, recordedNanos = 0;
+            long begin = System.nanoTime();
+
+            ByteBuffer data = ByteBuffer.wrap(journal);
+            while (data.hasRemaining()) {
+                int recordStart = data.position();
+                byte type = data.get();
+                if (type != MoveJournal.START) {
+                    // Records outside a game (e.g., after a torn START) are skipped
+                    if (!MoveJournal.skipRecord(type, data)) break;
+                    continue;
+                }
+
+                data.position(recordStart);
+                MoveJournal.Replay replay;
+                try {
+                    replay = MoveJournal.replayGame(data, null, false);
+                } catch (BufferUnderflowException e) {
+                    break; // Torn tail from a crash
+                }
+
+                games++;
+                moves += replay.moves;
+                recordedNanos += replay.recordedNanos;
+                GameEngine engine = replay.game.getEngine();
+                if (replay.finished && (engine.getP1().getScore() != replay.p1Score
+                        || engine.getP2().getScore() != replay.p2Score)) {
+                    mismatches++;
+                }
+            }
+
+            long elapsed = System.nanoTime() - begin;
+            System.out.printf("Pass %d: %d games, %d moves in %.2f ms (%.0f moves/s, %.0fx real time), %d score mismatches%n",
+                    pass, games, moves, elapsed / 1e6, moves / (elapsed / 1e9),
+                    elapsed == 0 ? 0.0 : (double) recordedNanos / elapsed, mismatches);
+        }
+    }
+}
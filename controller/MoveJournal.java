@@ -0,0 +1,330 @@
+package controller;
+
+import model.Card;
+import model.ComputerPlayer;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only journal of every move, used for crash recovery and replays.
+ *
+ * Records are appended to an in-memory buffer by the game thread and written out
+ * by a background thread that fsyncs once per commit interval (group commit), so a
+ * move never waits for the disk. Each game starts with a full GameSnapshot, so a
+ * game can be rebuilt by decoding that snapshot and re-applying the moves after it.
+ *
+ * Record layout: type (1 byte), System.nanoTime() (8 bytes), then per type:
+ * - START: epoch millis (8), snapshot length (2), snapshot bytes
+ * - SELECT: card index (2)
+ * - SWITCH: nothing
+ * - END: player 1 score (4), player 2 score (4)
+ */
+public class MoveJournal implements GameListener {
+    static final byte START = 1;
+    static final byte SELECT = 2;
+    static final byte SWITCH = 3;
+    static final byte END = 4;
+
+    private static final long COMMIT_INTERVAL_MS = 20;
+    private static final long ROTATE_SIZE = 16L * 1024 * 1024; // start a new file past 16 MB
+
+    private final Path path;
+    private FileChannel channel;
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(64 * 1024);
+    private final ByteBuffer snapshotBuffer = ByteBuffer.allocate(GameSnapshot.MAX_SIZE);
+    private GameEngine current;
+    private boolean dirty;
+    private boolean forcing; // the commit thread is syncing channel outside the lock
+
+    /**
+     * Opens (or creates) the journal and starts the background commit thread.
+     */
+    public MoveJournal(Path path) throws IOException {
+        this.path = path;
+        this.channel = open(path);
+
+        Thread committer = new Thread(this::commitLoop, "move-journal-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Starts journaling a game: records its full current state, then every move.
+     * Any previously journaled game is detached.
+     */
+    public synchronized void startGame(GameEngine engine, int gridSize) {
+        if (current != null) {
+            current.removeListener(this);
+        }
+        rotateIfNeeded();
+
+        snapshotBuffer.clear();
+        GameSnapshot.write(engine, gridSize, snapshotBuffer);
+        snapshotBuffer.flip();
+
+        ensureSpace(1 + 8 + 8 + 2 + snapshotBuffer.remaining());
+        pending.put(START).putLong(System.nanoTime()).putLong(System.currentTimeMillis());
+        pending.putShort((short) snapshotBuffer.remaining()).put(snapshotBuffer);
+        dirty = true;
+
+        current = engine;
+        engine.addListener(this);
+    }
+
+    /**
+     * Marks the journaled game as finished, so it is not offered for recovery.
+     */
+    public synchronized void endGame(GameEngine engine) {
+        if (engine != current) return;
+        ensureSpace(1 + 8 + 8);
+        pending.put(END).putLong(System.nanoTime())
+               .putInt(engine.getP1().getScore()).putInt(engine.getP2().getScore());
+        dirty = true;
+
+        engine.removeListener(this);
+        current = null;
+    }
+
+    @Override
+    public synchronized void onCardSelected(GameEngine engine, int cardIndex) {
+        ensureSpace(1 + 8 + 2);
+        pending.put(SELECT).putLong(System.nanoTime()).putShort((short) cardIndex);
+        dirty = true;
+    }
+
+    @Override
+    public synchronized void onTurnSwitched(GameEngine engine) {
+        ensureSpace(1 + 8);
+        pending.put(SWITCH).putLong(System.nanoTime());
+        dirty = true;
+    }
+
+    /**
+     * Rebuilds the last journaled game if it never reached its END record.
+     * @param imagePath Base path for card images, or null for a headless game.
+     * @return The recovered game, or null if the last game finished (or there is none).
+     */
+    public static GameSnapshot recoverLastGame(Path path, String imagePath) throws IOException {
+        if (!Files.exists(path)) return null;
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        // Find the last START record
+        int lastStart = -1;
+        boolean finished = false;
+        while (data.hasRemaining()) {
+            int recordStart = data.position();
+            byte type = data.get();
+            if (!skipRecord(type, data)) break; // Torn tail from a crash: ignore it
+            if (type == START) {
+                lastStart = recordStart;
+                finished = false;
+            } else if (type == END) {
+                finished = true;
+            }
+        }
+        if (lastStart < 0 || finished) return null;
+
+        data.position(lastStart);
+        return replayGame(data, imagePath, true).game;
+    }
+
+    /**
+     * Outcome of replaying one journaled game.
+     */
+    static class Replay {
+        GameSnapshot game;
+        int moves;             // SELECT and SWITCH records applied
+        long recordedNanos;    // time between the START and the last record when it was played
+        boolean finished;      // an END record was found
+        int p1Score, p2Score;  // scores stored in the END record
+    }
+
+    /**
+     * Re-applies one journaled game, starting at its START record, without any delays.
+     * Leaves the buffer positioned after the game's END record (or at the end of the data).
+     * @param memorize true to show revealed cards to the AI like the UI does (recovery);
+     *                 false to replay only the recorded moves (headless replays).
+     */
+    static Replay replayGame(ByteBuffer data, String imagePath, boolean memorize) throws IOException {
+        if (data.get() != START) throw new IOException("Journal position is not a game start");
+        long startNanos = data.getLong();
+        data.getLong(); // epoch millis
+        byte[] snapshot = new byte[data.getShort() & 0xFFFF];
+        data.get(snapshot);
+
+        Replay replay = new Replay();
+        replay.game = GameSnapshot.read(ByteBuffer.wrap(snapshot), imagePath);
+        GameEngine engine = replay.game.getEngine();
+        engine.setTimed(false); // Re-applied moves would count as near-zero think times
+
+        while (data.hasRemaining()) {
+            int recordStart = data.position();
+            byte type = data.get();
+            if (type == START) {
+                data.position(recordStart); // The next game begins; this one was abandoned
+                break;
+            }
+            if (!hasRemainingFor(type, data)) {
+                data.position(data.limit());
+                break;
+            }
+            replay.recordedNanos = data.getLong() - startNanos;
+            if (type == SELECT) {
+                replay.moves++;
+                Card card = engine.getCards().get(data.getShort());
+                if (memorize && engine.getP2() instanceof ComputerPlayer) {
+                    ((ComputerPlayer) engine.getP2()).memorizeCard(card);
+                }
+                if (engine.handleCardSelection(card) && engine.getP2() instanceof ComputerPlayer) {
+                    ((ComputerPlayer) engine.getP2()).forgetMatchedCards();
+                }
+            } else if (type == SWITCH) {
+                replay.moves++;
+                engine.switchTurn();
+            } else if (type == END) {
+                replay.finished = true;
+                replay.p1Score = data.getInt();
+                replay.p2Score = data.getInt();
+                break;
+            } else {
+                throw new IOException("Unknown journal record type " + type);
+            }
+        }
+        engine.setTimed(memorize); // A recovered game is played on; headless replays stay untimed
+        return replay;
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Background loop: writes buffered records and fsyncs them once per interval.
+     */
+    private void commitLoop() {
+        while (true) {
+            try {
+                Thread.sleep(COMMIT_INTERVAL_MS);
+                FileChannel ch;
+                synchronized (this) {
+                    if (!dirty) continue;
+                    writePending();
+                    dirty = false;
+                    ch = channel;
+                    forcing = true;
+                }
+                try {
+                    ch.force(false); // Outside the lock: moves keep flowing while the disk syncs
+                } finally {
+                    synchronized (this) {
+                        forcing = false;
+                        notifyAll(); // A rotation may be waiting to close the channel
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Makes room in the buffer, writing it out early if a burst of moves filled it.
+     */
+    private void ensureSpace(int bytes) {
+        if (pending.remaining() < bytes) {
+            try {
+                writePending();
+            } catch (IOException e) {
+                e.printStackTrace();
+                pending.clear(); // Drop the batch rather than blocking the game
+            }
+        }
+    }
+
+    private void writePending() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Moves a large journal aside (to ".1") before a new game starts.
+     * The old file is synced before it is closed, after any sync the commit thread
+     * has in flight, so its last moves are on disk like every other commit.
+     */
+    private void rotateIfNeeded() {
+        try {
+            if (channel.size() + pending.position() < ROTATE_SIZE) return;
+            while (forcing) {
+                wait(); // Releases the lock, so the commit thread can report back
+            }
+            writePending();
+            dirty = false;
+            channel.force(false);
+            channel.close();
+            Files.move(path, Paths.get(path + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            channel = open(path);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Rotate at the next game instead
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Skips over the body of a record whose type byte was just read.
+     * @return false if the record is incomplete or unknown.
+     */
+    static boolean skipRecord(byte type, ByteBuffer data) {
+        if (!hasRemainingFor(type, data)) return false;
+        try {
+            data.getLong();
+            switch (type) {
+                case START:
+                    data.getLong();
+                    int length = data.getShort() & 0xFFFF;
+                    if (data.remaining() < length) return false;
+                    data.position(data.position() + length);
+                    return true;
+                case SELECT:
+                    data.getShort();
+                    return true;
+                case SWITCH:
+                    return true;
+                case END:
+                    data.getLong();
+                    return true;
+                default:
+                    return false;
+            }
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks that the fixed-size part of a record is fully present.
+     */
+    private static boolean hasRemainingFor(byte type, ByteBuffer data) {
+        switch (type) {
+            case START: return data.remaining() >= 8 + 8 + 2;
+            case SELECT: return data.remaining() >= 8 + 2;
+            case SWITCH: return data.remaining() >= 8;
+            case END: return data.remaining() >= 8 + 8;
+            default: return false;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package controller;
+
+import util.LatencyHistogram;
+import util.Metrics;
+import java.nio.ByteBuffer;
+
+/**
+ * Move timings of one game, per player seat (0 = Player 1):
+ * - REVEAL: from the dispatch of a click until its card has been painted
+ * - THINK: from a player's first card of a turn to their second
+ * - AI_DECISION: how long the AI took to pick a card
+ *
+ * Each kind goes into a lock-free log-linear histogram of fixed size. The histograms
+ * are created together by allocate(), before the first move, so recording never
+ * allocates.
+ * Every sample is also added to the process-wide histogram of its grid size
+ * ("move.reveal.4x4", "move.think.4x4", "move.ai.4x4"), visible over JMX.
+ * The histograms are a few kilobytes each, so only games someone plays on screen
+ * allocate them: journal replays and headless copies are untimed (see GameEngine.setTimed),
+ * and server games run on ConcurrentGameEngine, which keeps no timings.
+ */
+public class MoveStats {
+    public enum Kind {
+        REVEAL("reveal", "Click to reveal"),
+        THINK("think", "Think time"),
+        AI_DECISION("ai", "AI decision");
+
+        private final String key;
+        private final String label;
+
+        Kind(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final LatencyHistogram[][] perSeat = new LatencyHistogram[2][KINDS.length];
+    private final LatencyHistogram[] perGrid = new LatencyHistogram[KINDS.length];
+
+    /**
+     * @param gridSize Board size whose process-wide histograms the samples are added to.
+     */
+    public MoveStats(int gridSize) {
+        for (Kind kind : KINDS) {
+            perGrid[kind.ordinal()] = Metrics.histogram("move." + kind.key + "." + gridSize + "x" + gridSize);
+        }
+    }
+
+    /**
+     * Creates the histograms of both seats, if not done yet.
+     */
+    void allocate() {
+        for (LatencyHistogram[] seat : perSeat) {
+            for (int k = 0; k < seat.length; k++) {
+                if (seat[k] == null) seat[k] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /**
+     * Adds a sample; only after allocate(), samples before it are dropped.
+     */
+    public void record(int seat, Kind kind, long nanos) {
+        LatencyHistogram h = perSeat[seat][kind.ordinal()];
+        if (h == null) return;
+        h.record(nanos);
+        perGrid[kind.ordinal()].record(nanos);
+    }
+
+    /**
+     * The timings of one kind for one seat, or null if they are not kept.
+     */
+    public LatencyHistogram get(int seat, Kind kind) {
+        return perSeat[seat][kind.ordinal()];
+    }
+
+    /**
+     * Writes the non-empty buckets of every histogram (see GameSnapshot).
+     * Layout per seat and kind: bucket count (2), then if not zero: sum (8), max (8),
+     * and (bucket (2), count (4)) per bucket.
+     */
+    void write(ByteBuffer dst) {
+        for (LatencyHistogram[] seat : perSeat) {
+            for (LatencyHistogram h : seat) {
+                int used = 0;
+                if (h != null) {
+                    for (int b = 0; b < LatencyHistogram.BUCKETS; b++) {
+                        if (h.getBucketCount(b) != 0) used++;
+                    }
+                }
+                dst.putShort((short) used);
+                if (used == 0) continue;
+                dst.putLong(h.getSum());
+                dst.putLong(h.getMax());
+                for (int b = 0; b < LatencyHistogram.BUCKETS; b++) {
+                    long n = h.getBucketCount(b);
+                    if (n == 0) continue;
+                    dst.putShort((short) b);
+                    dst.putInt((int) Math.min(Integer.MAX_VALUE, n));
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores histograms written by write. The grid size histograms are not touched:
+     * they already counted these samples when the game was played.
+     */
+    void read(ByteBuffer src) {
+        for (LatencyHistogram[] seat : perSeat) {
+            for (int k = 0; k < seat.length; k++) {
+                int used = src.getShort();
+                if (used == 0) continue;
+                long sum = src.getLong();
+                long max = src.getLong();
+                long[] counts = new long[LatencyHistogram.BUCKETS];
+                for (int i = 0; i < used; i++) {
+                    int bucket = src.getShort();
+                    counts[bucket] += src.getInt();
+                }
+                if (seat[k] == null) seat[k] = new LatencyHistogram();
+                seat[k].add(counts, sum, max);
+            }
+        }
+    }
+}
@@ -1,24 +1,37 @@
 package main;
 
 import javax.swing.SwingUtilities;
+import util.StartupTimer;
+import view.EdtWatchdog;
 import view.MainFrame;
+import view.Theme;
 
 /**
  * The entry point for the application.
  * It launches the GUI within the Swing Event Dispatch Thread (EDT) to ensure thread safety.
+ * Startup is timed from here to the first painted menu and logged (see StartupTimer).
  */
 public class Main {
     public static void main(String[] args) {
+        StartupTimer.start();
+
         // Use invokeLater to ensure thread safety for Swing components
         SwingUtilities.invokeLater(() -> {
+            StartupTimer.phase("edt");
+            // Watch for UI freezes from the first event on (see Settings for the threshold)
+            EdtWatchdog.get().start();
             try {
                 // Create and display the main application window
                 MainFrame frame = new MainFrame();
                 frame.setVisible(true);
+                StartupTimer.phase("show");
             } catch (Exception e) {
                 // Print stack trace if something goes wrong during initialization
                 e.printStackTrace();
             }
         });
+
+        // Meanwhile this thread looks up the fonts the window is about to need
+        Theme.preloadFonts();
     }
-}
\ No newline at end of file
+}
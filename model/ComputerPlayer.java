@@ -1,7 +1,11 @@
 package model;
 
+import util.GameEvents;
+import util.LatencyHistogram;
+import util.Metrics;
 import view.CardButton;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -10,9 +14,13 @@ import java.util.Random;
  * Implements logic for memory retention and decision making based on difficulty levels.
  */
 public class ComputerPlayer extends Player {
+    private static final LatencyHistogram MOVE_TIME = Metrics.histogram("ai.move");
+
     private String difficulty; // "Easy", "Normal", "Hard"
     private List<Card> memory;
     private Random random;
+    private String scenario; // how the last move was chosen, for the AiDecision event
+    private volatile long lastMoveNanos;
 
     public ComputerPlayer() {
         super("Computer AI");
@@ -28,6 +36,32 @@ public class ComputerPlayer extends Player {
         this.difficulty = difficulty;
     }
 
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * How long the last makeMove took, in nanoseconds (0 before the first move).
+     */
+    public long getLastMoveNanos() {
+        return lastMoveNanos;
+    }
+
+    /**
+     * Returns the cards the AI currently remembers (read-only view).
+     */
+    public List<Card> getMemory() {
+        return Collections.unmodifiableList(memory);
+    }
+
+    /**
+     * Replaces the AI memory, e.g., when a saved game is loaded.
+     */
+    public void restoreMemory(List<Card> cards) {
+        memory.clear();
+        memory.addAll(cards);
+    }
+
     /**
      * Decides whether to remember a revealed card based on the current difficulty.
      */
@@ -67,23 +101,69 @@ public class ComputerPlayer extends Player {
     }
 
     /**
-     * Main AI Logic: Selects the best possible move.
+     * Main AI Logic: Selects the button of the best possible move.
      * @param availableButtons List of all card buttons on the board.
      * @param firstCard The first card selected in the current turn (null if this is the first move).
      * @return The CardButton to click.
      */
     public CardButton makeMove(List<CardButton> availableButtons, Card firstCard) {
+        long start = System.nanoTime();
+        try {
+            List<Card> cards = new ArrayList<>(availableButtons.size());
+            for (CardButton btn : availableButtons) {
+                cards.add(btn.getCard());
+            }
+            Card choice = chooseCard(cards, firstCard);
+            if (choice == null) return null;
+            return availableButtons.get(cards.indexOf(choice));
+        } finally {
+            lastMoveNanos = System.nanoTime() - start;
+            MOVE_TIME.record(lastMoveNanos);
+        }
+    }
+
+    /**
+     * Selects the best possible move without any UI, e.g. for simulated clients.
+     * @param cards All cards on the board.
+     * @param firstCard The first card selected in the current turn (null if this is the first move).
+     * @return The card to reveal, or null if none can be revealed.
+     */
+    public Card chooseCard(List<Card> cards, Card firstCard) {
+        GameEvents.AiDecision event = new GameEvents.AiDecision();
+        event.begin();
+        Card choice = decide(cards, firstCard);
+        event.end();
+        if (event.shouldCommit()) {
+            event.difficulty = difficulty;
+            event.memorySize = memory.size();
+            event.scenario = scenario;
+            event.secondCard = firstCard != null;
+            event.commit();
+        }
+        return choice;
+    }
+
+    @Override
+    public void playTurn() {
+        // Logic is handled via makeMove called by the GamePanel
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * The decision itself; records which scenario produced it in the scenario field.
+     */
+    private Card decide(List<Card> cards, Card firstCard) {
         // SCENARIO 1: Second move of the turn (We need to find a match for firstCard)
         if (firstCard != null) {
-            for (CardButton btn : availableButtons) {
-                Card c = btn.getCard();
-                
+            for (Card c : cards) {
                 // Check if this card is the pair for the first card
                 // Must ensure we don't click the exact same card instance again
                 if (c != firstCard && c.getValue().equals(firstCard.getValue()) && c.getSuit().equals(firstCard.getSuit())) {
                     // We pick it if it's in our memory OR if we are on Hard mode (always finds pairs)
                     if (memory.contains(c)) {
-                        return btn;
+                        scenario = "MATCH_FROM_MEMORY";
+                        return c;
                     }
                 }
             }
@@ -97,12 +177,10 @@ public class ComputerPlayer extends Player {
                     
                     // If we have two matching cards in memory
                     if (c1.getValue().equals(c2.getValue()) && c1.getSuit().equals(c2.getSuit())) {
-                        // Find the button associated with the first card of the pair
-                        for (CardButton btn : availableButtons) {
-                            // CRITICAL: Using isFaceUp() as requested
-                            if (btn.getCard() == c1 && !btn.getCard().isMatched() && !btn.getCard().isFaceUp()) {
-                                return btn;
-                            }
+                        // CRITICAL: Using isFaceUp() as requested
+                        if (!c1.isMatched() && !c1.isFaceUp()) {
+                            scenario = "PAIR_FROM_MEMORY";
+                            return c1;
                         }
                     }
                 }
@@ -111,20 +189,19 @@ public class ComputerPlayer extends Player {
 
         // SCENARIO 3: Fallback (Random Move)
         // If no intelligent move is possible, pick a random valid card
-        List<CardButton> validOptions = new ArrayList<>();
-        for (CardButton btn : availableButtons) {
+        List<Card> validOptions = new ArrayList<>();
+        for (Card c : cards) {
             // CRITICAL: Using isFaceUp() as requested
-            if (!btn.getCard().isMatched() && !btn.getCard().isFaceUp() && btn.getCard() != firstCard) {
-                validOptions.add(btn);
+            if (!c.isMatched() && !c.isFaceUp() && c != firstCard) {
+                validOptions.add(c);
             }
         }
 
-        if (validOptions.isEmpty()) return null;
+        if (validOptions.isEmpty()) {
+            scenario = "NONE";
+            return null;
+        }
+        scenario = "RANDOM";
         return validOptions.get(random.nextInt(validOptions.size()));
     }
-
-    @Override
-    public void playTurn() {
-        // Logic is handled via makeMove called by the GamePanel
-    }
 }
\ No newline at end of file
@@ -1,66 +1,133 @@
 package model;
 
+import util.GameEvents;
+import util.LatencyHistogram;
+import util.Metrics;
 import javax.swing.ImageIcon;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
 
 /**
  * Manages the deck of cards, including initialization, shuffling, 
  * and selecting the specific subset of cards needed for the current game grid.
  */
 public class Deck {
+    // Card values and suits corresponding to file names (e.g., "1c.jpg" ... "13s.jpg")
+    public static final String[] VALUES = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13"};
+    public static final String[] SUITS = {"c", "d", "h", "s"};
+    public static final String IMAGE_PATH = "resources/images/";
+
+    private static final LatencyHistogram BUILD_TIME = Metrics.histogram("deck.build");
+    private static final LatencyHistogram DECODE_TIME = Metrics.histogram("image.decode");
+
     private List<Card> cards;
+    private IntConsumer loadProgress; // told how many images are decoded so far, if set
 
     public Deck() {
         this.cards = new ArrayList<>();
     }
 
+    /**
+     * Reports image decoding while the deck is built (e.g. for a progress bar), on
+     * the thread building it. The listener may throw to abort the build.
+     * @param loaded Called with the number of images decoded so far.
+     */
+    public void setLoadProgress(IntConsumer loaded) {
+        this.loadProgress = loaded;
+    }
+
     /**
      * Initializes the deck with the required number of pairs.
+     * Only the faces picked for the game are decoded (one image per pair).
      * Uses a hybrid loading approach to support both IDE and JAR execution.
      * * @param values Array of rank values (e.g., "1", "13").
      * @param suits Array of suit codes (e.g., "c", "h").
-     * @param imagePath Base path for images (e.g., "resources/images/").
+     * @param imagePath Base path for images (e.g., "resources/images/"), or null to create cards without images (headless use).
      * @param pairsNeeded Number of unique pairs required for the grid size.
      */
     public void initializeDeck(String[] values, String[] suits, String imagePath, int pairsNeeded) {
-        this.cards.clear();
-        List<Card> prototypeDeck = new ArrayList<>();
-
-        // 1. Generate the master deck (52 cards)
-        for (String suit : suits) {
-            for (String value : values) {
-                // Construct the file path (e.g., "resources/images/1c.jpg")
-                String fileName = imagePath + value + suit + ".jpg";
-                
-                // Load the image securely
-                ImageIcon icon = loadCardImage(fileName);
-                
-                // Create the card object and add to prototype list
-                prototypeDeck.add(new Card(value, suit, icon));
+        GameEvents.DeckInit event = new GameEvents.DeckInit();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            this.cards.clear();
+            List<Card> prototypeDeck = new ArrayList<>();
+
+            // 1. Generate the master deck (52 cards), without images yet
+            for (String suit : suits) {
+                for (String value : values) {
+                    prototypeDeck.add(new Card(value, suit, null));
+                }
             }
+
+            // 2. Shuffle to randomize selection
+            Collections.shuffle(prototypeDeck);
+
+            // 3. Select the required number of pairs for the game
+            List<Card> selectedCards = new ArrayList<>();
+            Map<Card, ImageIcon> images = new HashMap<>();
+            for (int i = 0; i < pairsNeeded; i++) {
+                // Pick a card from the prototype deck
+                // Use modulo to cycle through if pairsNeeded > 52 (rare case)
+                Card proto = prototypeDeck.get(i % prototypeDeck.size());
+
+                // Load the image securely (e.g., "resources/images/1c.jpg"), once per face
+                ImageIcon icon = imagePath == null ? null : images.computeIfAbsent(proto,
+                        p -> loaded(images.size(), loadCardImage(imagePath + p.getValue() + p.getSuit() + ".jpg")));
+
+                // Create two identical instances for the pair
+                selectedCards.add(new Card(proto.getValue(), proto.getSuit(), icon));
+                selectedCards.add(new Card(proto.getValue(), proto.getSuit(), icon));
+            }
+
+            // 4. Shuffle the final game deck so pairs are scattered
+            Collections.shuffle(selectedCards);
+            this.cards = selectedCards;
+        } finally {
+            BUILD_TIME.record(System.nanoTime() - start);
+            commit(event, imagePath, false);
         }
+    }
 
-        // 2. Shuffle to randomize selection
-        Collections.shuffle(prototypeDeck);
-
-        // 3. Select the required number of pairs for the game
-        List<Card> selectedCards = new ArrayList<>();
-        for (int i = 0; i < pairsNeeded; i++) {
-            // Pick a card from the prototype deck
-            // Use modulo to cycle through if pairsNeeded > 52 (rare case)
-            Card proto = prototypeDeck.get(i % prototypeDeck.size());
-            
-            // Create two identical instances for the pair
-            selectedCards.add(new Card(proto.getValue(), proto.getSuit(), proto.getFrontImage()));
-            selectedCards.add(new Card(proto.getValue(), proto.getSuit(), proto.getFrontImage()));
+    /**
+     * Rebuilds a specific card layout, e.g., from a saved game.
+     * Each distinct face is loaded only once and shared by both cards of the pair.
+     * @param faceIds Face ID of every card on the board (see faceIdOf).
+     * @param imagePath Base path for images, or null to create cards without images (headless use).
+     */
+    public void loadLayout(int[] faceIds, String imagePath) {
+        GameEvents.DeckInit event = new GameEvents.DeckInit();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            Map<Integer, ImageIcon> images = new HashMap<>();
+            List<Card> layout = new ArrayList<>();
+            for (int faceId : faceIds) {
+                String value = VALUES[faceId % VALUES.length];
+                String suit = SUITS[faceId / VALUES.length];
+                ImageIcon icon = imagePath == null ? null : images.computeIfAbsent(faceId,
+                        id -> loaded(images.size(), loadCardImage(imagePath + value + suit + ".jpg")));
+                layout.add(new Card(value, suit, icon));
+            }
+            this.cards = layout;
+        } finally {
+            BUILD_TIME.record(System.nanoTime() - start);
+            commit(event, imagePath, true);
         }
+    }
 
-        // 4. Shuffle the final game deck so pairs are scattered
-        Collections.shuffle(selectedCards);
-        this.cards = selectedCards;
+    /**
+     * Returns the compact face ID (0-51) of a card: suit index * 13 + value index.
+     */
+    public static int faceIdOf(Card card) {
+        return Arrays.asList(SUITS).indexOf(card.getSuit()) * VALUES.length
+                + Arrays.asList(VALUES).indexOf(card.getValue());
     }
 
     /**
@@ -70,14 +137,42 @@ public class Deck {
      * @return Loaded ImageIcon, or a blank icon if not found (avoids crashes).
      */
     private ImageIcon loadCardImage(String path) {
+        GameEvents.ImageDecode event = new GameEvents.ImageDecode();
+        event.begin();
+        long start = System.nanoTime();
+
         // Attempt 1: Load from Classpath (Standard for JAR distribution)
         URL imgURL = getClass().getClassLoader().getResource(path);
-        if (imgURL != null) {
-            return new ImageIcon(imgURL);
+        ImageIcon icon = imgURL != null ? new ImageIcon(imgURL)
+                // Attempt 2: Load from File System (Standard for IDE development)
+                : new ImageIcon(path);
+
+        DECODE_TIME.record(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.resource = path;
+            event.bytes = 4L * Math.max(0, icon.getIconWidth()) * Math.max(0, icon.getIconHeight());
+            event.commit();
         }
-        
-        // Attempt 2: Load from File System (Standard for IDE development)
-        return new ImageIcon(path);
+        return icon;
+    }
+
+    /**
+     * Tells the progress listener that one more image is decoded.
+     * @param before Images decoded before this one.
+     */
+    private ImageIcon loaded(int before, ImageIcon icon) {
+        if (loadProgress != null) loadProgress.accept(before + 1);
+        return icon;
+    }
+
+    private void commit(GameEvents.DeckInit event, String imagePath, boolean resumed) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.cards = cards.size();
+        event.images = imagePath != null;
+        event.resumed = resumed;
+        event.commit();
     }
 
     /**
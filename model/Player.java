@@ -8,6 +8,8 @@ package model;
 public abstract class Player {
     private String name;
     private int score;
+    private int moves; // completed turns (two cards flipped)
+    private int pairs; // pairs found
 
     /**
      * Initializes a new player with a specific name.
@@ -28,10 +30,35 @@ public abstract class Player {
     }
 
     /**
-     * Resets the score to zero. Useful for restarting the game.
+     * Records one move (a second card flipped), whether or not it was a match.
+     */
+    public void addMove() {
+        this.moves++;
+    }
+
+    /**
+     * Records one successfully matched pair.
+     */
+    public void addPair() {
+        this.pairs++;
+    }
+
+    /**
+     * Resets the score and move counters to zero. Useful for restarting the game.
      */
     public void resetScore() {
         this.score = 0;
+        this.moves = 0;
+        this.pairs = 0;
+    }
+
+    /**
+     * Restores score and move counters, e.g., when a saved game is loaded.
+     */
+    public void restoreCounters(int score, int moves, int pairs) {
+        this.score = score;
+        this.moves = moves;
+        this.pairs = pairs;
     }
 
     /**
@@ -54,4 +81,12 @@ public abstract class Player {
     public int getScore() {
         return score;
     }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getPairs() {
+        return pairs;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Free list of equally sized direct buffers, so connections only hold a buffer
+ * while they have unprocessed input or unsent output. Not thread-safe: every
+ * event loop owns its own pool.
+ */
+class BufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+    BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Returns a cleared buffer, allocating one only if the pool is empty.
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = free.pollFirst();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        if (free.size() < maxPooled) {
+            free.addFirst(buffer); // Most recently used first: likely still in cache
+        }
+    }
+}
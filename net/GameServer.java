@@ -0,0 +1,733 @@
+package net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking game server hosting many independent GameSessions.
+ *
+ * A small pool of event loops, each owning one Selector, serves all connections:
+ * the first loop also accepts new connections and hands them out round-robin.
+ * A connection stays on its loop for its whole life, so its buffers are only ever
+ * touched by one thread and a move is handled without any thread hand-off.
+ * A connection may run several games at once; every message names its session.
+ * Connections borrow direct buffers from their loop's pool only while they have
+ * input to process or replies to send, so idle connections hold no buffers.
+ * Spectators are fed by each game's SpectatorHub; a spectator connection only
+ * asks for the next update once the previous one is handed to the socket, so a
+ * slow spectator receives fewer, merged updates.
+ * Each seat of a game belongs to one connection (see GameSession); a move by one
+ * player is pushed to the other player's connection through its loop's task queue.
+ * Games outlive the connection that created them: a new connection takes the seats
+ * over with their seat key (JOIN), and games nobody holds a seat of are hibernated
+ * to disk by the SessionStore once idle, until their next request.
+ * Players can also ask to be paired with an opponent (FIND_MATCH); the Matchmaker
+ * creates the game and each player's loop is told through its task queue.
+ *
+ * Usage: java -cp bin net.GameServer [port] [event loops] [idle seconds]
+ */
+public class GameServer {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int POOLED_BUFFERS = 256; // per event loop
+    private static final int BACKLOG = 1024;
+    private static final int MAX_WATCHES = 8;     // spectated games per connection
+    private static final int SPECTATE_ITEM = 272; // largest SPECTATE frame
+    private static final String SESSION_DIR = "sessions";
+    private static final long DEFAULT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final long EXPIRE_MILLIS = TimeUnit.DAYS.toMillis(1); // hibernated games are kept a day
+
+    private final ServerSocketChannel acceptor;
+    private final EventLoop[] loops;
+    private final SessionStore sessions;
+    private final AtomicInteger nextSessionId;
+    private final Matchmaker matchmaker;
+    private int nextLoop; // round-robin position, only used by the accepting loop
+    private volatile boolean running;
+
+    /**
+     * Binds the server socket; call start to begin serving.
+     * Idle games are hibernated to the "sessions" directory after two minutes.
+     * @param port TCP port, or 0 to pick a free one (see getPort).
+     * @param loopCount Number of event loop threads.
+     */
+    public GameServer(int port, int loopCount) throws IOException {
+        this(port, loopCount, Paths.get(SESSION_DIR), DEFAULT_IDLE_MILLIS);
+    }
+
+    /**
+     * Binds the server socket; call start to begin serving.
+     * @param port TCP port, or 0 to pick a free one (see getPort).
+     * @param loopCount Number of event loop threads.
+     * @param sessionDir Directory for hibernated games.
+     * @param idleMillis Time without input after which a game is hibernated.
+     */
+    public GameServer(int port, int loopCount, Path sessionDir, long idleMillis) throws IOException {
+        sessions = new SessionStore(sessionDir, idleMillis, EXPIRE_MILLIS);
+        nextSessionId = new AtomicInteger(sessions.getHighestId());
+        matchmaker = new Matchmaker(this::onMatch);
+
+        acceptor = ServerSocketChannel.open();
+        acceptor.bind(new InetSocketAddress(port), BACKLOG);
+        acceptor.configureBlocking(false);
+
+        loops = new EventLoop[Math.max(1, loopCount)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop();
+        }
+        acceptor.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        int loopCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long idleMillis = args.length > 2 ? TimeUnit.SECONDS.toMillis(Long.parseLong(args[2])) : DEFAULT_IDLE_MILLIS;
+
+        GameServer server = new GameServer(port, loopCount, Paths.get(SESSION_DIR), idleMillis);
+        server.start();
+        System.out.println("Game server listening on port " + server.getPort() + " with " + loopCount + " event loops");
+    }
+
+    /**
+     * Starts the event loop threads.
+     */
+    public void start() {
+        running = true;
+        sessions.start();
+        matchmaker.start();
+        for (int i = 0; i < loops.length; i++) {
+            new Thread(loops[i], "game-server-loop-" + i).start();
+        }
+    }
+
+    /**
+     * Stops accepting and closes every connection. Running games are dropped.
+     */
+    public void stop() {
+        running = false;
+        sessions.close();
+        matchmaker.stop();
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) acceptor.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Number of games currently held in memory.
+     */
+    public int getSessionCount() {
+        return sessions.getLiveCount();
+    }
+
+    /**
+     * Number of idle games waiting on disk for their next request.
+     */
+    public int getHibernatedCount() {
+        return sessions.getHibernatedCount();
+    }
+
+    /**
+     * One selector thread and the connections registered with it.
+     */
+    private class EventLoop implements Runnable {
+        final Selector selector;
+        final Queue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+        final BufferPool pool = new BufferPool(BUFFER_SIZE, POOLED_BUFFERS);
+        final Queue<Connection> spectated = new ConcurrentLinkedQueue<>(); // connections with spectator updates
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();       // work handed over by other threads
+
+        EventLoop() throws IOException {
+            selector = Selector.open();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    break;
+                }
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection c = (Connection) key.attachment();
+                        if (key.isReadable()) c.onReadable();
+                        if (key.isValid() && key.isWritable()) c.onWritable();
+                    } catch (IOException | RuntimeException e) {
+                        // Disconnects and protocol violations only affect this connection
+                        if (key.attachment() instanceof Connection) {
+                            ((Connection) key.attachment()).close();
+                        }
+                    }
+                }
+
+                // After the keys, so connections this loop just accepted are registered before it blocks again
+                registerIncoming();
+                sendSpectated();
+                runTasks();
+            }
+            shutdown();
+        }
+
+        /**
+         * Accepts every pending connection and assigns each one to a loop.
+         */
+        private void accept() throws IOException {
+            SocketChannel ch;
+            while ((ch = acceptor.accept()) != null) {
+                ch.configureBlocking(false);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                EventLoop target = loops[nextLoop++ % loops.length];
+                target.incoming.add(ch);
+                if (target != this) target.selector.wakeup();
+            }
+        }
+
+        private void registerIncoming() {
+            SocketChannel ch;
+            while ((ch = incoming.poll()) != null) {
+                try {
+                    SelectionKey key = ch.register(selector, SelectionKey.OP_READ);
+                    key.attach(new Connection(ch, key, this));
+                } catch (IOException e) {
+                    e.printStackTrace(); // Only this connection is lost
+                }
+            }
+        }
+
+        private void sendSpectated() {
+            Connection c;
+            while ((c = spectated.poll()) != null) {
+                try {
+                    c.sendSpectated();
+                } catch (IOException | RuntimeException e) {
+                    c.close();
+                }
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // Connection tasks close their connection (see post); the loop goes on
+                }
+            }
+        }
+
+        private void shutdown() {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            try {
+                if (this == loops[0]) acceptor.close();
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Per-connection state. Only used by the event loop the connection belongs to,
+     * except for the spectator queue, which the frame thread fills.
+     */
+    private class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final EventLoop loop;
+        final BufferPool pool;
+        ByteBuffer in;  // unprocessed input (fill mode), null when there is none
+        ByteBuffer out; // unsent replies (fill mode), null when there are none
+        Matchmaker.Ticket ticket;  // while waiting for an opponent
+        IoTask deferredMatch;      // MATCH_FOUND waiting for room in out
+        final Map<Integer, GameSession> games = new HashMap<>();   // games this connection holds seats of
+        final Set<GameSession> pushes = new LinkedHashSet<>();     // games with an opponent move to send
+
+        // Spectator updates are written by the frame thread and moved into out by the loop
+        final List<Watcher> watchers = new CopyOnWriteArrayList<>();
+        final List<Watcher> delivered = new ArrayList<>();       // loop thread only
+        final Object spectateLock = new Object();
+        ByteBuffer spectate;                                     // guarded by spectateLock
+        final List<Watcher> spectateSenders = new ArrayList<>(); // guarded by spectateLock
+
+        Connection(SocketChannel channel, SelectionKey key, EventLoop loop) {
+            this.channel = channel;
+            this.key = key;
+            this.loop = loop;
+            this.pool = loop.pool;
+        }
+
+        void onReadable() throws IOException {
+            if (in == null) in = pool.acquire();
+            if (channel.read(in) < 0) throw new EOFException();
+            process();
+            flush();
+        }
+
+        void onWritable() throws IOException {
+            flush();
+            process(); // Requests held back while the output was full
+            sendSpectated();
+            if (deferredMatch != null) {
+                IoTask match = deferredMatch;
+                deferredMatch = null;
+                match.run();
+            }
+            sendPushes();
+            flush();
+        }
+
+        /**
+         * Runs work for this connection on its loop; callable from any thread. As with the
+         * connection's own events, a failure closes only this connection.
+         */
+        void post(IoTask task) {
+            loop.tasks.add(() -> {
+                try {
+                    task.run();
+                } catch (IOException | RuntimeException e) {
+                    close();
+                }
+            });
+            loop.selector.wakeup();
+        }
+
+        /**
+         * Queues an OPPONENT_MOVED for a game whose other player just moved.
+         * Called on the mover's loop; the message is written on this connection's loop.
+         */
+        void opponentMoved(GameSession s) {
+            post(() -> {
+                if (!channel.isOpen()) return;
+                pushes.add(s); // Several moves before it is sent collapse into one delta
+                sendPushes();
+                flush();
+            });
+        }
+
+        /**
+         * Writes the queued OPPONENT_MOVED messages that fit into the output,
+         * never ahead of a MATCH_FOUND still waiting for room.
+         */
+        private void sendPushes() {
+            if (pushes.isEmpty() || deferredMatch != null) return;
+            if (out == null) out = pool.acquire();
+            for (Iterator<GameSession> it = pushes.iterator(); it.hasNext(); ) {
+                if (out.remaining() < Protocol.MAX_FRAME + 2) return; // Retried after the next write
+                GameSession s = it.next();
+                it.remove();
+                int start = out.position();
+                int frame = WireCodec.beginFrame(out, Protocol.OPPONENT_MOVED);
+                WireCodec.putVarint(out, s.getId());
+                byte status = s.writeOpponentMove(this, out);
+                if (status == Protocol.REJECTED) {
+                    out.position(start); // Our seat was taken over by another connection
+                    games.remove(s.getId());
+                    continue;
+                }
+                WireCodec.endFrame(out, frame);
+                if (status == Protocol.GAME_OVER) games.remove(s.getId());
+            }
+        }
+
+        /**
+         * Moves queued spectator updates into the output, once there is room,
+         * and asks each spectated game for its next update.
+         */
+        void sendSpectated() throws IOException {
+            synchronized (spectateLock) {
+                if (spectate == null || spectate.position() == 0) return;
+                if (out == null) out = pool.acquire();
+                if (out.remaining() < spectate.position()) return; // Retried after the next write
+                spectate.flip();
+                out.put(spectate);
+                spectate.clear();
+                delivered.addAll(spectateSenders);
+                spectateSenders.clear();
+            }
+            for (Watcher w : delivered) {
+                w.subscription.request(1);
+            }
+            delivered.clear();
+            flush();
+        }
+
+        /**
+         * Handles every complete frame in the input buffer, as long as there is room for the replies.
+         */
+        private void process() throws IOException {
+            if (in == null) return;
+            in.flip();
+            while (in.hasRemaining()) {
+                int length = WireCodec.peekVarint(in);
+                if (length < 0) break;
+                if (length == 0 || length > Protocol.MAX_FRAME) throw new IOException("Bad frame length " + length);
+                int frameEnd = in.position() + WireCodec.varintSize(length) + length;
+                if (frameEnd > in.limit()) break;
+
+                if (out == null) out = pool.acquire();
+                if (out.remaining() < Protocol.MAX_FRAME + 2) break;
+
+                int limit = in.limit();
+                in.position(frameEnd - length).limit(frameEnd); // a malformed body cannot read into the next frame
+                handle(in);
+                in.limit(limit).position(frameEnd);
+            }
+            if (in.hasRemaining()) {
+                in.compact();
+            } else {
+                pool.release(in);
+                in = null;
+            }
+        }
+
+        /**
+         * Applies one request and appends its reply frame to the output buffer.
+         */
+        private void handle(ByteBuffer frame) {
+            int start = out.position();
+            int session = 0;
+            try {
+                byte type = frame.get();
+                if (type == Protocol.NEW_GAME) {
+                    newGame(frame);
+                    return;
+                }
+                if (type == Protocol.FIND_MATCH) {
+                    findMatch(frame);
+                    return;
+                }
+                if (type != Protocol.SELECT && type != Protocol.SWITCH && type != Protocol.STATE
+                        && type != Protocol.WATCH && type != Protocol.JOIN) {
+                    error(session, Protocol.BAD_REQUEST);
+                    return;
+                }
+
+                session = WireCodec.getVarint(frame);
+                if (type == Protocol.WATCH || type == Protocol.JOIN) {
+                    int seats = type == Protocol.JOIN ? sessions.seatsOf(session, frame.getLong()) : 0;
+                    if (type == Protocol.JOIN && seats == 0) {
+                        error(session, Protocol.NOT_A_PLAYER); // Checked first: a wrong key loads nothing
+                        return;
+                    }
+                    GameSession s = sessions.get(session);
+                    if (s == null) {
+                        error(session, Protocol.UNKNOWN_SESSION);
+                        return;
+                    }
+                    if (type == Protocol.WATCH) {
+                        watch(s);
+                    } else {
+                        join(s, seats);
+                    }
+                    return;
+                }
+
+                // Moves and STATE only from a connection holding a seat; a guessed ID gets nothing
+                GameSession s = games.get(session);
+                if (s == null || !s.isPlayer(this)) {
+                    games.remove(session);
+                    error(session, Protocol.NOT_A_PLAYER);
+                    return;
+                }
+                s.touch();
+                int reply = WireCodec.beginFrame(out, Protocol.MOVE_RESULT);
+                WireCodec.putVarint(out, session);
+                if (type == Protocol.STATE) {
+                    s.writeBoard(this, out);
+                } else {
+                    byte status = type == Protocol.SELECT ? s.select(this, WireCodec.getVarint(frame), out)
+                                                          : s.switchTurn(this, out);
+                    if (status != Protocol.REJECTED) {
+                        Object opponent = s.opponentOf(this);
+                        if (opponent != null) ((Connection) opponent).opponentMoved(s);
+                    }
+                    if (status == Protocol.GAME_OVER) {
+                        sessions.remove(session);
+                        games.remove(session);
+                        s.end();
+                    }
+                }
+                WireCodec.endFrame(out, reply);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                out.position(start); // Drop the partial reply
+                error(session, Protocol.BAD_REQUEST);
+            }
+        }
+
+        private void newGame(ByteBuffer frame) {
+            byte version = frame.get();
+            int gridSize = frame.get();
+            byte flags = frame.get();
+            String p1 = readString(frame);
+            String p2 = readString(frame);
+            if (version != WireCodec.VERSION) {
+                error(0, Protocol.UNSUPPORTED_VERSION);
+                return;
+            }
+            if (gridSize < 2 || gridSize > 10 || gridSize % 2 != 0) {
+                error(0, Protocol.BAD_REQUEST);
+                return;
+            }
+
+            GameSession s = new GameSession(nextSessionId.incrementAndGet(), p1, p2, gridSize);
+            s.attach(3, this); // This client plays both seats
+            games.put(s.getId(), s);
+            sessions.add(s);
+
+            int reply = WireCodec.beginFrame(out, Protocol.GAME_CREATED);
+            WireCodec.putVarint(out, s.getId());
+            out.putLong(sessions.seatKey(s.getId(), 3));
+            if ((flags & Protocol.WITH_LAYOUT) != 0) {
+                s.writeLayout(out); // The client plays both seats locally and mirrors the moves
+            } else {
+                WireCodec.putVarint(out, s.getCardCount());
+            }
+            WireCodec.endFrame(out, reply);
+        }
+
+        private void findMatch(ByteBuffer frame) {
+            byte version = frame.get();
+            int gridSize = frame.get();
+            int skill = WireCodec.getVarint(frame);
+            String name = readString(frame);
+            if (version != WireCodec.VERSION) {
+                error(0, Protocol.UNSUPPORTED_VERSION);
+                return;
+            }
+            if (ticket != null) {
+                error(0, Protocol.ALREADY_WAITING);
+                return;
+            }
+            // Throws IllegalArgumentException (BAD_REQUEST) for an unsupported grid size
+            ticket = matchmaker.enqueue(name, gridSize, skill, this);
+        }
+
+        /**
+         * Sends MATCH_FOUND once the Matchmaker paired this connection. Runs on this connection's loop.
+         */
+        void matchFound(GameSession s, int seat, String opponent) throws IOException {
+            ticket = null;
+            if (!channel.isOpen()) {
+                s.detach(this);
+                return;
+            }
+            games.put(s.getId(), s);
+            if (out == null) out = pool.acquire();
+            if (out.remaining() < Protocol.MAX_FRAME + 2) {
+                deferredMatch = () -> matchFound(s, seat, opponent); // Sent once replies drain
+                return;
+            }
+            int reply = WireCodec.beginFrame(out, Protocol.MATCH_FOUND);
+            WireCodec.putVarint(out, s.getId());
+            out.put((byte) seat);
+            out.putLong(sessions.seatKey(s.getId(), 1 << seat));
+            putString(opponent, out);
+            WireCodec.putVarint(out, s.getCardCount()); // Faces arrive as cards are turned over
+            WireCodec.endFrame(out, reply);
+            flush();
+        }
+
+        /**
+         * Takes over the seats of a game (JOIN) and replies with the full board.
+         */
+        private void join(GameSession s, int seats) {
+            s.attach(seats, this);
+            games.put(s.getId(), s);
+            int reply = WireCodec.beginFrame(out, Protocol.MOVE_RESULT);
+            WireCodec.putVarint(out, s.getId());
+            s.writeBoard(this, out);
+            WireCodec.endFrame(out, reply);
+        }
+
+        private void watch(GameSession s) {
+            if (watchers.size() >= MAX_WATCHES) {
+                error(s.getId(), Protocol.TOO_MANY_WATCHES);
+                return;
+            }
+            synchronized (spectateLock) {
+                if (spectate == null) spectate = ByteBuffer.allocate(MAX_WATCHES * SPECTATE_ITEM);
+            }
+            Watcher w = new Watcher(this, s.getId());
+            watchers.add(w);
+            s.watch(w);
+        }
+
+        private void error(int session, byte code) {
+            int reply = WireCodec.beginFrame(out, Protocol.ERROR);
+            WireCodec.putVarint(out, session);
+            out.put(code);
+            WireCodec.endFrame(out, reply);
+        }
+
+        /**
+         * Writes as much pending output as the socket takes, and only waits for
+         * new requests once all replies are out (so a slow reader is throttled).
+         */
+        private void flush() throws IOException {
+            if (out != null) {
+                out.flip();
+                channel.write(out);
+                if (out.hasRemaining()) {
+                    out.compact();
+                } else {
+                    pool.release(out);
+                    out = null;
+                }
+            }
+            key.interestOps(out != null ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+            if (in != null) pool.release(in);
+            if (out != null) pool.release(out);
+            in = out = null;
+            if (ticket != null) ticket.cancel();
+            for (GameSession s : games.values()) {
+                s.detach(this); // The game may be hibernated once idle
+            }
+            games.clear();
+            pushes.clear();
+            for (Watcher w : watchers) {
+                if (w.subscription != null) w.subscription.cancel();
+            }
+            watchers.clear();
+        }
+    }
+
+    /**
+     * A connection's subscription to one game's spectator updates.
+     * Signals arrive on the spectator frame thread.
+     */
+    private static class Watcher implements Flow.Subscriber<ByteBuffer> {
+        final Connection connection;
+        final int session;
+        volatile Flow.Subscription subscription;
+
+        Watcher(Connection connection, int session) {
+            this.connection = connection;
+            this.session = session;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1); // The next request follows once this update is sent
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            queue(Protocol.SPECTATE, item);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            onComplete();
+        }
+
+        @Override
+        public void onComplete() {
+            connection.watchers.remove(this);
+            queue(Protocol.WATCH_ENDED, null);
+        }
+
+        private void queue(byte type, ByteBuffer item) {
+            Connection c = connection;
+            synchronized (c.spectateLock) {
+                if (!c.channel.isOpen()) return;
+                int frame = WireCodec.beginFrame(c.spectate, type);
+                WireCodec.putVarint(c.spectate, session);
+                if (item != null) {
+                    c.spectate.put(item);
+                    c.spectateSenders.add(this);
+                }
+                WireCodec.endFrame(c.spectate, frame);
+            }
+            c.loop.spectated.add(c);
+            c.loop.selector.wakeup();
+        }
+    }
+
+    /**
+     * Work for one connection that may fail like its I/O does (see Connection.post).
+     */
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * Hosts a game the Matchmaker created and tells both players, each on its own loop.
+     */
+    private void onMatch(Matchmaker.Match match) {
+        GameSession s = new GameSession(nextSessionId.incrementAndGet(), match.getEngine(), match.getGridSize());
+        Connection first = (Connection) match.getPlayer1().getAttachment();
+        Connection second = (Connection) match.getPlayer2().getAttachment();
+        // Seats are taken before either player hears of the game, so no move can miss the opponent
+        s.attach(1, first);
+        s.attach(2, second);
+        sessions.add(s);
+        first.post(() -> first.matchFound(s, 0, match.getPlayer2().getName()));
+        second.post(() -> second.matchFound(s, 1, match.getPlayer1().getName()));
+    }
+
+    private static void putString(String s, ByteBuffer dst) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, 255);
+        dst.put((byte) len);
+        dst.put(bytes, 0, len);
+    }
+
+    private static String readString(ByteBuffer src) {
+        byte[] bytes = new byte[src.get() & 0xFF];
+        src.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,295 @@
+package net;
+
+import controller.ConcurrentGameEngine;
+import controller.GameSnapshot;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.Flow;
+
+/**
+ * One game hosted by the server: a ConcurrentGameEngine plus the bookkeeping the
+ * server needs. Moves are validated against the engine, so a client can only
+ * make moves the local game would also accept.
+ *
+ * Each seat is held by a player (the server's connection object): only the holder
+ * of the seat on turn may move, and every player has its own view of the board, so
+ * the deltas it receives cover exactly what changed since it last heard from the game.
+ * One player may hold both seats (a game created by one client).
+ * The two players of a game usually sit on different event loops. Moves take no
+ * lock: the engine applies each with a CAS, checking the seat in the same step, and
+ * a player's view is only touched by its own connection's loop, so the two loops
+ * never wait for each other. Only seat changes, spectators and hibernation lock.
+ * An idle game nobody holds a seat of can be hibernated to a GameSnapshot file and
+ * later restored under the same ID (see SessionStore).
+ */
+public class GameSession {
+    private final int id;
+    private final ConcurrentGameEngine engine;
+    private final int gridSize;
+    private final byte[] faces;  // face ID per card, computed once for the wire
+    private volatile View[] views = new View[2]; // per seat, null if nobody holds it; replaced, never modified
+    private volatile byte lastStatus = Protocol.BOARD_STATE; // of the last move, for OPPONENT_MOVED
+    private SpectatorHub hub;    // created when the first spectator arrives
+    private boolean ended;
+    private boolean hibernated;  // written to disk; this instance must no longer be used
+    private volatile long lastActive = System.nanoTime();
+
+    /**
+     * A seat holder and the board as it last saw it. Only used on the holder's own loop.
+     */
+    private static final class View {
+        final Object player;
+        final long[] shown; // see WireCodec.putDelta
+        final long[] board; // scratch for the current board
+
+        View(Object player, int words) {
+            this.player = player;
+            this.shown = new long[words];
+            this.board = new long[words];
+        }
+    }
+
+    /**
+     * Creates a new game with a freshly shuffled board.
+     */
+    public GameSession(int id, String p1Name, String p2Name, int gridSize) {
+        this(id, ConcurrentGameEngine.deal(p1Name, p2Name, (gridSize * gridSize) / 2), gridSize);
+    }
+
+    /**
+     * Wraps an existing game, e.g. a matched or restored one (see ConcurrentGameEngine.of).
+     * Nobody holds a seat yet; see attach.
+     */
+    public GameSession(int id, ConcurrentGameEngine engine, int gridSize) {
+        this.id = id;
+        this.engine = engine;
+        this.gridSize = gridSize;
+
+        this.faces = new byte[engine.getCardCount()];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = (byte) engine.getFaceId(i);
+        }
+    }
+
+    /**
+     * Gives seats to a player, taking them from whoever held them. The player is
+     * assumed to have seen the board as it is now (send it a board or layout next).
+     * @param seats Bit 0 for Player 1's seat, bit 1 for Player 2's.
+     */
+    public synchronized void attach(int seats, Object player) {
+        View view = new View(player, WireCodec.stateWords(faces.length));
+        engine.getState().copyBoard(view.shown);
+        View[] next = views.clone();
+        for (int seat = 0; seat < 2; seat++) {
+            if ((seats & (1 << seat)) != 0) next[seat] = view;
+        }
+        // One view for a player in both seats
+        if (next[0] != null && next[1] != null && next[0].player == next[1].player) next[1] = next[0];
+        views = next;
+    }
+
+    /**
+     * Frees the seats a player holds, e.g. when its connection closed.
+     */
+    public synchronized void detach(Object player) {
+        View[] next = views.clone();
+        for (int seat = 0; seat < 2; seat++) {
+            if (next[seat] != null && next[seat].player == player) next[seat] = null;
+        }
+        views = next;
+    }
+
+    /**
+     * Tells whether the player holds at least one seat.
+     */
+    public boolean isPlayer(Object player) {
+        return viewOf(views, player) != null;
+    }
+
+    /**
+     * The holder of the other seat, if it is somebody else, or null.
+     */
+    public Object opponentOf(Object player) {
+        View[] v = views;
+        for (int seat = 0; seat < 2; seat++) {
+            if (v[seat] != null && v[seat].player == player) {
+                View other = v[1 - seat];
+                return other == null || other.player == player ? null : other.player;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reveals a card if the player holds the seat on turn and writes the MOVE_RESULT body
+     * (without the session ID): status, current player, both scores and the board delta.
+     * Must be called on the player's own loop.
+     * @param player A holder of a seat (see isPlayer).
+     * @return The status, one of the Protocol MOVE_RESULT statuses.
+     */
+    public byte select(Object player, int cardIndex, ByteBuffer dst) {
+        View[] v = views;
+        View view = viewOf(v, player);
+        byte status = view == null ? Protocol.REJECTED : statusOf(engine.select(seatOf(v, player), cardIndex, -1));
+        writeResult(status, view, dst);
+        return status;
+    }
+
+    /**
+     * Ends the turn after a mismatch, like the UI does once the cards were shown,
+     * and writes the MOVE_RESULT body. The status is REJECTED if there is no mismatch
+     * to resolve or the player does not hold the seat on turn.
+     */
+    public byte switchTurn(Object player, ByteBuffer dst) {
+        View[] v = views;
+        View view = viewOf(v, player);
+        byte status = view == null ? Protocol.REJECTED : statusOf(engine.switchTurn(seatOf(v, player), -1));
+        writeResult(status, view, dst);
+        return status;
+    }
+
+    /**
+     * Writes the MOVE_RESULT body for a STATE or JOIN request: the full board instead of a delta.
+     */
+    public void writeBoard(Object player, ByteBuffer dst) {
+        View view = viewOf(views, player);
+        long[] board = view != null ? view.board : new long[WireCodec.stateWords(faces.length)];
+        ConcurrentGameEngine.State s = engine.getState();
+        writeHeader(Protocol.BOARD_STATE, s, dst);
+        s.copyBoard(board);
+        WireCodec.putBoard(board, faces, dst);
+        if (view != null) System.arraycopy(board, 0, view.shown, 0, board.length);
+    }
+
+    /**
+     * Writes the OPPONENT_MOVED body for a player: the status of the last move and what
+     * changed since the player last heard from the game.
+     * @return The status written, or REJECTED if the player no longer holds a seat (nothing written).
+     */
+    public byte writeOpponentMove(Object player, ByteBuffer dst) {
+        View view = viewOf(views, player);
+        if (view == null) return Protocol.REJECTED;
+        byte status = lastStatus;
+        writeResult(status, view, dst);
+        return status;
+    }
+
+    /**
+     * Adds a spectator to the game (see SpectatorHub).
+     */
+    public synchronized void watch(Flow.Subscriber<? super ByteBuffer> spectator) {
+        if (hub == null) {
+            hub = new SpectatorHub(engine);
+            if (ended) hub.close(); // Completes the spectator right away
+        }
+        hub.subscribe(spectator);
+    }
+
+    /**
+     * Called when the game is over or abandoned: completes all spectator subscriptions.
+     */
+    public synchronized void end() {
+        ended = true;
+        if (hub != null) hub.close();
+    }
+
+    /**
+     * Records activity on the game, keeping it in memory.
+     * @return false if the game was hibernated meanwhile; load it again from the store.
+     */
+    public synchronized boolean touch() {
+        if (hibernated) return false;
+        lastActive = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Saves the game to a file if it has been idle for at least the given time.
+     * Spectators are completed; they can watch again once the game is restored.
+     * @return true if the game was written and this instance is retired.
+     */
+    public synchronized boolean hibernate(Path file, long idleNanos) throws IOException {
+        if (ended || hibernated || System.nanoTime() - lastActive < idleNanos) return false;
+        if (views[0] != null || views[1] != null) return false; // Its players may move any time
+        GameSnapshot.save(engine.toEngine(), gridSize, file);
+        hibernated = true;
+        if (hub != null) {
+            hub.close();
+            hub = null;
+        }
+        return true;
+    }
+
+    /**
+     * Writes every face of the board, for a GAME_CREATED reply to a client that asked for
+     * the layout (Protocol.WITH_LAYOUT). Never sent to anyone else.
+     */
+    public void writeLayout(ByteBuffer dst) {
+        WireCodec.putLayout(faces, dst);
+    }
+
+    public int getCardCount() {
+        return faces.length;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public ConcurrentGameEngine getEngine() {
+        return engine;
+    }
+
+    // --- Private Helper Methods ---
+
+    private static View viewOf(View[] views, Object player) {
+        if (views[0] != null && views[0].player == player) return views[0];
+        return views[1] != null && views[1].player == player ? views[1] : null;
+    }
+
+    /**
+     * The seat the player may move for: its only seat, or -1 (whoever is on turn) if it holds both.
+     */
+    private static int seatOf(View[] views, Object player) {
+        boolean first = views[0] != null && views[0].player == player;
+        boolean second = views[1] != null && views[1].player == player;
+        return first && second ? -1 : first ? 0 : 1;
+    }
+
+    private static byte statusOf(ConcurrentGameEngine.Outcome outcome) {
+        switch (outcome) {
+            case REVEALED: return Protocol.REVEALED;
+            case MATCHED: return Protocol.MATCHED;
+            case GAME_OVER: return Protocol.GAME_OVER;
+            case SWITCHED: return Protocol.SWITCHED;
+            default: return Protocol.REJECTED;
+        }
+    }
+
+    /**
+     * Writes a move's status and the delta from what the player has seen to one snapshot
+     * of the game. A player that lost its seat meanwhile (null view) gets the whole visible board.
+     */
+    private void writeResult(byte status, View view, ByteBuffer dst) {
+        if (status != Protocol.REJECTED) lastStatus = status;
+        int words = WireCodec.stateWords(faces.length);
+        long[] board = view != null ? view.board : new long[words];
+        long[] shown = view != null ? view.shown : new long[words];
+        ConcurrentGameEngine.State s = engine.getState();
+        writeHeader(status, s, dst);
+        s.copyBoard(board);
+        WireCodec.putDelta(board, faces, shown, dst);
+    }
+
+    private static void writeHeader(byte status, ConcurrentGameEngine.State s, ByteBuffer dst) {
+        dst.put(status);
+        dst.put((byte) s.getCurrentSeat());
+        WireCodec.putVarint(dst, s.getScore(0));
+        WireCodec.putVarint(dst, s.getScore(1));
+    }
+}
@@ -0,0 +1,326 @@
+package net;
+
+import model.Card;
+import model.ComputerPlayer;
+import model.Deck;
+import util.LatencyHistogram;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator: simulates thousands of players against a GameServer.
+ *
+ * Every bot owns a connection and plays whole games with a ComputerPlayer policy,
+ * learning the faces only as the server reveals them. Bots run on virtual threads
+ * when the JVM has them (Java 21+), otherwise on one platform thread each.
+ * Once per second it prints active bots, requests and games per second, p50/p99/p999
+ * request latency and errors; a summary covers the ramp and the hold phase.
+ *
+ * Usage: java -cp bin net.LoadGenerator [name=value]...
+ * - server=host:port  server to load (default localhost:5555); if nothing answers,
+ *                     a local stand-in GameServer is started on a free port
+ * - bots=N            number of simulated players (default 1000)
+ * - ramp=S or S/K     start the bots over S seconds, evenly or in K equal steps (default 10)
+ * - hold=S            seconds to keep all bots playing after the ramp (default 30)
+ * - think=MS          average pause before each card a bot reveals (default 250, 0 = flat out)
+ * - grid=N            board size (default 6)
+ * - difficulty=D      Easy, Normal or Hard bot memory (default Normal)
+ */
+public class LoadGenerator {
+    private final String host;
+    private final int port;
+    private final int grid;
+    private final int thinkMillis;
+    private final String difficulty;
+
+    private volatile boolean running = true;
+    private boolean virtualThreads; // which executor newBotExecutor made
+    private final AtomicInteger activeBots = new AtomicInteger();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder rejected = new LongAdder(); // moves the server refused
+    private final LongAdder failures = new LongAdder(); // lost connections and server errors
+
+    public LoadGenerator(String host, int port, int grid, int thinkMillis, String difficulty) {
+        this.host = host;
+        this.port = port;
+        this.grid = grid;
+        this.thinkMillis = thinkMillis;
+        this.difficulty = difficulty;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected name=value: " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String server = options.getOrDefault("server", "localhost:" + Protocol.DEFAULT_PORT);
+        int bots = Integer.parseInt(options.getOrDefault("bots", "1000"));
+        String[] ramp = options.getOrDefault("ramp", "10").split("/");
+        int rampSeconds = Integer.parseInt(ramp[0]);
+        int rampSteps = ramp.length > 1 ? Integer.parseInt(ramp[1]) : 0;
+        int holdSeconds = Integer.parseInt(options.getOrDefault("hold", "30"));
+        int think = Integer.parseInt(options.getOrDefault("think", "250"));
+        int grid = Integer.parseInt(options.getOrDefault("grid", "6"));
+        String difficulty = options.getOrDefault("difficulty", "Normal");
+
+        int colon = server.lastIndexOf(':');
+        String host = colon < 0 ? server : server.substring(0, colon);
+        int port = colon < 0 ? Protocol.DEFAULT_PORT : Integer.parseInt(server.substring(colon + 1));
+
+        GameServer standIn = null;
+        if (!isListening(host, port)) {
+            standIn = new GameServer(0, Runtime.getRuntime().availableProcessors());
+            standIn.start();
+            System.out.println("No server at " + server + ", started a local stand-in on port " + standIn.getPort());
+            host = "localhost";
+            port = standIn.getPort();
+        }
+
+        LoadGenerator generator = new LoadGenerator(host, port, grid, think, difficulty);
+        try {
+            generator.run(bots, rampSeconds, rampSteps, holdSeconds);
+        } finally {
+            if (standIn != null) standIn.stop();
+        }
+    }
+
+    /**
+     * Ramps up to the given number of bots, holds them, then stops them and prints the summary.
+     * @param rampSteps 0 to start bots evenly over the ramp, otherwise the number of equal batches.
+     */
+    public void run(int bots, int rampSeconds, int rampSteps, int holdSeconds) throws InterruptedException {
+        ExecutorService executor = newBotExecutor();
+        System.out.println("Bots on " + (virtualThreads ? "virtual" : "platform") + " threads, "
+                + bots + " bots, " + rampSeconds + " s ramp" + (rampSteps > 0 ? " in " + rampSteps + " steps" : "")
+                + ", " + holdSeconds + " s hold, think " + thinkMillis + " ms, " + grid + "x" + grid + " " + difficulty);
+
+        long[] interval = new long[LatencyHistogram.BUCKETS];
+        long[] rampTotal = new long[LatencyHistogram.BUCKETS];
+        long[] holdTotal = new long[LatencyHistogram.BUCKETS];
+        long[] lastCounts = new long[3]; // games, rejected, failures at the previous report
+        long[] rampCounts = new long[3];
+
+        int started = 0;
+        long start = System.nanoTime();
+        long rampEnd = start + TimeUnit.SECONDS.toNanos(rampSeconds);
+        long end = rampEnd + TimeUnit.SECONDS.toNanos(holdSeconds);
+        long nextReport = start + TimeUnit.SECONDS.toNanos(1);
+
+        while (true) {
+            long now = System.nanoTime();
+            int target = targetBots(bots, now - start, rampEnd - start, rampSteps);
+            while (started < target) {
+                executor.execute(new Bot());
+                started++;
+            }
+            if (now >= nextReport || now >= end) {
+                Arrays.fill(interval, 0);
+                latency.drainTo(interval);
+                boolean ramping = nextReport <= rampEnd;
+                add(ramping ? rampTotal : holdTotal, interval);
+                long[] counts = {games.sum(), rejected.sum(), failures.sum()};
+                if (ramping) System.arraycopy(counts, 0, rampCounts, 0, 3);
+                System.out.println(String.format("%5.1fs %6d bots  ", (now - start) / 1e9, activeBots.get())
+                        + formatLine(interval, counts[0] - lastCounts[0], counts[1] - lastCounts[1],
+                                     counts[2] - lastCounts[2], 1));
+                lastCounts = counts;
+                nextReport += TimeUnit.SECONDS.toNanos(1);
+                if (now >= end) break;
+            }
+            Thread.sleep(rampSteps == 0 && now < rampEnd ? 5 : 50);
+        }
+
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.println("ramp  " + formatLine(rampTotal, rampCounts[0], rampCounts[1], rampCounts[2],
+                                                 Math.max(1, rampSeconds)));
+        System.out.println("hold  " + formatLine(holdTotal, lastCounts[0] - rampCounts[0],
+                                                 lastCounts[1] - rampCounts[1], lastCounts[2] - rampCounts[2],
+                                                 Math.max(1, holdSeconds)));
+    }
+
+    /**
+     * One simulated player: connects, then plays games back to back until the run stops.
+     * Reconnects after a lost connection.
+     */
+    private class Bot implements Runnable {
+        private final ComputerPlayer ai = new ComputerPlayer();
+        private final List<Card> cards = new ArrayList<>();
+        private boolean[] known; // per card: face revealed by the server
+
+        // Applies the server's changes to the bot's view of the board. Cards start out as
+        // blanks that match nothing and get their face when the server first reveals it.
+        private final WireCodec.CardSink board = (index, state, faceId) -> {
+            Card c = cards.get(index);
+            if (faceId >= 0 && !known[index]) {
+                known[index] = true;
+                c = new Card(Deck.VALUES[faceId % Deck.VALUES.length], Deck.SUITS[faceId / Deck.VALUES.length], null);
+                cards.set(index, c);
+            }
+            c.setFaceUp(state == WireCodec.FACE_UP);
+            c.setMatched(state == WireCodec.MATCHED);
+        };
+
+        Bot() {
+            ai.setDifficulty(difficulty);
+        }
+
+        @Override
+        public void run() {
+            activeBots.incrementAndGet();
+            try {
+                while (running) {
+                    try (RemoteGameClient client = new RemoteGameClient(host, port)) {
+                        while (running) {
+                            playGame(client);
+                        }
+                    } catch (IOException e) {
+                        if (!running) break;
+                        failures.increment();
+                        Thread.sleep(1000); // Give the server a moment before reconnecting
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Run stopped
+            } finally {
+                activeBots.decrementAndGet();
+            }
+        }
+
+        private void playGame(RemoteGameClient client) throws IOException, InterruptedException {
+            long t0 = System.nanoTime();
+            RemoteGameClient.RemoteGame game = client.createGame("bot", "bot", grid, false);
+            latency.record(System.nanoTime() - t0);
+
+            // Like a real player, the bot only learns the faces of the cards turned over
+            cards.clear();
+            for (int i = 0; i < game.getCardCount(); i++) {
+                cards.add(new Card("?", String.valueOf(i), null));
+            }
+            known = new boolean[cards.size()];
+            ai.restoreMemory(Collections.emptyList());
+            int session = game.getSessionId();
+
+            while (running) {
+                Card choice = ai.chooseCard(cards, null);
+                if (choice == null) return;
+                int first = cards.indexOf(choice);
+                if (reveal(client, session, first) != Protocol.REVEALED) return;
+
+                choice = ai.chooseCard(cards, cards.get(first));
+                if (choice == null) return;
+                byte status = reveal(client, session, cards.indexOf(choice));
+                if (status == Protocol.MATCHED) {
+                    ai.forgetMatchedCards();
+                } else if (status == Protocol.REVEALED) {
+                    t0 = System.nanoTime();
+                    status = client.switchTurn(session, board).getStatus();
+                    latency.record(System.nanoTime() - t0);
+                    if (status != Protocol.SWITCHED) {
+                        rejected.increment();
+                        return;
+                    }
+                } else {
+                    if (status == Protocol.GAME_OVER) games.increment();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Thinks, turns a card over on the server and remembers it.
+         * @return The move's status; REJECTED moves are counted and end the game.
+         */
+        private byte reveal(RemoteGameClient client, int session, int index) throws IOException, InterruptedException {
+            if (thinkMillis > 0) Thread.sleep(ThreadLocalRandom.current().nextInt(thinkMillis / 2, thinkMillis * 3 / 2 + 1));
+            long t0 = System.nanoTime();
+            byte status = client.select(session, index, board).getStatus();
+            latency.record(System.nanoTime() - t0);
+
+            if (status == Protocol.REJECTED) {
+                rejected.increment();
+            } else {
+                ai.memorizeCard(cards.get(index)); // Now carries the face the server revealed
+            }
+            return status;
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Bots that should be running after the given time into the ramp.
+     */
+    private static int targetBots(int bots, long elapsed, long ramp, int steps) {
+        if (elapsed >= ramp || ramp <= 0) return bots;
+        if (steps <= 0) return (int) (bots * elapsed / ramp);
+        long step = elapsed * steps / ramp; // completed steps; the first batch starts at once
+        return (int) (bots * (step + 1) / steps);
+    }
+
+    private static String formatLine(long[] histogram, long games, long rejected, long failures, int seconds) {
+        long requests = 0;
+        for (long c : histogram) requests += c;
+        return String.format("%8.0f req/s %6.1f games/s  p50 %7.2f ms  p99 %7.2f ms  p999 %7.2f ms  "
+                        + "rejected %d  failures %d (%.3f%%)",
+                (double) requests / seconds, (double) games / seconds,
+                LatencyHistogram.percentile(histogram, 0.50) / 1e6,
+                LatencyHistogram.percentile(histogram, 0.99) / 1e6,
+                LatencyHistogram.percentile(histogram, 0.999) / 1e6,
+                rejected, failures, requests == 0 ? 0.0 : 100.0 * (rejected + failures) / requests);
+    }
+
+    private static void add(long[] total, long[] counts) {
+        for (int i = 0; i < total.length; i++) {
+            total[i] += counts[i];
+        }
+    }
+
+    /**
+     * One virtual thread per bot on Java 21+ (looked up reflectively so the code still
+     * builds for Java 11), otherwise one platform thread per bot. Sets virtualThreads.
+     */
+    private ExecutorService newBotExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtualThreads = true;
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(null, r, "load-bot-" + count.incrementAndGet(), 256 * 1024);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private static boolean isListening(String host, int port) {
+        try {
+            SocketChannel.open(new InetSocketAddress(host, port)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
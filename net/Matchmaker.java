@@ -0,0 +1,329 @@
+package net;
+
+import controller.ConcurrentGameEngine;
+import util.TimingWheel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Pairs players waiting for an online game by grid size and skill.
+ *
+ * Waiting players sit in lock-free queues, one per (grid size, skill band), so
+ * enqueues for different boards or skill levels never touch the same queue and
+ * there is no global lock. A new ticket first looks for a partner within a narrow
+ * skill window, scanning its own band and then its neighbours; each waiting ticket
+ * is claimed with a single CAS, so two players can never take the same partner.
+ * Tickets that found nobody wait; a sweep every SWEEP_MILLIS retries them with a
+ * skill window that widens the longer they wait (and catches two players that
+ * enqueued at the same instant and missed each other). The sweep also drops
+ * cancelled tickets, so players who give up do not pile up in a quiet queue.
+ *
+ * Every pair gets a new ConcurrentGameEngine, with the player who waited longer starting,
+ * and is reported to the listener on the thread that made the match.
+ */
+public class Matchmaker {
+    public static final int MAX_SKILL = 3199;
+    public static final int BAND_WIDTH = 200;    // skill points per band
+    private static final int BASE_WINDOW = 100;  // skill difference accepted right away
+    private static final int WINDOW_GROWTH = 50; // extra skill difference per second waited
+    private static final int MAX_WINDOW = 1000;
+    private static final int SCAN_LIMIT = 32;    // tickets examined per band per attempt
+    private static final long SWEEP_MILLIS = 100;
+
+    private static final int BANDS = MAX_SKILL / BAND_WIDTH + 1;
+    private static final int GRIDS = 5; // 2x2 to 10x10, even sizes only
+
+    private final Consumer<Match> listener;
+    private final ConcurrentLinkedQueue<Ticket>[][] queues;
+    private final LongAdder matches = new LongAdder();
+
+    private final ExecutorService sweeper = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "matchmaker-sweep");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile TimingWheel.Timeout nextSweep;
+    private volatile boolean closed;
+
+    /**
+     * A player waiting for a game. Cancel it when the player gives up or disconnects.
+     */
+    public static final class Ticket {
+        private static final int WAITING = 0;
+        private static final int RESERVED = 1; // being matched by the sweep
+        private static final int MATCHED = 2;
+        private static final int CANCELLED = 3;
+
+        private final String name;
+        private final int gridSize;
+        private final int skill;
+        private final Object attachment;
+        private final long enqueuedNanos = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private Ticket(String name, int gridSize, int skill, Object attachment) {
+            this.name = name;
+            this.gridSize = gridSize;
+            this.skill = Math.max(0, Math.min(MAX_SKILL, skill));
+            this.attachment = attachment;
+        }
+
+        /**
+         * Takes the player out of the queue.
+         * @return false if the player has already been matched (or cancelled).
+         */
+        public boolean cancel() {
+            while (true) {
+                int s = state.get();
+                if (s == WAITING && state.compareAndSet(WAITING, CANCELLED)) return true;
+                if (s != RESERVED && s != WAITING) return false;
+                Thread.onSpinWait(); // The sweep decides within a few microseconds
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getGridSize() {
+            return gridSize;
+        }
+
+        public int getSkill() {
+            return skill;
+        }
+
+        /**
+         * The object given to enqueue, e.g. the player's connection.
+         */
+        public Object getAttachment() {
+            return attachment;
+        }
+    }
+
+    /**
+     * Two matched players and their new game; player 1 moves first.
+     */
+    public static final class Match {
+        private final Ticket player1;
+        private final Ticket player2;
+        private final ConcurrentGameEngine engine;
+
+        private Match(Ticket player1, Ticket player2, ConcurrentGameEngine engine) {
+            this.player1 = player1;
+            this.player2 = player2;
+            this.engine = engine;
+        }
+
+        public Ticket getPlayer1() {
+            return player1;
+        }
+
+        public Ticket getPlayer2() {
+            return player2;
+        }
+
+        public ConcurrentGameEngine getEngine() {
+            return engine;
+        }
+
+        public int getGridSize() {
+            return player1.gridSize;
+        }
+    }
+
+    /**
+     * @param listener Called once per match, on the thread that made it; must be quick.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // generic array creation
+    public Matchmaker(Consumer<Match> listener) {
+        this.listener = listener;
+        this.queues = new ConcurrentLinkedQueue[GRIDS][BANDS];
+        for (int g = 0; g < GRIDS; g++) {
+            for (int b = 0; b < BANDS; b++) {
+                queues[g][b] = new ConcurrentLinkedQueue<>();
+            }
+        }
+    }
+
+    /**
+     * Starts the periodic sweep that widens the skill window of waiting players.
+     */
+    public void start() {
+        scheduleSweep();
+    }
+
+    public void stop() {
+        closed = true;
+        TimingWheel.Timeout sweep = nextSweep;
+        if (sweep != null) sweep.cancel();
+        sweeper.shutdown();
+    }
+
+    /**
+     * Queues a player, or matches them right away if a close enough partner is waiting
+     * (the listener has then already been called when this returns).
+     * @param gridSize Even board size from 2 to 10.
+     * @param skill Rating from 0 to MAX_SKILL; values outside are clamped.
+     * @param attachment Any object to identify the player by in the Match.
+     * @throws IllegalArgumentException if the grid size is not supported.
+     */
+    public Ticket enqueue(String name, int gridSize, int skill, Object attachment) {
+        if (gridSize < 2 || gridSize > 10 || gridSize % 2 != 0) {
+            throw new IllegalArgumentException("Unsupported grid size " + gridSize);
+        }
+        Ticket t = new Ticket(name, gridSize, skill, attachment);
+        Ticket partner = findPartner(t, System.nanoTime(), BASE_WINDOW);
+        if (partner != null) {
+            t.state.set(Ticket.MATCHED);
+            pair(partner, t);
+        } else {
+            queues[gridSize / 2 - 1][t.skill / BAND_WIDTH].add(t);
+        }
+        return t;
+    }
+
+    /**
+     * Number of matches made so far.
+     */
+    public long getMatchCount() {
+        return matches.sum();
+    }
+
+    /**
+     * Number of players waiting right now (walks every queue).
+     */
+    public int getWaitingCount() {
+        int waiting = 0;
+        for (ConcurrentLinkedQueue<Ticket>[] grid : queues) {
+            for (ConcurrentLinkedQueue<Ticket> queue : grid) {
+                for (Ticket t : queue) {
+                    if (t.state.get() == Ticket.WAITING) waiting++;
+                }
+            }
+        }
+        return waiting;
+    }
+
+    /**
+     * Number of tickets held by the queues, including finished ones not yet removed.
+     */
+    int getQueuedCount() {
+        int queued = 0;
+        for (ConcurrentLinkedQueue<Ticket>[] grid : queues) {
+            for (ConcurrentLinkedQueue<Ticket> queue : grid) {
+                queued += queue.size();
+            }
+        }
+        return queued;
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Claims the longest-waiting acceptable partner, own band first, then the
+     * neighbouring bands within the window.
+     */
+    private Ticket findPartner(Ticket t, long now, int window) {
+        ConcurrentLinkedQueue<Ticket>[] bands = queues[t.gridSize / 2 - 1];
+        int own = t.skill / BAND_WIDTH;
+        int low = Math.max(0, (t.skill - window) / BAND_WIDTH);
+        int high = Math.min(BANDS - 1, (t.skill + window) / BAND_WIDTH);
+
+        for (int d = 0; own - d >= low || own + d <= high; d++) {
+            if (own - d >= low) {
+                Ticket partner = claim(bands[own - d], t, now, window);
+                if (partner != null) return partner;
+            }
+            if (d > 0 && own + d <= high) {
+                Ticket partner = claim(bands[own + d], t, now, window);
+                if (partner != null) return partner;
+            }
+        }
+        return null;
+    }
+
+    private Ticket claim(ConcurrentLinkedQueue<Ticket> queue, Ticket t, long now, int window) {
+        int scanned = 0;
+        for (Iterator<Ticket> it = queue.iterator(); it.hasNext() && scanned < SCAN_LIMIT; ) {
+            Ticket c = it.next();
+            int s = c.state.get();
+            if (s == Ticket.MATCHED || s == Ticket.CANCELLED) {
+                it.remove(); // Lazily drop finished tickets
+                continue;
+            }
+            scanned++;
+            if (c == t || s != Ticket.WAITING) continue;
+            // The player who has waited longer decides how far apart the skills may be
+            if (Math.abs(c.skill - t.skill) > Math.max(window, windowOf(c, now))) continue;
+            if (c.state.compareAndSet(Ticket.WAITING, Ticket.MATCHED)) {
+                it.remove();
+                return c;
+            }
+        }
+        return null;
+    }
+
+    private static int windowOf(Ticket t, long now) {
+        long waited = TimeUnit.NANOSECONDS.toMillis(now - t.enqueuedNanos);
+        return (int) Math.min(MAX_WINDOW, BASE_WINDOW + WINDOW_GROWTH * waited / 1000);
+    }
+
+    private void pair(Ticket first, Ticket second) {
+        ConcurrentGameEngine engine = ConcurrentGameEngine.deal(first.name, second.name,
+                (first.gridSize * first.gridSize) / 2);
+        matches.increment();
+        listener.accept(new Match(first, second, engine));
+    }
+
+    private void scheduleSweep() {
+        if (closed) return;
+        nextSweep = TimingWheel.shared().schedule(SWEEP_MILLIS, () -> {
+            if (!closed) sweeper.execute(this::sweep);
+        });
+    }
+
+    /**
+     * Retries every waiting ticket with its current (widened) window.
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        try {
+            for (ConcurrentLinkedQueue<Ticket>[] grid : queues) {
+                for (ConcurrentLinkedQueue<Ticket> queue : grid) {
+                    sweep(queue, now);
+                }
+            }
+        } finally {
+            scheduleSweep();
+        }
+    }
+
+    private void sweep(ConcurrentLinkedQueue<Ticket> queue, long now) {
+        for (Iterator<Ticket> it = queue.iterator(); it.hasNext(); ) {
+            Ticket t = it.next();
+            int s = t.state.get();
+            if (s == Ticket.MATCHED || s == Ticket.CANCELLED) {
+                it.remove(); // Players who gave up (or were claimed) no longer take up the queue
+                continue;
+            }
+            // Reserved while searching, so nobody claims it and cancel waits for the outcome
+            if (!t.state.compareAndSet(Ticket.WAITING, Ticket.RESERVED)) continue;
+            Ticket partner = findPartner(t, now, windowOf(t, now));
+            if (partner == null) {
+                t.state.set(Ticket.WAITING);
+                continue;
+            }
+            t.state.set(Ticket.MATCHED);
+            it.remove();
+            if (t.enqueuedNanos <= partner.enqueuedNanos) pair(t, partner);
+            else pair(partner, t);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package net;
+
+/**
+ * Message types and framing constants shared by the game server and its clients.
+ *
+ * Every message is one frame: length (varint, not counting itself), type (1 byte), payload.
+ * Numbers are varints and boards use the WireCodec encodings.
+ * Client to server:
+ * - NEW_GAME: codec version (1), grid size (1), flags (1, see WITH_LAYOUT), player 1 name, player 2 name
+ *   (each: length byte + UTF-8)
+ * - SELECT: session, card index
+ * - SWITCH: session
+ * - STATE: session
+ * - WATCH: session (become a spectator of the game)
+ * - JOIN: session, seat key (8) (take over the seats the key belongs to, e.g. after reconnecting)
+ * - FIND_MATCH: codec version (1), grid size (1), skill, player name (wait for an opponent, see Matchmaker)
+ * Server to client:
+ * - GAME_CREATED: session, seat key (8, both seats), then the layout if NEW_GAME asked for it,
+ *   otherwise only the card count
+ * - MOVE_RESULT: session, status (1), current player (1), player 1 score, player 2 score, then
+ *   a delta of the cards changed by the move, or the full board if the status is BOARD_STATE
+ *   (replies to SELECT, SWITCH, STATE and JOIN)
+ * - OPPONENT_MOVED: like MOVE_RESULT, but not a reply: sent to a player when the player in the
+ *   other seat, on another connection, made a move. Several moves may arrive as one delta.
+ * - SPECTATE: session, spectator update (see SpectatorHub)
+ * - WATCH_ENDED: session (the watched game is over)
+ * - MATCH_FOUND: session, seat (1, 0 = moves first), seat key (8), opponent name, card count
+ * - ERROR: session, error code (1)
+ *
+ * Faces of hidden cards are only ever sent in the layout of a game created WITH_LAYOUT.
+ * Every other client learns a face when the card is turned over (see WireCodec).
+ *
+ * Seats belong to connections: the one that created or was matched into a game holds its
+ * seats, and only the holder of the seat on turn may SELECT or SWITCH (other moves are
+ * REJECTED). STATE from a connection without a seat fails with NOT_A_PLAYER; anyone may WATCH.
+ * Another connection takes a seat over with JOIN and the seat key, which the server derives
+ * from the session ID, so keys still work after the game was hibernated or the server restarted.
+ */
+public final class Protocol {
+    public static final byte NEW_GAME = 1;
+    public static final byte SELECT = 2;
+    public static final byte SWITCH = 3;
+    public static final byte STATE = 4;
+    public static final byte WATCH = 5;
+    public static final byte FIND_MATCH = 6;
+    public static final byte JOIN = 7;
+
+    public static final byte GAME_CREATED = 10;
+    public static final byte MOVE_RESULT = 11;
+    public static final byte ERROR = 12;
+    public static final byte SPECTATE = 13;
+    public static final byte WATCH_ENDED = 14;
+    public static final byte MATCH_FOUND = 15;
+    public static final byte OPPONENT_MOVED = 16;
+
+    // NEW_GAME flags
+    // The client plays the game locally and mirrors its moves to the server (see
+    // RemoteGameClient.mirror), so it needs every face up front. Only for a client that
+    // holds both seats on one screen; games with a remote player never reveal the layout.
+    public static final byte WITH_LAYOUT = 1;
+
+    // MOVE_RESULT status
+    public static final byte REVEALED = 0;    // first card of a turn, or a mismatch (client must send SWITCH)
+    public static final byte MATCHED = 1;
+    public static final byte SWITCHED = 2;
+    public static final byte GAME_OVER = 3;
+    public static final byte REJECTED = 4;    // move not allowed in the current state
+    public static final byte BOARD_STATE = 5; // reply to STATE, carries the full board
+    public static final byte SPECTATED = 6;   // not a reply: a spectator update (client side only)
+
+    // ERROR codes
+    public static final byte UNKNOWN_SESSION = 1;
+    public static final byte BAD_REQUEST = 2;
+    public static final byte UNSUPPORTED_VERSION = 3;
+    public static final byte TOO_MANY_WATCHES = 4;
+    public static final byte ALREADY_WAITING = 5; // FIND_MATCH while this connection already waits
+    public static final byte NOT_A_PLAYER = 6;    // this connection holds no seat of the game (or a wrong key)
+
+    public static final int MAX_FRAME = 1024;
+    public static final int DEFAULT_PORT = 5555;
+
+    private Protocol() {}
+}
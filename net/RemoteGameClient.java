@@ -0,0 +1,519 @@
+package net;
+
+import controller.GameEngine;
+import controller.GameListener;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Blocking client for GameServer. Used by the UI to play a game hosted on a server
+ * and by simulated clients; one request is in flight at a time.
+ * Requests and replies go through two direct buffers owned by the client, so a
+ * move allocates nothing.
+ */
+public class RemoteGameClient implements Closeable {
+    private static final WireCodec.CardSink IGNORE = (index, state, faceId) -> {};
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(Protocol.MAX_FRAME + 2);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(Protocol.MAX_FRAME + 2);
+    private final MoveResult result = new MoveResult();
+    private int frameEnd;    // end of the frame last returned by receive
+    private int bufferedEnd; // end of the data read so far (frames may arrive back to back)
+
+    // Not a monitor: a virtual thread blocked on the socket inside synchronized pins its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Sends mirrored moves in order, off the Swing thread
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "remote-game-sender");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * A game created on the server: its session ID, board size, our seat and its key,
+     * plus the layout if it was asked for.
+     */
+    public static final class RemoteGame {
+        private final int sessionId;
+        private final long seatKey;
+        private final int cardCount;
+        private final int[] faceIds;
+        private final int seat;
+        private final String opponentName;
+
+        RemoteGame(int sessionId, long seatKey, int cardCount, int[] faceIds, int seat, String opponentName) {
+            this.sessionId = sessionId;
+            this.seatKey = seatKey;
+            this.cardCount = cardCount;
+            this.faceIds = faceIds;
+            this.seat = seat;
+            this.opponentName = opponentName;
+        }
+
+        public int getSessionId() {
+            return sessionId;
+        }
+
+        /**
+         * Proves we hold our seat(s); pass it to join to continue on another connection.
+         */
+        public long getSeatKey() {
+            return seatKey;
+        }
+
+        /**
+         * 0 if we are Player 1 (moving first), 1 for Player 2. A created game plays both seats.
+         */
+        public int getSeat() {
+            return seat;
+        }
+
+        public String getOpponentName() {
+            return opponentName;
+        }
+
+        public int getCardCount() {
+            return cardCount;
+        }
+
+        /**
+         * Face ID of every card on the board (see Deck.faceIdOf), or null unless the game
+         * was created with its layout. Otherwise faces arrive with the moves that reveal them.
+         */
+        public int[] getFaceIds() {
+            return faceIds;
+        }
+    }
+
+    /**
+     * The server's answer to a move. The client reuses one instance for every reply,
+     * so read it before sending the next request.
+     */
+    public static final class MoveResult {
+        private byte status;
+        private int currentSeat;
+        private int p1Score;
+        private int p2Score;
+
+        /** One of the Protocol MOVE_RESULT statuses. */
+        public byte getStatus() { return status; }
+        /** 0 if it is Player 1's turn, 1 for Player 2. */
+        public int getCurrentSeat() { return currentSeat; }
+        public int getP1Score() { return p1Score; }
+        public int getP2Score() { return p2Score; }
+    }
+
+    public RemoteGameClient(String host, int port) throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Starts a new game on the server; this connection plays both seats.
+     * @param withLayout true to receive every face up front, for a game played locally
+     *                   and mirrored to the server (see mirror). Otherwise the server
+     *                   reveals each face only when its card is turned over.
+     * @throws IOException if the server refuses it or the connection fails.
+     */
+    public RemoteGame createGame(String p1Name, String p2Name, int gridSize, boolean withLayout) throws IOException {
+        lock.lock();
+        try {
+            out.clear();
+            int frame = WireCodec.beginFrame(out, Protocol.NEW_GAME);
+            out.put(WireCodec.VERSION);
+            out.put((byte) gridSize);
+            out.put(withLayout ? Protocol.WITH_LAYOUT : 0);
+            putString(p1Name);
+            putString(p2Name);
+            WireCodec.endFrame(out, frame);
+            send();
+
+            ByteBuffer reply = receive();
+            byte type = reply.get();
+            int session = WireCodec.getVarint(reply);
+            if (type != Protocol.GAME_CREATED) throw new IOException("Server refused the game (error " + reply.get() + ")");
+            long key = reply.getLong();
+            if (!withLayout) return new RemoteGame(session, key, readCardCount(reply), null, 0, p2Name);
+            int[] faces = readLayout(reply);
+            return new RemoteGame(session, key, faces.length, faces, 0, p2Name);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the server pairs us with another player (see Matchmaker),
+     * blocking the calling thread. We hold one seat; the opponent's moves arrive
+     * through awaitTurn (or along with our next reply).
+     * No face is known up front: each arrives with the move that reveals its card.
+     * @param skill Our rating, 0 to Matchmaker.MAX_SKILL.
+     * @throws IOException if the server refuses the request or the connection fails.
+     */
+    public RemoteGame findMatch(String name, int gridSize, int skill) throws IOException {
+        lock.lock();
+        try {
+            out.clear();
+            int frame = WireCodec.beginFrame(out, Protocol.FIND_MATCH);
+            out.put(WireCodec.VERSION);
+            out.put((byte) gridSize);
+            WireCodec.putVarint(out, skill);
+            putString(name);
+            WireCodec.endFrame(out, frame);
+            send();
+
+            ByteBuffer reply = receive();
+            try {
+                byte type = reply.get();
+                int session = WireCodec.getVarint(reply);
+                if (type == Protocol.ERROR) throw new IOException("Server refused the request (error " + reply.get() + ")");
+                if (type != Protocol.MATCH_FOUND) throw new IOException("Unexpected reply type " + type);
+                int seat = reply.get();
+                long key = reply.getLong();
+                String opponent = readString(reply);
+                return new RemoteGame(session, key, readCardCount(reply), null, seat, opponent);
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed reply", e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reveals a card in a remote game.
+     */
+    public MoveResult select(int sessionId, int cardIndex) throws IOException {
+        return select(sessionId, cardIndex, IGNORE);
+    }
+
+    /**
+     * Reveals a card in a remote game.
+     * @param changes Receives every card the move changed.
+     */
+    public MoveResult select(int sessionId, int cardIndex, WireCodec.CardSink changes) throws IOException {
+        lock.lock();
+        try {
+            out.clear();
+            int frame = WireCodec.beginFrame(out, Protocol.SELECT);
+            WireCodec.putVarint(out, sessionId);
+            WireCodec.putVarint(out, cardIndex);
+            WireCodec.endFrame(out, frame);
+            send();
+            return readResult(sessionId, changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the turn after a mismatch in a remote game.
+     */
+    public MoveResult switchTurn(int sessionId) throws IOException {
+        return switchTurn(sessionId, IGNORE);
+    }
+
+    /**
+     * Ends the turn after a mismatch in a remote game.
+     * @param changes Receives every card the switch flipped back.
+     */
+    public MoveResult switchTurn(int sessionId, WireCodec.CardSink changes) throws IOException {
+        lock.lock();
+        try {
+            out.clear();
+            int frame = WireCodec.beginFrame(out, Protocol.SWITCH);
+            WireCodec.putVarint(out, sessionId);
+            WireCodec.endFrame(out, frame);
+            send();
+            return readResult(sessionId, changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fetches the full board of a remote game, e.g. to resynchronize.
+     * @param board Receives every card; hidden cards come without their face.
+     */
+    public MoveResult getBoard(int sessionId, WireCodec.CardSink board) throws IOException {
+        lock.lock();
+        try {
+            out.clear();
+            int frame = WireCodec.beginFrame(out, Protocol.STATE);
+            WireCodec.putVarint(out, sessionId);
+            WireCodec.endFrame(out, frame);
+            send();
+            return readResult(sessionId, board);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes over our seats of a game on this connection, e.g. after reconnecting,
+     * and fetches the full board. The connection that held them loses them.
+     * @param seatKey RemoteGame.getSeatKey of the game.
+     * @param board Receives every card; hidden cards come without their face.
+     */
+    public MoveResult join(int sessionId, long seatKey, WireCodec.CardSink board) throws IOException {
+        lock.lock();
+        try {
+            out.clear();
+            int frame = WireCodec.beginFrame(out, Protocol.JOIN);
+            WireCodec.putVarint(out, sessionId);
+            out.putLong(seatKey);
+            WireCodec.endFrame(out, frame);
+            send();
+            return readResult(sessionId, board);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits while the opponent is on turn in a matched game, blocking the calling thread.
+     * Call it when the last result says the other seat is on turn.
+     * @param seat Our seat (RemoteGame.getSeat).
+     * @param changes Receives every card the opponent's moves changed.
+     * @return The result of the opponent's last move: GAME_OVER if they finished the game,
+     *         otherwise our seat is on turn.
+     */
+    public MoveResult awaitTurn(int sessionId, int seat, WireCodec.CardSink changes) throws IOException {
+        lock.lock();
+        try {
+            while (true) {
+                ByteBuffer update = receive();
+                try {
+                    byte type = update.get();
+                    int session = WireCodec.getVarint(update);
+                    if (type == Protocol.ERROR) throw new IOException("Server error " + update.get());
+                    if (type != Protocol.OPPONENT_MOVED) throw new IOException("Unexpected message type " + type);
+                    if (session != sessionId) continue; // Another game's move; its view resyncs with getBoard
+                    readMoveResult(update, changes);
+                } catch (RuntimeException e) {
+                    throw new IOException("Malformed update", e);
+                }
+                if (result.status == Protocol.GAME_OVER || result.currentSeat == seat) return result;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Watches a game as a spectator until it ends, blocking the calling thread.
+     * @param changes Receives every changed card; the first update holds the whole visible board.
+     * @param onUpdate Called after each update's cards with the current player and scores
+     *                 (status SPECTATED).
+     */
+    public void watch(int sessionId, WireCodec.CardSink changes, Consumer<MoveResult> onUpdate)
+            throws IOException {
+        lock.lock();
+        try {
+            out.clear();
+            int frame = WireCodec.beginFrame(out, Protocol.WATCH);
+            WireCodec.putVarint(out, sessionId);
+            WireCodec.endFrame(out, frame);
+            send();
+
+            while (true) {
+                ByteBuffer update = receive();
+                try {
+                    byte type = update.get();
+                    if (WireCodec.getVarint(update) != sessionId) throw new IOException("Update for another session");
+                    if (type == Protocol.WATCH_ENDED) return;
+                    if (type == Protocol.ERROR) throw new IOException("Server error " + update.get());
+                    if (type != Protocol.SPECTATE) throw new IOException("Unexpected message type " + type);
+
+                    result.status = Protocol.SPECTATED;
+                    result.currentSeat = update.get();
+                    result.p1Score = WireCodec.getVarint(update);
+                    result.p2Score = WireCodec.getVarint(update);
+                    WireCodec.readDelta(update, changes);
+                } catch (RuntimeException e) {
+                    throw new IOException("Malformed update", e);
+                }
+                onUpdate.accept(result);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a listener that replays every move of a local game on the server,
+     * so the server validates the game while the UI plays it without waiting.
+     * The local game is built from the layout of a game created withLayout.
+     * @param onError Called once, on a background thread, if the server rejects a move,
+     *                disagrees about the scores or the connection fails.
+     */
+    public GameListener mirror(int sessionId, Consumer<String> onError) {
+        return new GameListener() {
+            private volatile boolean failed;
+
+            @Override
+            public void onCardSelected(GameEngine engine, int cardIndex) {
+                // Read the scores now: the server's reply must agree with them
+                int p1 = engine.getP1().getScore();
+                int p2 = engine.getP2().getScore();
+                sender.execute(() -> check(() -> select(sessionId, cardIndex), p1, p2));
+            }
+
+            @Override
+            public void onTurnSwitched(GameEngine engine) {
+                int p1 = engine.getP1().getScore();
+                int p2 = engine.getP2().getScore();
+                sender.execute(() -> check(() -> switchTurn(sessionId), p1, p2));
+            }
+
+            private void check(Request request, int p1Score, int p2Score) {
+                if (failed) return;
+                String problem;
+                try {
+                    MoveResult result = request.send();
+                    if (result.getStatus() == Protocol.REJECTED) {
+                        problem = "The server rejected a move.";
+                    } else if (result.getP1Score() != p1Score || result.getP2Score() != p2Score) {
+                        problem = "The server's scores differ from this game.";
+                    } else {
+                        return;
+                    }
+                } catch (IOException e) {
+                    problem = "Lost connection to the server: " + e.getMessage();
+                }
+                failed = true;
+                onError.accept(problem);
+            }
+        };
+    }
+
+    /**
+     * Closes the connection once all mirrored moves have been sent.
+     */
+    @Override
+    public void close() {
+        if (sender.isShutdown()) return;
+        sender.execute(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        });
+        sender.shutdown();
+    }
+
+    // --- Private Helper Methods ---
+
+    private interface Request {
+        MoveResult send() throws IOException;
+    }
+
+    private void putString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, 255);
+        out.put((byte) len);
+        out.put(bytes, 0, len);
+    }
+
+    private static String readString(ByteBuffer src) {
+        byte[] bytes = new byte[src.get() & 0xFF];
+        src.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readCardCount(ByteBuffer src) throws IOException {
+        int count = WireCodec.getVarint(src);
+        if (count <= 0 || count > WireCodec.MAX_CARDS) throw new IOException("Bad card count " + count);
+        return count;
+    }
+
+    private static int[] readLayout(ByteBuffer src) {
+        int[] faces = new int[WireCodec.MAX_CARDS];
+        int count = WireCodec.readLayout(src, (index, state, faceId) -> faces[index] = faceId);
+        return Arrays.copyOf(faces, count);
+    }
+
+    private void send() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    /**
+     * Reads the next frame and returns its body (type onwards). Bytes of any
+     * following frame stay buffered for the next call.
+     */
+    private ByteBuffer receive() throws IOException {
+        // Drop the previous frame, keep what was read after it
+        in.limit(bufferedEnd).position(frameEnd);
+        in.compact();
+
+        while (true) {
+            in.flip();
+            int length = WireCodec.peekVarint(in);
+            if (length == 0 || length > Protocol.MAX_FRAME) throw new IOException("Bad frame length " + length);
+            if (length > 0 && in.remaining() >= WireCodec.varintSize(length) + length) {
+                bufferedEnd = in.limit();
+                frameEnd = WireCodec.varintSize(length) + length;
+                in.position(frameEnd - length).limit(frameEnd);
+                return in;
+            }
+            in.position(in.limit()).limit(in.capacity());
+            if (channel.read(in) < 0) throw new EOFException("Server closed the connection");
+        }
+    }
+
+    /**
+     * Reads the reply to a request. Opponent moves that arrive before it are applied
+     * to the same sink, in order, so the caller's board stays in step with the server.
+     */
+    private MoveResult readResult(int sessionId, WireCodec.CardSink changes) throws IOException {
+        while (true) {
+            ByteBuffer reply = receive();
+            try {
+                byte type = reply.get();
+                int session = WireCodec.getVarint(reply);
+                if (type == Protocol.OPPONENT_MOVED) {
+                    if (session == sessionId) readMoveResult(reply, changes);
+                    continue;
+                }
+                if (session != sessionId) throw new IOException("Reply for another session");
+                if (type == Protocol.ERROR) throw new IOException("Server error " + reply.get());
+                if (type != Protocol.MOVE_RESULT) throw new IOException("Unexpected reply type " + type);
+                return readMoveResult(reply, changes);
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed reply", e);
+            }
+        }
+    }
+
+    /**
+     * Reads a MOVE_RESULT or OPPONENT_MOVED body after the session ID.
+     */
+    private MoveResult readMoveResult(ByteBuffer src, WireCodec.CardSink changes) {
+        result.status = src.get();
+        result.currentSeat = src.get();
+        result.p1Score = WireCodec.getVarint(src);
+        result.p2Score = WireCodec.getVarint(src);
+        if (result.status == Protocol.BOARD_STATE) {
+            WireCodec.readBoard(src, changes);
+        } else {
+            WireCodec.readDelta(src, changes);
+        }
+        return result;
+    }
+}
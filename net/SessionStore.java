@@ -0,0 +1,261 @@
+package net;
+
+import controller.ConcurrentGameEngine;
+import controller.GameSnapshot;
+import util.TimingWheel;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The server's games: active ones in memory, idle ones hibernated to disk.
+ *
+ * A sweep, paced by the shared TimingWheel and run on its own thread, writes every
+ * game that has had no input for the idle time to "ID.ses" (a GameSnapshot, a few
+ * hundred bytes) and drops it from memory. The next request for that ID loads it
+ * back transparently, so the heap holds only games that are actually being played.
+ * Hibernated games nobody returns to are deleted after the expiry time. Files left
+ * by a previous run stay resumable; new IDs continue after the highest one on disk.
+ *
+ * Seat keys (see Protocol.JOIN) are an HMAC of the session ID and seats under a
+ * secret kept in "seat.key" next to the games, so nothing per game needs storing
+ * and keys stay valid across hibernation and restarts.
+ */
+class SessionStore {
+    private static final String SUFFIX = ".ses";
+    private static final String KEY_FILE = "seat.key";
+    private static final String KEY_ALGORITHM = "HmacSHA256";
+    private static final long MIN_SWEEP_MILLIS = 1000;
+    private static final long MAX_EXPIRE_SCAN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path dir;
+    private final long idleMillis;
+    private final long expireMillis;
+    private final SecretKeySpec secret;
+    private final Map<Integer, GameSession> live = new ConcurrentHashMap<>();
+    private final AtomicInteger hibernated = new AtomicInteger();
+    private int highestId;
+
+    private final ExecutorService sweeper = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "session-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile TimingWheel.Timeout nextSweep;
+    private volatile boolean closed;
+    private long nextExpireScan; // sweeper thread only
+
+    /**
+     * @param dir Directory for hibernated games (created if missing).
+     * @param idleMillis Time without input after which a game is hibernated.
+     * @param expireMillis Time after which a hibernated game is deleted.
+     */
+    SessionStore(Path dir, long idleMillis, long expireMillis) throws IOException {
+        this.dir = dir;
+        this.idleMillis = idleMillis;
+        this.expireMillis = expireMillis;
+        Files.createDirectories(dir);
+        this.secret = new SecretKeySpec(loadSecret(dir.resolve(KEY_FILE)), KEY_ALGORITHM);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                int id = idOf(file);
+                if (id < 0) continue;
+                hibernated.incrementAndGet();
+                highestId = Math.max(highestId, id);
+            }
+        }
+    }
+
+    /**
+     * Starts the periodic sweep.
+     */
+    void start() {
+        scheduleSweep();
+    }
+
+    /**
+     * Stops sweeping. Games still in memory are not written out.
+     */
+    void close() {
+        closed = true;
+        TimingWheel.Timeout sweep = nextSweep;
+        if (sweep != null) sweep.cancel();
+        sweeper.shutdown();
+    }
+
+    void add(GameSession s) {
+        live.put(s.getId(), s);
+    }
+
+    /**
+     * Returns a game for a request, loading it from disk if it was hibernated,
+     * and marks it active.
+     * @return null if there is no such game.
+     */
+    GameSession get(int id) {
+        while (true) {
+            GameSession s = live.get(id);
+            if (s == null) {
+                s = live.computeIfAbsent(id, this::restore);
+                if (s == null) return null;
+            }
+            if (s.touch()) return s;
+            live.remove(id, s); // Hibernated under our feet: load the file it was just written to
+        }
+    }
+
+    /**
+     * Forgets a game that is over.
+     */
+    void remove(int id) {
+        live.remove(id);
+    }
+
+    /**
+     * The highest session ID found on disk at startup.
+     */
+    int getHighestId() {
+        return highestId;
+    }
+
+    /**
+     * The key that proves a player holds the given seats of a game.
+     * @param seats Bit 0 for Player 1's seat, bit 1 for Player 2's (3 = both).
+     */
+    long seatKey(int id, int seats) {
+        try {
+            Mac mac = Mac.getInstance(KEY_ALGORITHM);
+            mac.init(secret);
+            byte[] digest = mac.doFinal(ByteBuffer.allocate(8).putInt(id).putInt(seats).array());
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e); // Every JVM supports HmacSHA256
+        }
+    }
+
+    /**
+     * The seats a key belongs to (see seatKey), or 0 if it is not a key of this game.
+     */
+    int seatsOf(int id, long key) {
+        for (int seats = 1; seats <= 3; seats++) {
+            if (seatKey(id, seats) == key) return seats;
+        }
+        return 0;
+    }
+
+    int getLiveCount() {
+        return live.size();
+    }
+
+    int getHibernatedCount() {
+        return hibernated.get();
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Reads the key secret, creating it on first start.
+     */
+    private static byte[] loadSecret(Path file) throws IOException {
+        if (Files.exists(file)) return Files.readAllBytes(file);
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, secret);
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        return secret;
+    }
+
+    private GameSession restore(int id) {
+        Path file = fileOf(id);
+        if (!Files.exists(file)) return null;
+        try {
+            GameSnapshot snapshot = GameSnapshot.load(file, null);
+            Files.delete(file);
+            hibernated.decrementAndGet();
+            return new GameSession(id, ConcurrentGameEngine.of(snapshot.getEngine()), snapshot.getGridSize());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void scheduleSweep() {
+        if (closed) return;
+        long interval = Math.max(MIN_SWEEP_MILLIS, idleMillis / 4);
+        nextSweep = TimingWheel.shared().schedule(interval, () -> {
+            if (!closed) sweeper.execute(this::sweep);
+        });
+    }
+
+    private void sweep() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        for (GameSession s : live.values()) {
+            try {
+                if (s.hibernate(fileOf(s.getId()), idleNanos)) {
+                    live.remove(s.getId(), s);
+                    hibernated.incrementAndGet();
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // Keep it in memory and try again next sweep
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now >= nextExpireScan) {
+            nextExpireScan = now + Math.min(expireMillis / 4, MAX_EXPIRE_SCAN_MILLIS);
+            deleteExpired(now - expireMillis);
+        }
+        scheduleSweep();
+    }
+
+    private void deleteExpired(long cutoff) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                int id = idOf(file);
+                if (id < 0 || Files.getLastModifiedTime(file).toMillis() >= cutoff) continue;
+                // Never while a request is loading it: restores run inside the map's lock for that ID
+                live.compute(id, (key, s) -> {
+                    if (s == null && Files.exists(file)) {
+                        try {
+                            Files.delete(file);
+                            hibernated.decrementAndGet();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                    return s;
+                });
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path fileOf(int id) {
+        return dir.resolve(id + SUFFIX);
+    }
+
+    private static int idOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package net;
+
+import controller.ConcurrentGameEngine;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcasts the live board of one game to any number of spectators.
+ *
+ * The hub never runs on the game's threads: once per frame a shared frame thread
+ * reads the engine's current State (one volatile read) and, if its version moved,
+ * sends every spectator one merged delta from what that spectator has seen to the
+ * current board. So a move costs the game the same with or without spectators. Spectators say how many updates
+ * they can take through Flow.Subscription.request; one that falls behind is skipped
+ * and later receives a single delta covering everything it missed, so no backlog
+ * builds up.
+ *
+ * Item layout: current player (1 byte), player 1 score, player 2 score (varints),
+ * board delta (see WireCodec). A spectator's first item is a delta from an empty
+ * board, i.e. the whole visible board. Items are buffers owned by the subscription:
+ * they are only valid until onNext returns and must not be modified.
+ */
+public class SpectatorHub implements Flow.Publisher<ByteBuffer>, AutoCloseable {
+    public static final int DEFAULT_FRAME_RATE = 30;
+    private static final int ITEM_SIZE = 256; // enough for a 10x10 board in full
+
+    // One frame thread serves every hub; all subscriber signals are sent from it
+    private static final ScheduledExecutorService FRAMES = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "spectator-frames");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ConcurrentGameEngine engine;
+    private final byte[] faces;
+
+    // Board of the State a frame is sent from, only used by the frame thread
+    private final long[] frameState;
+
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private final ScheduledFuture<?> frameTask;
+    private volatile boolean closed;
+
+    public SpectatorHub(ConcurrentGameEngine engine) {
+        this(engine, DEFAULT_FRAME_RATE);
+    }
+
+    /**
+     * Starts broadcasting a game.
+     * @param framesPerSecond How often spectators are updated at most.
+     */
+    public SpectatorHub(ConcurrentGameEngine engine, int framesPerSecond) {
+        this.engine = engine;
+        this.faces = new byte[engine.getCardCount()];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = (byte) engine.getFaceId(i);
+        }
+        this.frameState = new long[WireCodec.stateWords(faces.length)];
+
+        long period = TimeUnit.SECONDS.toNanos(1) / Math.max(1, framesPerSecond);
+        frameTask = FRAMES.scheduleAtFixedRate(this::publishFrame, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber);
+        Spectator spectator = new Spectator(subscriber);
+        FRAMES.execute(() -> {
+            subscriber.onSubscribe(spectator);
+            if (closed) {
+                spectator.cancelled = true;
+                subscriber.onComplete();
+            } else if (!spectator.cancelled) {
+                spectators.add(spectator);
+            }
+        });
+    }
+
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    /**
+     * Stops broadcasting: sends a last frame to spectators with outstanding demand,
+     * then completes every subscription.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        frameTask.cancel(false);
+        FRAMES.execute(() -> {
+            publishFrame();
+            for (Spectator s : spectators) {
+                s.cancelled = true;
+                s.subscriber.onComplete();
+            }
+            spectators.clear();
+        });
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Runs on the frame thread: sends every ready spectator what changed for it.
+     */
+    private void publishFrame() {
+        if (spectators.isEmpty()) return;
+        ConcurrentGameEngine.State state = engine.getState();
+        state.copyBoard(frameState);
+        for (Spectator s : spectators) {
+            s.deliver(state);
+        }
+    }
+
+    /**
+     * One spectator's subscription: its view of the board and its outstanding demand.
+     */
+    private class Spectator implements Flow.Subscription {
+        final Flow.Subscriber<? super ByteBuffer> subscriber;
+        final long[] shown = new long[frameState.length];
+        final ByteBuffer item = ByteBuffer.allocateDirect(ITEM_SIZE);
+        final AtomicLong demand = new AtomicLong();
+        long seenVersion = -1; // frame thread only
+        volatile boolean cancelled;
+
+        Spectator(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                FRAMES.execute(() -> subscriber.onError(new IllegalArgumentException("Non-positive request: " + n)));
+                return;
+            }
+            demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            spectators.remove(this);
+        }
+
+        void deliver(ConcurrentGameEngine.State state) {
+            // Nothing new, or the spectator is still busy: it gets a merged delta later
+            if (cancelled || state.getVersion() == seenVersion || demand.get() == 0) return;
+
+            item.clear();
+            item.put((byte) state.getCurrentSeat());
+            WireCodec.putVarint(item, state.getScore(0));
+            WireCodec.putVarint(item, state.getScore(1));
+            WireCodec.putDelta(frameState, faces, shown, item);
+            item.flip();
+
+            seenVersion = state.getVersion();
+            demand.decrementAndGet();
+            try {
+                subscriber.onNext(item);
+            } catch (RuntimeException e) {
+                cancel();
+                subscriber.onError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package net;
+
+import model.Card;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Compact binary encoding of game messages and board state.
+ *
+ * Numbers are unsigned varints (7 bits per byte, low bits first), so card indices
+ * and session IDs usually take one or two bytes. Cards travel as face IDs (see
+ * Deck.faceIdOf), packed six bits per card. Board changes travel as deltas: only
+ * the cards whose state changed since the last message are listed.
+ *
+ * Every method works directly on the caller's ByteBuffer and allocates nothing,
+ * so messages can be encoded into and decoded from pooled direct buffers.
+ *
+ * Card states: HIDDEN, FACE_UP, MATCHED. Encodings:
+ * - Layout: card count, then every face ID (6 bits each). Only sent to a client that
+ *   plays both seats locally and asked for it (Protocol.WITH_LAYOUT).
+ * - Board: card count, every card state (2 bits each), then the face ID of every
+ *   visible card (6 bits each).
+ * - Delta: number of changed cards, then per card one varint (gap to the previous
+ *   changed index, shifted left by 2, plus a change code) and, for codes that
+ *   make a card visible, its face ID byte.
+ * Boards and deltas never carry the face of a hidden card, so players and spectators
+ * of a server game only learn a face once the card is turned over.
+ */
+public final class WireCodec {
+    public static final byte VERSION = 3; // 2: NEW_GAME flags, layout only on request; 3: seat keys
+
+    public static final int HIDDEN = 0;
+    public static final int FACE_UP = 1;
+    public static final int MATCHED = 2;
+
+    // Delta change codes: a card flipped down, flipped up (face follows),
+    // matched while already visible, or matched while the receiver saw it hidden (face follows)
+    private static final int CODE_HIDDEN = 0;
+    private static final int CODE_FACE_UP = 1;
+    private static final int CODE_MATCHED = 2;
+    private static final int CODE_MATCHED_FACE = 3;
+
+    /** Largest board the codec supports (10x10). */
+    public static final int MAX_CARDS = 128;
+
+    /**
+     * Receives decoded cards from readLayout, readBoard and readDelta.
+     */
+    public interface CardSink {
+        /**
+         * @param index Position of the card on the board.
+         * @param state HIDDEN, FACE_UP or MATCHED.
+         * @param faceId The card's face ID, or -1 if the message does not carry it.
+         */
+        void card(int index, int state, int faceId);
+    }
+
+    private WireCodec() {}
+
+    // --- Varints ---
+
+    public static void putVarint(ByteBuffer dst, int value) {
+        while ((value & ~0x7F) != 0) {
+            dst.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        dst.put((byte) value);
+    }
+
+    /**
+     * @throws BufferUnderflowException if the buffer ends inside the varint.
+     * @throws IllegalArgumentException if the varint is longer than five bytes.
+     */
+    public static int getVarint(ByteBuffer src) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = src.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Reads a varint at the buffer's position without consuming it.
+     * @return The value, or -1 if the buffer does not hold the whole varint yet.
+     */
+    public static int peekVarint(ByteBuffer src) {
+        int value = 0;
+        int pos = src.position();
+        for (int shift = 0; shift < 35 && pos < src.limit(); shift += 7) {
+            byte b = src.get(pos++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        if (pos - src.position() >= 5) throw new IllegalArgumentException("Malformed varint");
+        return -1;
+    }
+
+    public static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    // --- Frames ---
+
+    /**
+     * Starts a frame: reserves one byte for its length and writes the type.
+     * @return The frame start, to pass to endFrame.
+     */
+    public static int beginFrame(ByteBuffer dst, byte type) {
+        int start = dst.position();
+        dst.put((byte) 0);
+        dst.put(type);
+        return start;
+    }
+
+    /**
+     * Fills in the length of a frame started with beginFrame. Frames of 128 bytes or
+     * more need a second length byte, so their body is moved up by one (rare: only
+     * requests with long player names get that big).
+     */
+    public static void endFrame(ByteBuffer dst, int start) {
+        int length = dst.position() - start - 1;
+        if (length < 0x80) {
+            dst.put(start, (byte) length);
+            return;
+        }
+        int extra = varintSize(length) - 1;
+        for (int i = dst.position() - 1; i > start; i--) {
+            dst.put(i + extra, dst.get(i));
+        }
+        dst.position(start);
+        putVarint(dst, length);
+        dst.position(start + 1 + extra + length);
+    }
+
+    // --- Layout and board ---
+
+    /**
+     * Writes every face ID of a board, six bits each.
+     */
+    public static void putLayout(byte[] faces, ByteBuffer dst) {
+        putVarint(dst, faces.length);
+        int acc = 0, bits = 0;
+        for (byte face : faces) {
+            acc = (acc << 6) | face;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                dst.put((byte) (acc >>> bits));
+            }
+        }
+        if (bits > 0) dst.put((byte) (acc << (8 - bits)));
+    }
+
+    /**
+     * Reads a layout written by putLayout; every card is reported as HIDDEN with its face.
+     * @return The number of cards.
+     */
+    public static int readLayout(ByteBuffer src, CardSink sink) {
+        int count = readCount(src);
+        int acc = 0, bits = 0;
+        for (int i = 0; i < count; i++) {
+            if (bits < 6) {
+                acc = (acc << 8) | (src.get() & 0xFF);
+                bits += 8;
+            }
+            bits -= 6;
+            sink.card(i, HIDDEN, (acc >>> bits) & 0x3F);
+        }
+        return count;
+    }
+
+    /**
+     * Writes the state of every card plus the faces of the visible ones.
+     * @param state Board state captured with captureState.
+     * @param faces Face ID of every card.
+     */
+    public static void putBoard(long[] state, byte[] faces, ByteBuffer dst) {
+        int n = faces.length;
+        putVarint(dst, n);
+
+        // 2-bit states, four cards per byte
+        int acc = 0;
+        for (int i = 0; i < n; i++) {
+            acc |= stateAt(state, i) << ((i & 3) * 2);
+            if ((i & 3) == 3 || i == n - 1) {
+                dst.put((byte) acc);
+                acc = 0;
+            }
+        }
+
+        // Faces of visible cards, six bits each
+        int bits = 0;
+        for (int i = 0; i < n; i++) {
+            if (stateAt(state, i) == HIDDEN) continue;
+            acc = (acc << 6) | faces[i];
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                dst.put((byte) (acc >>> bits));
+            }
+        }
+        if (bits > 0) dst.put((byte) (acc << (8 - bits)));
+    }
+
+    /**
+     * Reads a board written by putBoard; hidden cards are reported with face -1.
+     * @return The number of cards.
+     */
+    public static int readBoard(ByteBuffer src, CardSink sink) {
+        int count = readCount(src);
+        int statesStart = src.position();
+        src.position(statesStart + (count + 3) / 4);
+
+        int acc = 0, bits = 0;
+        for (int i = 0; i < count; i++) {
+            int state = (src.get(statesStart + i / 4) >>> ((i & 3) * 2)) & 3;
+            if (state == HIDDEN) {
+                sink.card(i, HIDDEN, -1);
+                continue;
+            }
+            if (bits < 6) {
+                acc = (acc << 8) | (src.get() & 0xFF);
+                bits += 8;
+            }
+            bits -= 6;
+            sink.card(i, state, (acc >>> bits) & 0x3F);
+        }
+        return count;
+    }
+
+    // --- Board state and deltas ---
+
+    /**
+     * Number of longs needed to hold the state of a board (see captureState).
+     */
+    public static int stateWords(int cardCount) {
+        return 2 * ((cardCount + 63) / 64);
+    }
+
+    /**
+     * Captures the state of every card as two bitsets: face-up words, then matched words
+     * (a matched card only has its matched bit set).
+     * @param state Array sized with stateWords.
+     */
+    public static void captureState(List<Card> cards, long[] state) {
+        int words = state.length / 2;
+        for (int w = 0; w < words; w++) {
+            long up = 0, matched = 0;
+            int end = Math.min(cards.size(), (w + 1) * 64);
+            for (int i = w * 64; i < end; i++) {
+                Card c = cards.get(i);
+                if (c.isMatched()) matched |= 1L << (i & 63);
+                else if (c.isFaceUp()) up |= 1L << (i & 63);
+            }
+            state[w] = up;
+            state[words + w] = matched;
+        }
+    }
+
+    /**
+     * Writes the changes between a board state and what the receiver has seen so far,
+     * then records that state as seen. Any number of moves collapse into one delta:
+     * a receiver that skipped some messages just gets the net change.
+     * @param state Current board state captured with captureState.
+     * @param faces Face ID of every card.
+     * @param shown The receiver's view in the same layout; all zero for a receiver that saw nothing yet.
+     */
+    public static void putDelta(long[] state, byte[] faces, long[] shown, ByteBuffer dst) {
+        int words = state.length / 2;
+        int changed = 0;
+        for (int w = 0; w < words; w++) {
+            changed += Long.bitCount((state[w] ^ shown[w]) | (state[words + w] ^ shown[words + w]));
+        }
+        putVarint(dst, changed);
+
+        int previous = -1;
+        for (int w = 0; w < words; w++) {
+            long diff = (state[w] ^ shown[w]) | (state[words + w] ^ shown[words + w]);
+            while (diff != 0) {
+                int i = w * 64 + Long.numberOfTrailingZeros(diff);
+                diff &= diff - 1;
+
+                int now = stateAt(state, i);
+                int code;
+                if (now == HIDDEN) code = CODE_HIDDEN;
+                else if (now == FACE_UP) code = CODE_FACE_UP;
+                else code = stateAt(shown, i) == HIDDEN ? CODE_MATCHED_FACE : CODE_MATCHED;
+
+                putVarint(dst, ((i - previous - 1) << 2) | code);
+                if (code == CODE_FACE_UP || code == CODE_MATCHED_FACE) dst.put(faces[i]);
+                previous = i;
+            }
+            shown[w] = state[w];
+            shown[words + w] = state[words + w];
+        }
+    }
+
+    /**
+     * Reads a delta written by putDelta. Cards that became visible carry their face.
+     * @return The number of changed cards.
+     */
+    public static int readDelta(ByteBuffer src, CardSink sink) {
+        int count = readCount(src);
+        int index = -1;
+        for (int k = 0; k < count; k++) {
+            int entry = getVarint(src);
+            index += 1 + (entry >>> 2);
+            if (index >= MAX_CARDS) throw new IllegalArgumentException("Card index out of range: " + index);
+
+            int code = entry & 3;
+            int face = code == CODE_FACE_UP || code == CODE_MATCHED_FACE ? src.get() & 0xFF : -1;
+            int state = code == CODE_HIDDEN ? HIDDEN : code == CODE_FACE_UP ? FACE_UP : MATCHED;
+            sink.card(index, state, face);
+        }
+        return count;
+    }
+
+    // --- Private Helper Methods ---
+
+    private static int stateAt(long[] state, int i) {
+        long bit = 1L << (i & 63);
+        if ((state[state.length / 2 + (i >>> 6)] & bit) != 0) return MATCHED;
+        return (state[i >>> 6] & bit) != 0 ? FACE_UP : HIDDEN;
+    }
+
+    private static int readCount(ByteBuffer src) {
+        int count = getVarint(src);
+        if (count > MAX_CARDS) throw new IllegalArgumentException("Too many cards: " + count);
+        return count;
+    }
+}
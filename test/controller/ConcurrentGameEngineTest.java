@@ -0,0 +1,248 @@
+package controller;
+
+import model.Card;
+import model.Deck;
+import model.Player;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many-thread stress test of ConcurrentGameEngine against the single-threaded GameEngine.
+ *
+ * Run: java -cp bin:bin-test controller.ConcurrentGameEngineTest [threads] [games]
+ * (defaults: 16 threads, 200 games). Exits with status 1 if a check fails.
+ *
+ * - free for all: every thread makes random moves on the same 10x10 game; each applied
+ *   move has its own version, and replaying them in version order on a GameEngine ends
+ *   with the same scores, moves and player on turn
+ * - same card: eight threads turn over the same card at once; exactly one succeeds
+ * - seats: threads move for one seat each; a move for the seat not on turn never applies
+ * - conversion: of() and toEngine() keep the board, scores and pending selections
+ */
+public class ConcurrentGameEngineTest {
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        freeForAll(threads, games);
+        sameCard(2000);
+        seats(threads, games / 4);
+        conversion(new Random(3), 500);
+
+        System.out.println(failures == 0 ? "ALL PASSED" : failures + " FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // --- Scenarios ---
+
+    private static void freeForAll(int threads, int games) throws Exception {
+        long applied = 0, rejected = 0, nanos = 0;
+        int bad = 0;
+        for (int g = 0; g < games; g++) {
+            GameEngine reference = newGame(50);
+            ConcurrentGameEngine engine = ConcurrentGameEngine.of(reference);
+            ConcurrentHashMap<Long, Integer> log = new ConcurrentHashMap<>(); // version -> card, -1 = switch
+            AtomicLong rejections = new AtomicLong();
+            AtomicInteger duplicates = new AtomicInteger();
+
+            long start = System.nanoTime();
+            run(threads, t -> {
+                Random random = ThreadLocalRandom.current();
+                int n = engine.getCardCount();
+                while (true) {
+                    ConcurrentGameEngine.State s = engine.getState();
+                    if (s.getMatchedCount() == n) return;
+                    int move = -1;
+                    ConcurrentGameEngine.Outcome outcome;
+                    if (s.isProcessing()) {
+                        outcome = engine.switchTurn(s.getVersion());
+                    } else {
+                        do {
+                            move = random.nextInt(n);
+                        } while (s.isFaceUp(move) || s.isMatched(move));
+                        outcome = engine.select(move, s.getVersion());
+                    }
+                    if (outcome == ConcurrentGameEngine.Outcome.REJECTED) {
+                        rejections.incrementAndGet();
+                    } else if (log.putIfAbsent(s.getVersion(), move) != null) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            });
+            nanos += System.nanoTime() - start;
+
+            ConcurrentGameEngine.State end = engine.getState();
+            boolean ok = duplicates.get() == 0 && log.size() == end.getVersion();
+            for (long v = 0; ok && v < end.getVersion(); v++) {
+                int move = log.get(v);
+                if (move < 0) {
+                    reference.switchTurn();
+                } else {
+                    reference.handleCardSelection(reference.getCards().get(move));
+                }
+            }
+            if (!ok || !sameGame(reference, end)) bad++;
+            applied += end.getVersion();
+            rejected += rejections.get();
+        }
+        if (check(bad == 0, "free for all: " + bad + " of " + games + " games differ from their replay")) {
+            System.out.printf("free for all: %d games x %d threads, %d moves applied (%.0f/s), %d rejected as stale, replays agree%n",
+                    games, threads, applied, applied / (nanos / 1e9), rejected);
+        }
+    }
+
+    private static void sameCard(int rounds) throws Exception {
+        int once = 0;
+        for (int round = 0; round < rounds; round++) {
+            ConcurrentGameEngine engine = new ConcurrentGameEngine("a", "b", new int[] {0, 0, 1, 1});
+            AtomicInteger wins = new AtomicInteger();
+            run(8, t -> {
+                if (engine.select(2) != ConcurrentGameEngine.Outcome.REJECTED) wins.incrementAndGet();
+            });
+            if (wins.get() == 1 && engine.getState().getVersion() == 1) once++;
+        }
+        if (check(once == rounds, "same card: applied exactly once in " + once + " of " + rounds + " races")) {
+            System.out.println("same card: " + rounds + " races of 8 threads, one winner each");
+        }
+    }
+
+    private static void seats(int threads, int games) throws Exception {
+        int bad = 0;
+        long wrongSeat = 0;
+        for (int g = 0; g < games; g++) {
+            ConcurrentGameEngine engine = ConcurrentGameEngine.deal("a", "b", 50);
+            AtomicInteger outOfTurn = new AtomicInteger();
+            AtomicLong rejections = new AtomicLong();
+            run(threads, t -> {
+                int seat = t % 2;
+                Random random = ThreadLocalRandom.current();
+                int n = engine.getCardCount();
+                while (true) {
+                    ConcurrentGameEngine.State s = engine.getState();
+                    if (s.getMatchedCount() == n) return;
+                    ConcurrentGameEngine.Outcome outcome;
+                    if (s.isProcessing()) {
+                        outcome = engine.switchTurn(seat, s.getVersion());
+                    } else {
+                        int card = random.nextInt(n);
+                        if (s.isFaceUp(card) || s.isMatched(card)) continue;
+                        outcome = engine.select(seat, card, s.getVersion());
+                    }
+                    if (outcome == ConcurrentGameEngine.Outcome.REJECTED) {
+                        rejections.incrementAndGet();
+                        if (s.getCurrentSeat() != seat) Thread.yield(); // Let the other seat's threads play
+                    } else if (s.getCurrentSeat() != seat) {
+                        outOfTurn.incrementAndGet(); // Applied to exactly s, where the other seat was on turn
+                    }
+                }
+            });
+            ConcurrentGameEngine.State end = engine.getState();
+            if (outOfTurn.get() > 0 || end.getPairs(0) + end.getPairs(1) != 50
+                    || end.getScore(0) + end.getScore(1) != 50 * GameEngine.MATCH_POINTS) {
+                bad++;
+            }
+            wrongSeat += rejections.get();
+        }
+        if (check(bad == 0, "seats: " + bad + " of " + games + " games had a move out of turn")) {
+            System.out.println("seats: " + games + " games with one seat per thread, " + wrongSeat + " moves rejected");
+        }
+    }
+
+    private static void conversion(Random random, int games) {
+        for (int g = 0; g < games; g++) {
+            ConcurrentGameEngine engine = ConcurrentGameEngine.deal("a", "b", 2 + random.nextInt(49));
+            int n = engine.getCardCount();
+            for (int k = random.nextInt(3 * n); k > 0 && engine.getState().getMatchedCount() < n; k--) {
+                if (engine.getState().isProcessing() && random.nextBoolean()) {
+                    engine.switchTurn();
+                } else {
+                    engine.select(random.nextInt(n));
+                }
+            }
+            ConcurrentGameEngine.State s = engine.getState();
+            GameEngine copy = engine.toEngine();
+            ConcurrentGameEngine back = ConcurrentGameEngine.of(copy);
+            boolean ok = sameGame(copy, s) && back.getCardCount() == n;
+            for (int i = 0; ok && i < n; i++) {
+                ok = back.getFaceId(i) == engine.getFaceId(i) && Deck.faceIdOf(copy.getCards().get(i)) == engine.getFaceId(i)
+                        && back.getState().isFaceUp(i) == s.isFaceUp(i) && back.getState().isMatched(i) == s.isMatched(i);
+            }
+            ok = ok && back.getState().getFirstSelected() == s.getFirstSelected()
+                    && back.getState().getSecondSelected() == s.getSecondSelected()
+                    && back.getState().getScore(0) == s.getScore(0) && back.getState().getScore(1) == s.getScore(1);
+            if (!check(ok, "conversion: game " + g + " changed on the way through GameEngine")) return;
+        }
+        System.out.println("conversion: " + games + " games in progress survive toEngine() and of()");
+    }
+
+    // --- Private Helper Methods ---
+
+    private static GameEngine newGame(int pairs) {
+        Deck deck = new Deck();
+        deck.initializeDeck(Deck.VALUES, Deck.SUITS, null, pairs);
+        Player p1 = new Player("a") { @Override public void playTurn() {} };
+        Player p2 = new Player("b") { @Override public void playTurn() {} };
+        return new GameEngine(p1, p2, deck.getCards(), true);
+    }
+
+    /**
+     * The engines agree on the board, the counters of both players and the player on turn.
+     */
+    private static boolean sameGame(GameEngine engine, ConcurrentGameEngine.State s) {
+        List<Card> cards = engine.getCards();
+        for (int i = 0; i < cards.size(); i++) {
+            if (cards.get(i).isMatched() != s.isMatched(i) || cards.get(i).isFaceUp() != s.isFaceUp(i)) return false;
+        }
+        Player p1 = engine.getP1(), p2 = engine.getP2();
+        return p1.getScore() == s.getScore(0) && p2.getScore() == s.getScore(1)
+                && p1.getMoves() == s.getMoves(0) && p2.getMoves() == s.getMoves(1)
+                && p1.getPairs() == s.getPairs(0) && p2.getPairs() == s.getPairs(1)
+                && (engine.getCurrentPlayer() == p1 ? 0 : 1) == s.getCurrentSeat()
+                && engine.isProcessing() == s.isProcessing();
+    }
+
+    /**
+     * Runs the task on the given number of threads, all released at once, and waits for them.
+     */
+    private static void run(int threads, Task task) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(index);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    check(false, "worker failed: " + e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            workers[t].start();
+        }
+        done.await();
+    }
+
+    private static synchronized boolean check(boolean ok, String message) {
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED " + message);
+        }
+        return ok;
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+}
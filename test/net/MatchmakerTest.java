@@ -0,0 +1,347 @@
+package net;
+
+import controller.GameEngine;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stress test and benchmark for the Matchmaker, plus a matchmade game played to the
+ * end over a GameServer by two clients.
+ *
+ * Run: java -cp bin:bin-test net.MatchmakerTest [threads] [players per thread]
+ * (defaults: 4 threads of 20000 players). Exits with status 1 if a check fails.
+ * A plain main rather than a JMH benchmark, like the other harnesses here: the
+ * throughput figure is enqueues per second over the whole concurrent run.
+ *
+ * - concurrent enqueues: threads enqueue and cancel players at once; nobody is matched
+ *   twice or after cancelling, and partners share a grid size and are close in skill
+ * - pruning: cancelled players in queues nobody else uses are dropped by the sweep
+ * - online game: two clients matched by the server play a whole game, each learning
+ *   the other's moves as they happen; the second player reconnects halfway with its
+ *   seat key; a third connection that guesses the session ID cannot move or look
+ */
+public class MatchmakerTest {
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        concurrentEnqueues(threads, perThread);
+        pruning();
+        onlineGame();
+
+        System.out.println(failures == 0 ? "ALL PASSED" : failures + " FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // --- Scenarios ---
+
+    private static void concurrentEnqueues(int threads, int perThread) throws Exception {
+        int players = threads * perThread;
+        AtomicIntegerArray matched = new AtomicIntegerArray(players);
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger mismatched = new AtomicInteger();
+        Matchmaker matchmaker = new Matchmaker(match -> {
+            Matchmaker.Ticket a = match.getPlayer1(), b = match.getPlayer2();
+            if (matched.getAndIncrement((Integer) a.getAttachment()) != 0) duplicates.incrementAndGet();
+            if (matched.getAndIncrement((Integer) b.getAttachment()) != 0) duplicates.incrementAndGet();
+            if (a.getGridSize() != b.getGridSize() || Math.abs(a.getSkill() - b.getSkill()) > 1000
+                    || match.getEngine().getCardCount() != a.getGridSize() * a.getGridSize()) {
+                mismatched.incrementAndGet();
+            }
+        });
+        matchmaker.start();
+
+        Matchmaker.Ticket[] tickets = new Matchmaker.Ticket[players];
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicInteger lateMatches = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            done.add(pool.submit(() -> {
+                go.await();
+                Random random = new Random(base);
+                for (int k = 0; k < perThread; k++) {
+                    int id = base + k;
+                    int grid = 2 * (1 + random.nextInt(5));
+                    int skill = (int) (1500 + random.nextGaussian() * 500);
+                    tickets[id] = matchmaker.enqueue("p" + id, grid, skill, id);
+                    // Every tenth player gives up on someone who enqueued a little earlier
+                    if (k % 10 == 0 && k >= 5 && tickets[id - 5].cancel()) {
+                        cancelled.incrementAndGet();
+                        if (matched.get(id - 5) != 0) lateMatches.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long start = System.nanoTime();
+        go.countDown();
+        for (Future<?> f : done) {
+            f.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        Thread.sleep(1000); // Sweeps widen the windows and pair the rest
+        matchmaker.stop();
+        Thread.sleep(200);  // Let a running sweep finish
+
+        int pairedPlayers = 0;
+        for (int i = 0; i < players; i++) {
+            if (matched.get(i) > 0) pairedPlayers++;
+        }
+        int waiting = matchmaker.getWaitingCount();
+        check(duplicates.get() == 0, "concurrent enqueues: " + duplicates.get() + " players matched twice");
+        check(lateMatches.get() == 0, "concurrent enqueues: " + lateMatches.get() + " players matched after cancelling");
+        check(mismatched.get() == 0, "concurrent enqueues: " + mismatched.get() + " pairs on different boards or too far apart");
+        check(pairedPlayers + cancelled.get() + waiting == players, "concurrent enqueues: " + pairedPlayers
+                + " matched + " + cancelled.get() + " cancelled + " + waiting + " waiting != " + players);
+        check(matchmaker.getQueuedCount() == waiting, "concurrent enqueues: " + matchmaker.getQueuedCount()
+                + " tickets queued for " + waiting + " waiting players");
+        System.out.printf("concurrent enqueues: %d players on %d threads, %.0f enqueues/s, %d pairs, %d cancelled, %d waiting%n",
+                players, threads, players / seconds, matchmaker.getMatchCount(), cancelled.get(), waiting);
+    }
+
+    private static void pruning() throws Exception {
+        Matchmaker matchmaker = new Matchmaker(match -> check(false, "pruning: unexpected match"));
+        matchmaker.start();
+        // One player per grid size and skill band, so nobody is around to claim the cancelled tickets
+        List<Matchmaker.Ticket> tickets = new ArrayList<>();
+        for (int grid = 2; grid <= 10; grid += 2) {
+            for (int skill = 0; skill <= Matchmaker.MAX_SKILL; skill += 2 * Matchmaker.BAND_WIDTH) {
+                tickets.add(matchmaker.enqueue("p", grid, skill, null));
+            }
+        }
+        for (Matchmaker.Ticket t : tickets) {
+            t.cancel();
+        }
+        Thread.sleep(500);
+        matchmaker.stop();
+        if (check(matchmaker.getQueuedCount() == 0, "pruning: " + matchmaker.getQueuedCount()
+                + " cancelled tickets still queued")) {
+            System.out.println("pruning: " + tickets.size() + " cancelled tickets dropped by the sweep");
+        }
+    }
+
+    private static void onlineGame() throws Exception {
+        GameServer server = new GameServer(0, 2, Files.createTempDirectory("sessions"), 60_000);
+        server.start();
+        int port = server.getPort();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch probed = new CountDownLatch(1);
+            Future<Seat> first = pool.submit(() -> play(port, "ann", probed));
+            Future<Seat> second = pool.submit(() -> play(port, "bob", probed));
+            Seat a = first.get(30, TimeUnit.SECONDS);
+            Seat b = second.get(30, TimeUnit.SECONDS);
+
+            boolean ok = a.session == b.session && a.seat != b.seat;
+            ok &= a.status == Protocol.GAME_OVER && b.status == Protocol.GAME_OVER;
+            ok &= a.p1Score == b.p1Score && a.p2Score == b.p2Score && a.p1Score + a.p2Score == GameEngine.MATCH_POINTS * 8;
+            ok &= a.allMatched() && b.allMatched();
+            if (check(ok, "online game: " + a + " / " + b)) {
+                System.out.println("online game: played to the end, " + a.p1Score + ":" + a.p2Score
+                        + ", both boards complete, " + (a.turns + b.turns) + " turns");
+            }
+        } finally {
+            pool.shutdownNow();
+            server.stop();
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * One player of a matchmade 4x4 game. Seat 0 waits until seat 1 has checked that
+     * moving out of turn and guessing the session ID get nowhere; seat 1 reconnects
+     * with its seat key after its first turn.
+     */
+    private static Seat play(int port, String name, CountDownLatch probed) throws IOException, InterruptedException {
+        RemoteGameClient client = new RemoteGameClient("localhost", port);
+        RemoteGameClient.RemoteGame game = client.findMatch(name, 4, 1500);
+        Seat me = new Seat(game.getSessionId(), game.getSeat(), game.getCardCount());
+        check(game.getFaceIds() == null, "online game: faces sent with MATCH_FOUND");
+        int session = me.session;
+
+        RemoteGameClient.MoveResult r;
+        if (me.seat == 0) {
+            probed.await();
+            r = client.getBoard(session, me.sink);
+        } else {
+            r = client.select(session, 0, me.sink);
+            check(r.getStatus() == Protocol.REJECTED, "online game: a move out of turn was accepted");
+            try (RemoteGameClient stranger = new RemoteGameClient("localhost", port)) {
+                check(refused(() -> stranger.select(session, 0)), "online game: a stranger could move");
+                check(refused(() -> stranger.getBoard(session, (i, s, f) -> {})), "online game: a stranger saw the board");
+                check(refused(() -> stranger.join(session, game.getSeatKey() ^ 1, (i, s, f) -> {})),
+                        "online game: a wrong seat key was accepted");
+            }
+            probed.countDown();
+            r = client.awaitTurn(session, me.seat, me.sink);
+        }
+
+        boolean reconnected = me.seat == 0;
+        while (r.getStatus() != Protocol.GAME_OVER && r.getStatus() != Protocol.REJECTED) {
+            if (r.getCurrentSeat() != me.seat) {
+                if (!reconnected) {
+                    // Continue on a new connection; the old one loses the seat
+                    RemoteGameClient old = client;
+                    RemoteGameClient replacement = new RemoteGameClient("localhost", port);
+                    replacement.join(session, game.getSeatKey(), me.sink);
+                    check(refused(() -> {
+                        old.getBoard(session, (i, s, f) -> {});
+                        return null;
+                    }), "online game: the old connection kept its seat");
+                    old.close();
+                    client = replacement;
+                    reconnected = true;
+                }
+                r = client.awaitTurn(session, me.seat, me.sink);
+                continue;
+            }
+            me.turns++;
+            r = me.takeTurn(client, r);
+        }
+        me.finish(r);
+        client.close();
+        return me;
+    }
+
+    private static boolean refused(Request request) {
+        try {
+            request.send();
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static boolean check(boolean ok, String message) {
+        if (!ok) {
+            synchronized (MatchmakerTest.class) {
+                failures++;
+            }
+            System.out.println("FAILED " + message);
+        }
+        return ok;
+    }
+
+    private interface Request {
+        Object send() throws IOException;
+    }
+
+    /**
+     * A player's view of the board, learned only from what the server sends.
+     */
+    private static class Seat {
+        final int session;
+        final int seat;
+        final int[] states;
+        final int[] faces;
+        final WireCodec.CardSink sink;
+        byte status;
+        int p1Score, p2Score, turns;
+
+        Seat(int session, int seat, int cards) {
+            this.session = session;
+            this.seat = seat;
+            this.states = new int[cards];
+            this.faces = new int[cards];
+            Arrays.fill(faces, -1);
+            this.sink = (index, state, face) -> {
+                states[index] = state;
+                if (face >= 0) faces[index] = face;
+            };
+        }
+
+        /**
+         * Plays until the turn passes or the game ends: a known pair if there is one,
+         * otherwise a new card and, if its partner is known, the partner.
+         */
+        RemoteGameClient.MoveResult takeTurn(RemoteGameClient client, RemoteGameClient.MoveResult r)
+                throws IOException {
+            while (r.getStatus() != Protocol.GAME_OVER && r.getCurrentSeat() == seat) {
+                int first = knownPair();
+                if (first < 0) first = hiddenUnknown(-1);
+                if (first < 0) first = hidden(-1);
+                r = client.select(session, first, sink);
+                if (!check(r.getStatus() == Protocol.REVEALED, "online game: first card " + r.getStatus())) return r;
+
+                int second = partnerOf(first);
+                if (second < 0) second = hiddenUnknown(first);
+                if (second < 0) second = hidden(first);
+                r = client.select(session, second, sink);
+                if (r.getStatus() == Protocol.REVEALED) {
+                    r = client.switchTurn(session, sink);
+                    check(r.getStatus() == Protocol.SWITCHED, "online game: switch " + r.getStatus());
+                } else if (!check(r.getStatus() == Protocol.MATCHED || r.getStatus() == Protocol.GAME_OVER,
+                        "online game: second card " + r.getStatus())) {
+                    return r;
+                }
+            }
+            return r;
+        }
+
+        void finish(RemoteGameClient.MoveResult r) {
+            status = r.getStatus();
+            p1Score = r.getP1Score();
+            p2Score = r.getP2Score();
+        }
+
+        boolean allMatched() {
+            for (int s : states) {
+                if (s != WireCodec.MATCHED) return false;
+            }
+            return true;
+        }
+
+        private int knownPair() {
+            for (int i = 0; i < states.length; i++) {
+                if (states[i] == WireCodec.HIDDEN && faces[i] >= 0 && partnerOf(i) >= 0) return i;
+            }
+            return -1;
+        }
+
+        private int partnerOf(int card) {
+            for (int i = 0; i < states.length; i++) {
+                if (i != card && states[i] == WireCodec.HIDDEN && faces[i] == faces[card]) return i;
+            }
+            return -1;
+        }
+
+        private int hiddenUnknown(int except) {
+            for (int i = 0; i < states.length; i++) {
+                if (i != except && states[i] == WireCodec.HIDDEN && faces[i] < 0) return i;
+            }
+            return -1;
+        }
+
+        private int hidden(int except) {
+            for (int i = 0; i < states.length; i++) {
+                if (i != except && states[i] == WireCodec.HIDDEN) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            return "seat " + seat + " of " + session + ": status " + status + ", " + p1Score + ":" + p2Score
+                    + (allMatched() ? "" : ", board incomplete");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package net;
+
+import controller.ConcurrentGameEngine;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+/**
+ * Measures what spectators cost a game: random 10x10 games are played while a
+ * SpectatorHub feeds N spectators, and the CPU time the game thread spends per move
+ * is reported next to what the frame thread delivered. The per-move cost should not
+ * grow with N. Also checks that every spectator that keeps up ends with the final
+ * board, and that slow spectators (one request, then silence) get no backlog.
+ *
+ * Run: java -cp bin:bin-test net.SpectatorHubBenchmark [spectators]...
+ * (default 0 1000 5000). Exits with status 1 if a check fails.
+ */
+public class SpectatorHubBenchmark {
+    private static final int GAMES = 10;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        int[] counts = {0, 1000, 5000};
+        if (args.length > 0) {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        run(0, new Random(1)); // warm-up
+        for (int n : counts) {
+            run(n, new Random(5));
+        }
+
+        System.out.println(failures == 0 ? "ALL PASSED" : failures + " FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void run(int spectators, Random random) throws InterruptedException {
+        long moves = 0, cpu = 0, items = 0, bytes = 0;
+        int stale = 0, slowItems = 0;
+        for (int g = 0; g < GAMES; g++) {
+            ConcurrentGameEngine engine = ConcurrentGameEngine.deal("a", "b", 50);
+            SpectatorHub hub = spectators > 0 ? new SpectatorHub(engine) : null;
+            List<View> views = new ArrayList<>();
+            for (int i = 0; i < spectators; i++) {
+                View v = new View(i % 10 != 0); // every tenth spectator stops asking for updates
+                views.add(v);
+                hub.subscribe(v);
+            }
+
+            long start = THREADS.getCurrentThreadCpuTime();
+            moves += play(engine, random);
+            cpu += THREADS.getCurrentThreadCpuTime() - start;
+
+            if (hub == null) continue;
+            Thread.sleep(50); // Let a frame go out after the last move
+            hub.close();
+            for (View v : views) {
+                while (!v.done) Thread.sleep(1);
+                items += v.items;
+                bytes += v.bytes;
+                if (v.keepUp && !v.sees(engine)) stale++;
+                if (!v.keepUp) slowItems = Math.max(slowItems, v.items);
+            }
+        }
+
+        System.out.printf("%5d spectators: %6.0f ns game thread CPU per move, %d items, %d bytes delivered%n",
+                spectators, (double) cpu / moves, items, bytes);
+        check(stale == 0, spectators + " spectators: " + stale + " that kept up missed the final board");
+        check(slowItems <= 1, spectators + " spectators: a slow spectator got " + slowItems + " items");
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Plays random legal moves until the game is over.
+     * @return The number of moves made.
+     */
+    private static long play(ConcurrentGameEngine engine, Random random) {
+        long moves = 0;
+        int n = engine.getCardCount();
+        while (engine.getState().getMatchedCount() < n) {
+            ConcurrentGameEngine.State s = engine.getState();
+            if (s.isProcessing()) {
+                engine.switchTurn();
+                moves++;
+                continue;
+            }
+            int card = random.nextInt(n);
+            if (s.isFaceUp(card) || s.isMatched(card)) continue;
+            engine.select(card);
+            moves++;
+        }
+        return moves;
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED " + message);
+        }
+    }
+
+    /**
+     * A spectator that applies every update to its own board.
+     */
+    private static class View implements Flow.Subscriber<ByteBuffer> {
+        final boolean keepUp;
+        final int[] states = new int[WireCodec.MAX_CARDS];
+        Flow.Subscription subscription;
+        int items;
+        long bytes;
+        volatile boolean done;
+
+        View(boolean keepUp) {
+            this.keepUp = keepUp;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            items++;
+            bytes += item.remaining();
+            item.get();
+            WireCodec.getVarint(item);
+            WireCodec.getVarint(item);
+            WireCodec.readDelta(item, (index, state, faceId) -> states[index] = state);
+            if (keepUp) subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            error.printStackTrace();
+            done = true;
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+        }
+
+        boolean sees(ConcurrentGameEngine engine) {
+            ConcurrentGameEngine.State s = engine.getState();
+            for (int i = 0; i < engine.getCardCount(); i++) {
+                int state = s.isMatched(i) ? WireCodec.MATCHED : s.isFaceUp(i) ? WireCodec.FACE_UP : WireCodec.HIDDEN;
+                if (states[i] != state) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package net;
+
+import model.Card;
+import model.Deck;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Round trips every WireCodec encoding on random boards, checks that a server game only
+ * reveals faces of turned-over cards, and measures encode plus decode throughput.
+ *
+ * Run: java -cp bin:bin-test net.WireCodecTest [benchmark seconds]
+ * (default 3). Exits with status 1 if a check fails.
+ *
+ * - varints: edge values, including negative numbers (five bytes)
+ * - frames: a body of 128 bytes or more gets a two-byte length
+ * - layout, board, delta: random boards and moves; hidden cards never carry a face
+ * - server: a game created without its layout gets no faces until a card is revealed
+ * - benchmark: MOVE_RESULT frames of a 10x10 board, encoded and decoded
+ */
+public class WireCodecTest {
+    private static final WireCodec.CardSink IGNORE = (index, state, faceId) -> {};
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        varints();
+        frames();
+        boards(new Random(1), 5000);
+        server();
+        benchmark(seconds);
+
+        System.out.println(failures == 0 ? "ALL PASSED" : failures + " FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // --- Checks ---
+
+    private static void varints() {
+        ByteBuffer buf = ByteBuffer.allocate(16);
+        for (int v : new int[] {0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, -1}) {
+            buf.clear();
+            WireCodec.putVarint(buf, v);
+            buf.flip();
+            int size = buf.remaining();
+            if (!check(WireCodec.peekVarint(buf) == v && WireCodec.getVarint(buf) == v && !buf.hasRemaining()
+                    && size == WireCodec.varintSize(v), "varint " + v)) {
+                return;
+            }
+        }
+        System.out.println("varints: round trips OK");
+    }
+
+    private static void frames() {
+        ByteBuffer buf = ByteBuffer.allocate(Protocol.MAX_FRAME + 2);
+        int start = WireCodec.beginFrame(buf, Protocol.SPECTATE);
+        for (int i = 0; i < 300; i++) {
+            buf.put((byte) i);
+        }
+        WireCodec.endFrame(buf, start);
+        buf.flip();
+        boolean ok = WireCodec.getVarint(buf) == 301 && buf.get() == Protocol.SPECTATE && buf.remaining() == 300;
+        for (int i = 0; ok && i < 300; i++) {
+            ok = buf.get() == (byte) i;
+        }
+        if (check(ok, "frame with a 301 byte body")) {
+            System.out.println("frames: long body moved behind a two-byte length");
+        }
+    }
+
+    private static void boards(Random random, int games) {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        for (int g = 0; g < games; g++) {
+            int n = 2 * (1 + random.nextInt(WireCodec.MAX_CARDS / 2 - 14)); // up to 10x10
+            List<Card> cards = deal(n);
+            byte[] faces = faces(cards);
+
+            buf.clear();
+            WireCodec.putLayout(faces, buf);
+            buf.flip();
+            int[] layout = new int[n];
+            int count = WireCodec.readLayout(buf, (i, state, face) -> layout[i] = face);
+            if (!check(count == n && !buf.hasRemaining() && Arrays.equals(layout, toInts(faces)), "layout of " + n)) {
+                return;
+            }
+
+            long[] state = new long[WireCodec.stateWords(n)];
+            long[] shown = new long[state.length];
+            int[] seenState = new int[n];
+            int[] seenFace = new int[n];
+            Arrays.fill(seenFace, -1);
+            for (int step = 0; step < 20; step++) {
+                for (int k = random.nextInt(5); k > 0; k--) {
+                    Card c = cards.get(random.nextInt(n));
+                    int s = random.nextInt(3);
+                    c.setMatched(s == WireCodec.MATCHED);
+                    c.setFaceUp(s != WireCodec.HIDDEN);
+                }
+                WireCodec.captureState(cards, state);
+
+                buf.clear();
+                WireCodec.putDelta(state, faces, shown, buf);
+                buf.flip();
+                boolean[] leaked = new boolean[1];
+                WireCodec.readDelta(buf, (i, s, face) -> {
+                    seenState[i] = s;
+                    if (face >= 0) seenFace[i] = face;
+                    if (s == WireCodec.HIDDEN && face >= 0) leaked[0] = true;
+                });
+                if (!check(!buf.hasRemaining() && !leaked[0] && matches(cards, faces, seenState, seenFace),
+                        "delta of " + n + " cards, step " + step)) {
+                    return;
+                }
+
+                buf.clear();
+                WireCodec.putBoard(state, faces, buf);
+                buf.flip();
+                int[] boardState = new int[n];
+                int[] boardFace = new int[n];
+                WireCodec.readBoard(buf, (i, s, face) -> {
+                    boardState[i] = s;
+                    boardFace[i] = face;
+                });
+                boolean ok = !buf.hasRemaining();
+                for (int i = 0; ok && i < n; i++) {
+                    int s = stateOf(cards.get(i));
+                    ok = boardState[i] == s && boardFace[i] == (s == WireCodec.HIDDEN ? -1 : faces[i]);
+                }
+                if (!check(ok, "board of " + n + " cards, step " + step)) return;
+            }
+        }
+        System.out.println("layout, board, delta: " + games + " random games round trip, no hidden faces sent");
+    }
+
+    private static void server() throws Exception {
+        GameServer server = new GameServer(0, 1, Files.createTempDirectory("sessions"), 60_000);
+        server.start();
+        try (RemoteGameClient client = new RemoteGameClient("localhost", server.getPort())) {
+            RemoteGameClient.RemoteGame game = client.createGame("a", "b", 4, false);
+            check(game.getFaceIds() == null && game.getCardCount() == 16, "game without layout: got faces");
+
+            int[] faces = new int[16];
+            Arrays.fill(faces, -1);
+            int[] hiddenFaces = new int[1];
+            WireCodec.CardSink sink = (i, state, face) -> {
+                if (face >= 0) faces[i] = face;
+                if (state == WireCodec.HIDDEN && face >= 0) hiddenFaces[0]++;
+            };
+            client.select(game.getSessionId(), 3, sink);
+            client.getBoard(game.getSessionId(), sink);
+            long known = Arrays.stream(faces).filter(f -> f >= 0).count();
+            if (check(known == 1 && faces[3] >= 0 && hiddenFaces[0] == 0, "server game: " + known + " faces known")) {
+                System.out.println("server: only the revealed card's face reached the client");
+            }
+
+            RemoteGameClient.RemoteGame mirrored = client.createGame("a", "b", 4, true);
+            check(mirrored.getFaceIds() != null && mirrored.getFaceIds().length == 16, "game with layout: no faces");
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void benchmark(int seconds) {
+        List<Card> cards = deal(100);
+        byte[] faces = faces(cards);
+        long[] state = new long[WireCodec.stateWords(100)];
+        long[] shown = new long[state.length];
+        ByteBuffer buf = ByteBuffer.allocateDirect(Protocol.MAX_FRAME + 2);
+
+        for (int round = 0; round <= seconds; round++) { // the first second warms up
+            long start = System.nanoTime();
+            long messages = 0;
+            int changed = 0;
+            while (System.nanoTime() - start < 1_000_000_000L) {
+                for (int j = 0; j < 1000; j++) {
+                    Card c = cards.get(j % 100);
+                    c.setFaceUp(!c.isFaceUp());
+                    WireCodec.captureState(cards, state);
+
+                    buf.clear();
+                    int frame = WireCodec.beginFrame(buf, Protocol.MOVE_RESULT);
+                    WireCodec.putVarint(buf, 12345);
+                    buf.put(Protocol.REVEALED).put((byte) 0);
+                    WireCodec.putVarint(buf, 120);
+                    WireCodec.putVarint(buf, 90);
+                    WireCodec.putDelta(state, faces, shown, buf);
+                    WireCodec.endFrame(buf, frame);
+
+                    buf.flip();
+                    WireCodec.getVarint(buf);
+                    buf.get();
+                    WireCodec.getVarint(buf);
+                    buf.get();
+                    buf.get();
+                    WireCodec.getVarint(buf);
+                    WireCodec.getVarint(buf);
+                    changed += WireCodec.readDelta(buf, IGNORE);
+                }
+                messages += 1000;
+            }
+            if (round == 0) continue;
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("benchmark: 10x10 MOVE_RESULT encode + decode %.2f M messages/s (%d changes)%n",
+                    messages / elapsed / 1e6, changed);
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    private static List<Card> deal(int cards) {
+        Deck deck = new Deck();
+        deck.initializeDeck(Deck.VALUES, Deck.SUITS, null, cards / 2);
+        return deck.getCards();
+    }
+
+    private static byte[] faces(List<Card> cards) {
+        byte[] faces = new byte[cards.size()];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = (byte) Deck.faceIdOf(cards.get(i));
+        }
+        return faces;
+    }
+
+    private static int[] toInts(byte[] bytes) {
+        int[] ints = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            ints[i] = bytes[i];
+        }
+        return ints;
+    }
+
+    private static int stateOf(Card card) {
+        if (card.isMatched()) return WireCodec.MATCHED;
+        return card.isFaceUp() ? WireCodec.FACE_UP : WireCodec.HIDDEN;
+    }
+
+    /**
+     * The receiver's view agrees with the board: every state, and the face of every visible card.
+     */
+    private static boolean matches(List<Card> cards, byte[] faces, int[] seenState, int[] seenFace) {
+        for (int i = 0; i < cards.size(); i++) {
+            int s = stateOf(cards.get(i));
+            if (seenState[i] != s || (s != WireCodec.HIDDEN && seenFace[i] != faces[i])) return false;
+        }
+        return true;
+    }
+
+    private static boolean check(boolean ok, String message) {
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED " + message);
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,238 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Checks that several processes can share one SegmentedScoreStore without losing or
+ * duplicating scores, including after crashes.
+ *
+ * Run: java -cp bin:bin-test util.ScoreStoreProcessTest [writers] [scores per writer]
+ * (defaults: 12 writers of 200 scores). Exits with status 1 if a check fails.
+ *
+ * - concurrent writers: child JVMs append at the same time and merge every 25 scores;
+ *   once all are merged and exited, their segments and merge.state entries are gone
+ * - killed writers: child JVMs are killed mid-append; every whole record survives once
+ * - stale segment: a segment left by an earlier run with our PID ends in half a record
+ * - interrupted merge: a merge died after inserting part of its records
+ * - name index: scores other processes merge after the first search are found, also
+ *   when their segment was deleted before this process saw its last records
+ */
+public class ScoreStoreProcessTest {
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("writer")) {
+            writer(args[1], args[2], Integer.parseInt(args[3]));
+            return;
+        }
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        int scores = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        concurrentWriters(writers, scores);
+        killedWriters(4);
+        staleSegment();
+        interruptedMerge();
+        nameIndex();
+
+        System.out.println(failures == 0 ? "ALL PASSED" : failures + " FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // --- Scenarios ---
+
+    private static void concurrentWriters(int writers, int scores) throws Exception {
+        Path dir = Files.createTempDirectory("scores");
+        long start = System.nanoTime();
+        List<Process> processes = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            processes.add(spawn(dir, "w" + w, scores));
+        }
+        for (Process p : processes) {
+            check(p.waitFor() == 0, "writer exit status");
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        SegmentedScoreStore store = new SegmentedScoreStore(dir.toString(), new ArrayList<>());
+        Set<String> names = allNames(store);
+        int segments = segmentCount(dir), entries = Files.readAllLines(dir.resolve("merge.state")).size();
+        store.close();
+        check(names.size() == writers * scores, "concurrent writers: expected " + writers * scores
+                + " distinct scores, found " + names.size());
+        check(segments == 1 && entries <= 1, "concurrent writers: " + segments + " segments and "
+                + entries + " merge.state entries left after merging, expected only our own");
+        check(segmentCount(dir) == 0, "concurrent writers: our merged segment is left after close");
+        System.out.println("concurrent writers: " + writers + " x " + scores + " scores in " + millis + " ms");
+        delete(dir);
+    }
+
+    private static void killedWriters(int writers) throws Exception {
+        Path dir = Files.createTempDirectory("scores");
+        List<Process> processes = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            processes.add(spawn(dir, "k" + w, -1)); // appends until killed
+        }
+        Thread.sleep(1500);
+        for (Process p : processes) {
+            p.destroyForcibly().waitFor();
+        }
+
+        long whole = 0;
+        File[] segments = dir.toFile().listFiles((d, name) -> name.endsWith(".seg"));
+        for (File segment : segments) {
+            whole += segment.length() / MappedScoreStore.RECORD_SIZE;
+        }
+        SegmentedScoreStore store = new SegmentedScoreStore(dir.toString(), new ArrayList<>());
+        Set<String> names = allNames(store);
+        int size = store.size();
+        store.close();
+        check(whole > 0, "killed writers: nothing was written");
+        if (check(size == whole && names.size() == whole, "killed writers: " + whole + " whole records, "
+                + size + " merged, " + names.size() + " distinct")) {
+            System.out.println("killed writers: " + whole + " whole records merged once each");
+        }
+        delete(dir);
+    }
+
+    private static void staleSegment() throws Exception {
+        Path dir = Files.createTempDirectory("scores");
+        File segment = dir.resolve("segment-" + ProcessHandle.current().pid() + ".seg").toFile();
+        ByteBuffer data = ByteBuffer.allocate(3 * MappedScoreStore.RECORD_SIZE + 10);
+        for (int i = 0; i < 3; i++) {
+            MappedScoreStore.encode(new ScoreRecord("old" + i, 10 + i, 4, i), data);
+        }
+        Files.write(segment.toPath(), data.array()); // ends in 10 bytes of a record
+
+        SegmentedScoreStore store = new SegmentedScoreStore(dir.toString(), new ArrayList<>());
+        store.append(new ScoreRecord("new", 50, 4, 99));
+        Set<String> names = allNames(store);
+        store.close();
+        if (check(names.equals(Set.of("old0", "old1", "old2", "new")), "stale segment: merged " + names)) {
+            System.out.println("stale segment: partial record dropped, later appends intact");
+        }
+        delete(dir);
+    }
+
+    private static void interruptedMerge() throws Exception {
+        Path dir = Files.createTempDirectory("scores");
+        SegmentedScoreStore store = new SegmentedScoreStore(dir.toString(), new ArrayList<>());
+        for (int i = 0; i < 10; i++) {
+            store.append(new ScoreRecord("a" + i, i, 4, i));
+        }
+        store.merge();
+        for (int i = 0; i < 50; i++) {
+            store.append(new ScoreRecord("b" + i, i % 7, 4, 100 + i));
+        }
+        store.close();
+
+        // What a merge leaves behind when it dies after inserting 20 of the 50 new records
+        String segment = "segment-" + ProcessHandle.current().pid() + ".seg";
+        long done = 10L * MappedScoreStore.RECORD_SIZE;
+        long end = 60L * MappedScoreStore.RECORD_SIZE;
+        MappedScoreStore history = new MappedScoreStore(dir.resolve("highscores.dat").toString());
+        try (RandomAccessFile in = new RandomAccessFile(dir.resolve(segment).toFile(), "r")) {
+            byte[] bytes = new byte[(int) (end - done)];
+            in.seek(done);
+            in.readFully(bytes);
+            ByteBuffer records = ByteBuffer.wrap(bytes);
+            for (int i = 0; i < 20; i++) {
+                history.insert(MappedScoreStore.decode(records));
+            }
+        }
+        history.close();
+        Files.write(dir.resolve("merge.state"), (segment + ";" + done + ";" + end + "\n").getBytes());
+
+        store = new SegmentedScoreStore(dir.toString(), new ArrayList<>());
+        Set<String> names = allNames(store);
+        int size = store.size();
+        store.close();
+        if (check(size == 60 && names.size() == 60, "interrupted merge: " + size + " merged, "
+                + names.size() + " distinct, expected 60")) {
+            System.out.println("interrupted merge: redone without duplicates");
+        }
+        delete(dir);
+    }
+
+    private static void nameIndex() throws Exception {
+        Path dir = Files.createTempDirectory("scores");
+        SegmentedScoreStore store = new SegmentedScoreStore(dir.toString(), new ArrayList<>());
+        store.append(new ScoreRecord("own", 5, 4, 1));
+        check(store.searchNames("", 1000).size() == 1, "name index: first search");
+
+        // Merged partly by the writer itself, the rest by our merge
+        check(spawn(dir, "p", 60).waitFor() == 0, "writer exit status");
+        store.merge();
+        int afterOne = store.searchNames("p-", 1000).size();
+
+        // The second writer merges the first one's tail and deletes its segment
+        check(spawn(dir, "q", 30).waitFor() == 0, "writer exit status");
+        check(spawn(dir, "r", 2).waitFor() == 0, "writer exit status");
+        store.merge();
+        int all = store.searchNames("", 1000).size();
+        store.close();
+        if (check(afterOne == 60 && all == 1 + 60 + 30 + 2, "name index: found " + afterOne + " of 60, then "
+                + all + " of 93 players")) {
+            System.out.println("name index: scores merged elsewhere are found after the next merge");
+        }
+        delete(dir);
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Child process: appends scores named PREFIX-i, merging every 25; count -1 runs until killed.
+     */
+    private static void writer(String dir, String prefix, int count) throws IOException {
+        SegmentedScoreStore store = new SegmentedScoreStore(dir, new ArrayList<>());
+        for (int i = 0; count < 0 || i < count; i++) {
+            store.append(new ScoreRecord(prefix + "-" + i, i % 100, 4, System.currentTimeMillis()));
+            if (count > 0 && i % 25 == 0) store.rank(i % 100);
+        }
+        store.close();
+    }
+
+    private static Process spawn(Path dir, String prefix, int count) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ScoreStoreProcessTest.class.getName(), "writer", dir.toString(), prefix, String.valueOf(count))
+                .inheritIO().start();
+    }
+
+    private static int segmentCount(Path dir) {
+        return dir.toFile().listFiles((d, name) -> name.endsWith(".seg")).length;
+    }
+
+    private static Set<String> allNames(SegmentedScoreStore store) throws IOException {
+        ScoreSelection selection = store.select(ScoreQuery.all());
+        ScoreRecord[] records = store.read(selection, 0, selection.size(), new int[selection.size()]);
+        Set<String> names = new HashSet<>();
+        for (ScoreRecord record : records) {
+            names.add(record.getName());
+        }
+        return names;
+    }
+
+    private static boolean check(boolean ok, String message) {
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED " + message);
+        }
+        return ok;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
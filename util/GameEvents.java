@@ -0,0 +1,187 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Custom JDK Flight Recorder events, so a recording of a real session shows deck
+ * building, image work, animations, AI moves and turns next to GC and CPU activity
+ * (e.g. java -XX:StartFlightRecording=filename=game.jfr ... and open it in JDK Mission Control).
+ *
+ * Usage pattern: create the event, begin() it, do the work, end() it, and set the
+ * fields and commit() only if shouldCommit() (which compares the duration measured
+ * by end() with the threshold); instant events just check shouldCommit(). When
+ * recording is off (or the event is disabled or below its threshold) that is a
+ * single check and the event object is optimized away.
+ * The thresholds below are defaults; a .jfc settings file can change them.
+ */
+public final class GameEvents {
+    private static final String CATEGORY = "Memory Game";
+
+    private GameEvents() {}
+
+    @Name("memorygame.DeckInit")
+    @Label("Deck Initialization")
+    @Description("Building the cards of a new or resumed game")
+    @Category({CATEGORY, "Model"})
+    @Threshold("0 ms")
+    public static class DeckInit extends Event {
+        @Label("Cards")
+        public int cards;
+
+        @Label("With Images")
+        @Description("false for headless decks (servers, simulated clients)")
+        public boolean images;
+
+        @Label("Resumed")
+        @Description("true if the layout came from a saved game")
+        public boolean resumed;
+    }
+
+    @Name("memorygame.ImageDecode")
+    @Label("Card Image Decode")
+    @Category({CATEGORY, "Rendering"})
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static class ImageDecode extends Event {
+        @Label("Resource")
+        public String resource;
+
+        @Label("Decoded Size")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("memorygame.ImageScale")
+    @Label("Card Image Scale")
+    @Category({CATEGORY, "Rendering"})
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static class ImageScale extends Event {
+        @Label("Width")
+        public int width;
+
+        @Label("Height")
+        public int height;
+    }
+
+    @Name("memorygame.CardFlip")
+    @Label("Card Flip Animation")
+    @Description("From the first to the last frame of a flip")
+    @Category({CATEGORY, "Rendering"})
+    @StackTrace(false)
+    @Threshold("0 ms")
+    public static class CardFlip extends Event {
+        @Label("Card")
+        public String card;
+
+        @Label("To Face Up")
+        public boolean toFaceUp;
+
+        @Label("Frames")
+        public int frames;
+
+        @Label("Interrupted")
+        @Description("Another flip of the same card started before this one finished")
+        public boolean interrupted;
+    }
+
+    @Name("memorygame.QualityChange")
+    @Label("Render Quality Change")
+    @Description("Automatic quality step after a window of slow or fast animation frames")
+    @Category({CATEGORY, "Rendering"})
+    @StackTrace(false)
+    public static class QualityChange extends Event {
+        @Label("From")
+        public String from;
+
+        @Label("To")
+        public String to;
+
+        @Label("Frame Lateness (p90)")
+        @Description("How much later than planned 90% of the measured frames arrived at most")
+        @Timespan(Timespan.NANOSECONDS)
+        public long lateness;
+    }
+
+    @Name("memorygame.AiDecision")
+    @Label("AI Decision")
+    @Category({CATEGORY, "Gameplay"})
+    @StackTrace(false)
+    @Threshold("0 ms")
+    public static class AiDecision extends Event {
+        @Label("Difficulty")
+        public String difficulty;
+
+        @Label("Memory Size")
+        @Description("Cards the AI remembered when deciding")
+        public int memorySize;
+
+        @Label("Scenario")
+        @Description("MATCH_FROM_MEMORY, PAIR_FROM_MEMORY, RANDOM or NONE")
+        public String scenario;
+
+        @Label("Second Card")
+        public boolean secondCard;
+    }
+
+    @Name("memorygame.TurnSwitch")
+    @Label("Turn Switch")
+    @Category({CATEGORY, "Gameplay"})
+    @StackTrace(false)
+    public static class TurnSwitch extends Event {
+        @Label("From")
+        public String from;
+
+        @Label("To")
+        public String to;
+    }
+
+    @Name("memorygame.GameOver")
+    @Label("Game Over")
+    @Category({CATEGORY, "Gameplay"})
+    @StackTrace(false)
+    public static class GameOver extends Event {
+        @Label("Winner")
+        public String winner;
+
+        @Label("Player 1 Score")
+        public int score1;
+
+        @Label("Player 2 Score")
+        public int score2;
+
+        @Label("Moves")
+        public int moves;
+
+        @Label("Cards")
+        public int cards;
+
+        @Label("Game Duration")
+        @Timespan(Timespan.MILLISECONDS)
+        public long gameMillis;
+    }
+
+    @Name("memorygame.ScorePersist")
+    @Label("Score Persistence")
+    @Category({CATEGORY, "I/O"})
+    @Threshold("0 ms")
+    public static class ScorePersist extends Event {
+        @Label("Store")
+        @Description("highscores or playerstats")
+        public String store;
+
+        @Label("Player")
+        public String player;
+
+        @Label("Saved")
+        public boolean saved;
+    }
+}
@@ -0,0 +1,136 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of durations in nanoseconds: 16 buckets per power of two,
+ * so every reported value is within 6% of the recorded one.
+ * Recording is a few atomic increments and never allocates; any number of threads
+ * can record while another reads or drains it.
+ */
+public class LatencyHistogram {
+    public static final int BUCKETS = 60 * 16;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * The value below which the given fraction (e.g. 0.99) of all recorded values fall.
+     */
+    public long getPercentile(double fraction) {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return percentile(snapshot, fraction);
+    }
+
+    /**
+     * Adds the bucket counts recorded since the last drain to the array and resets them
+     * (count, mean and max keep covering everything recorded).
+     * @param into BUCKETS counters.
+     */
+    public void drainTo(long[] into) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts.get(i) != 0) into[i] += counts.getAndSet(i, 0);
+        }
+    }
+
+    /**
+     * Number of values in one bucket (0 to BUCKETS - 1), e.g. to persist the histogram.
+     */
+    public long getBucketCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /**
+     * Adds values recorded elsewhere, e.g. a persisted histogram.
+     * @param bucketCounts BUCKETS counters.
+     * @param sum Sum of those values.
+     * @param max Largest of those values.
+     */
+    public void add(long[] bucketCounts, long sum, long max) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (bucketCounts[i] == 0) continue;
+            counts.addAndGet(i, bucketCounts[i]);
+            count.add(bucketCounts[i]);
+        }
+        this.sum.add(sum);
+        this.max.accumulate(max);
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * The value below which the given fraction of the counted values fall.
+     * @param counts Bucket counters, e.g. filled by drainTo.
+     */
+    public static long percentile(long[] counts, double fraction) {
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    // --- Private Helper Methods ---
+
+    private static int bucket(long value) {
+        if (value < 16) return (int) value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        return (exp - 3) * 16 + (int) ((value >>> (exp - 4)) & 15);
+    }
+
+    /**
+     * Largest value that falls into a bucket.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < 16) return bucket;
+        int exp = bucket / 16 + 3;
+        return ((16L + bucket % 16 + 1) << (exp - 4)) - 1;
+    }
+}
@@ -0,0 +1,291 @@
+package util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Score history kept as fixed-size records in a memory-mapped file.
+ * Records are stored sorted by score (highest first), so rank queries are a
+ * binary search over the mapping and never load the history onto the heap.
+ *
+ * File layout:
+ * - Header (16 bytes): magic, format version, record count, reserved.
+ * - Records (64 bytes each): score, grid size, name length, timestamp, UTF-8 name.
+ */
+public class MappedScoreStore {
+    private static final int MAGIC = 0x4D4D4853; // "MMHS"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+
+    static final int RECORD_SIZE = 64;
+    private static final int NAME_OFFSET = 16;
+    private static final int MAX_NAME_BYTES = RECORD_SIZE - NAME_OFFSET;
+
+    private static final int MIN_CAPACITY = 1024;   // records
+    private static final int MOVE_CHUNK = 64 * 1024; // bytes copied per step when shifting records
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity; // number of records the current mapping can hold
+    private int count;
+
+    /**
+     * Opens (or creates) the store at the given path.
+     * @param path Location of the binary score file.
+     * @throws IOException if the file cannot be opened or is not a score store.
+     */
+    public MappedScoreStore(String path) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+
+        if (channel.size() < HEADER_SIZE) {
+            // Fresh file: write the header and map the initial capacity
+            map(MIN_CAPACITY);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(COUNT_OFFSET, 0);
+            this.count = 0;
+        } else {
+            map((int) Math.max(MIN_CAPACITY, (channel.size() - HEADER_SIZE) / RECORD_SIZE));
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                close();
+                throw new IOException("Not a score store (or unsupported version): " + path);
+            }
+            this.count = buffer.getInt(COUNT_OFFSET);
+        }
+    }
+
+    /**
+     * Inserts a record at its sorted position, shifting lower scores down by one slot.
+     * Entries with an equal score keep their order, so the newest one goes last.
+     * @return The 1-based rank of the inserted score.
+     */
+    public synchronized int insert(ScoreRecord record) throws IOException {
+        if (count == capacity) {
+            map(capacity * 2);
+        }
+
+        int pos = upperBound(record.getScore());
+        shiftDown(pos);
+        writeRecord(pos, record);
+
+        count++;
+        buffer.putInt(COUNT_OFFSET, count);
+        return rank(record.getScore());
+    }
+
+    /**
+     * Returns the 1-based rank a score would have in the history.
+     * Equal scores share the same rank.
+     */
+    public synchronized int rank(int score) {
+        return lowerBound(score) + 1;
+    }
+
+    /**
+     * Number of records currently stored.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Reads the record at the given position (0 = highest score).
+     */
+    public synchronized ScoreRecord get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + count);
+        }
+        return readRecord(index);
+    }
+
+    /**
+     * Reads the score stored at the given position without decoding the rest of the record.
+     */
+    public synchronized int scoreAt(int index) {
+        return buffer.getInt(offset(index));
+    }
+
+    /**
+     * Reads the grid size stored at the given position.
+     */
+    public synchronized int gridSizeAt(int index) {
+        return buffer.get(offset(index) + 4);
+    }
+
+    /**
+     * Reads the timestamp stored at the given position.
+     */
+    public synchronized long timestampAt(int index) {
+        return buffer.getLong(offset(index) + 8);
+    }
+
+    /**
+     * Tells whether an identical record (score, grid size, timestamp and name) is stored.
+     * Only the run of equal scores is scanned, and names are decoded only on a timestamp match.
+     */
+    public synchronized boolean contains(ScoreRecord record) {
+        int score = record.getScore();
+        for (int i = lowerBound(score), end = upperBound(score); i < end; i++) {
+            if (timestampAt(i) == record.getTimestamp() && gridSizeAt(i) == record.getGridSize()
+                    && readRecord(i).getName().equals(record.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks up changes another process made to the same file:
+     * re-reads the record count and remaps if the file has grown.
+     */
+    public synchronized void reload() throws IOException {
+        long fileRecords = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        if (fileRecords > capacity) {
+            map((int) fileRecords);
+        }
+        this.count = buffer.getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * Flushes pending changes of the mapping to the storage device.
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    public synchronized void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * (Re)maps the file so that it can hold the requested number of records.
+     */
+    private void map(int newCapacity) throws IOException {
+        long length = HEADER_SIZE + (long) newCapacity * RECORD_SIZE;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        this.capacity = newCapacity;
+    }
+
+    /**
+     * First position whose score is lower than the given one (insertion point).
+     */
+    private int upperBound(int score) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (scoreAt(mid) >= score) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * First position whose score is lower than or equal to the given one.
+     */
+    private int lowerBound(int score) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (scoreAt(mid) > score) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Moves records [pos, count) one slot towards the end of the file.
+     * Copies in chunks starting from the tail so the regions never overwrite each other.
+     */
+    private void shiftDown(int pos) {
+        int start = offset(pos);
+        int end = offset(count);
+        byte[] chunk = new byte[Math.min(MOVE_CHUNK, Math.max(0, end - start))];
+
+        while (end > start) {
+            int len = Math.min(chunk.length, end - start);
+            int from = end - len;
+            ByteBuffer src = buffer.duplicate();
+            src.position(from);
+            src.get(chunk, 0, len);
+
+            ByteBuffer dst = buffer.duplicate();
+            dst.position(from + RECORD_SIZE);
+            dst.put(chunk, 0, len);
+            end = from;
+        }
+    }
+
+    private void writeRecord(int index, ScoreRecord record) {
+        ByteBuffer dst = buffer.duplicate();
+        dst.position(offset(index));
+        encode(record, dst);
+    }
+
+    private ScoreRecord readRecord(int index) {
+        ByteBuffer src = buffer.duplicate();
+        src.position(offset(index));
+        return decode(src);
+    }
+
+    /**
+     * Writes one record at the buffer's position and advances it by RECORD_SIZE.
+     * Shared with the append-only segments so both use the same on-disk layout.
+     */
+    static void encode(ScoreRecord record, ByteBuffer dst) {
+        int base = dst.position();
+        byte[] name = encodeName(record.getName());
+
+        dst.putInt(record.getScore());
+        dst.put((byte) record.getGridSize());
+        dst.put((byte) name.length);
+        dst.putShort((short) 0);
+        dst.putLong(record.getTimestamp());
+        dst.put(name);
+        dst.position(base + RECORD_SIZE);
+    }
+
+    /**
+     * Reads one record at the buffer's position and advances it by RECORD_SIZE.
+     */
+    static ScoreRecord decode(ByteBuffer src) {
+        int base = src.position();
+        int score = src.getInt();
+        int gridSize = src.get();
+        int nameLength = src.get() & 0xFF;
+        src.getShort();
+        long timestamp = src.getLong();
+
+        byte[] name = new byte[nameLength];
+        src.get(name);
+        src.position(base + RECORD_SIZE);
+        return new ScoreRecord(new String(name, StandardCharsets.UTF_8), score, gridSize, timestamp);
+    }
+
+    /**
+     * Encodes a name as UTF-8, truncating on a character boundary if it does not fit the record.
+     */
+    private static byte[] encodeName(String name) {
+        String value = name;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        while (bytes.length > MAX_NAME_BYTES) {
+            value = value.substring(0, value.length() - 1);
+            bytes = value.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    private static int offset(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,141 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of counters, latency histograms and gauges, each published
+ * as an MXBean under "memorygame:type=...,name=..." so JConsole or any JMX client
+ * can read them from a running game.
+ *
+ * Metrics are created on first use and kept for the life of the process; hot paths
+ * should look them up once into a static field. Counters are striped (LongAdder), so
+ * threads counting at the same time do not contend. Publishing happens on a
+ * background thread: starting the platform MBean server takes a few hundred
+ * milliseconds, which the first metric (used during startup) would otherwise add to
+ * the time until the menu shows.
+ *
+ * Names in use: deck.build, image.decode, image.scale, ai.move, ui.refresh,
+ * board.build, screen.build, animation.frame, score.read, score.write, edt.stall,
+ * move.{reveal,think,ai}.NxN (histograms, ns), render.quality.changes,
+ * board.buttons.{created,reused} (counters) and images.heapBytes, render.quality,
+ * startup.millis (gauges).
+ */
+public final class Metrics {
+    private static final String DOMAIN = "memorygame";
+
+    private static final Map<String, Object> metrics = new ConcurrentHashMap<>();
+    private static final ExecutorService publisher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "metrics-jmx");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface HistogramMXBean {
+        long getCount();
+        double getMeanMillis();
+        double getP50Millis();
+        double getP99Millis();
+        double getP999Millis();
+        double getMaxMillis();
+        void reset();
+    }
+
+    public interface GaugeMXBean {
+        long getValue();
+    }
+
+    /**
+     * A striped event counter.
+     */
+    public static final class Counter implements CounterMXBean {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+
+    private Metrics() {}
+
+    public static Counter counter(String name) {
+        return (Counter) metrics.computeIfAbsent("Counter:" + name, key -> register("Counter", name, new Counter()));
+    }
+
+    /**
+     * Histogram of durations in nanoseconds; JMX shows them in milliseconds.
+     */
+    public static LatencyHistogram histogram(String name) {
+        HistogramBean bean = (HistogramBean) metrics.computeIfAbsent("Histogram:" + name,
+                key -> register("Histogram", name, new HistogramBean()));
+        return bean.histogram;
+    }
+
+    /**
+     * Publishes a value computed when it is read, replacing any gauge of the same name.
+     * The supplier may be called on any thread.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        GaugeBean bean = (GaugeBean) metrics.computeIfAbsent("Gauge:" + name, key -> register("Gauge", name, new GaugeBean()));
+        bean.value = value;
+    }
+
+    // --- Private Helper Methods ---
+
+    private static final class HistogramBean implements HistogramMXBean {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        @Override public long getCount() { return histogram.getCount(); }
+        @Override public double getMeanMillis() { return histogram.getMean() / 1e6; }
+        @Override public double getP50Millis() { return histogram.getPercentile(0.50) / 1e6; }
+        @Override public double getP99Millis() { return histogram.getPercentile(0.99) / 1e6; }
+        @Override public double getP999Millis() { return histogram.getPercentile(0.999) / 1e6; }
+        @Override public double getMaxMillis() { return histogram.getMax() / 1e6; }
+        @Override public void reset() { histogram.reset(); }
+    }
+
+    private static final class GaugeBean implements GaugeMXBean {
+        volatile LongSupplier value = () -> 0;
+
+        @Override
+        public long getValue() {
+            return value.getAsLong();
+        }
+    }
+
+    /**
+     * Queues the bean for publishing and returns it right away.
+     */
+    private static Object register(String type, String name, Object bean) {
+        publisher.execute(() -> {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(bean, new ObjectName(DOMAIN + ":type=" + type + ",name=" + name));
+            } catch (JMException | RuntimeException e) {
+                e.printStackTrace(); // The metric still works, it is just not visible over JMX
+            }
+        });
+        return bean;
+    }
+}
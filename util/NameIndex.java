@@ -0,0 +1,93 @@
+package util;
+
+import java.util.*;
+
+/**
+ * Sorted, case-insensitive index over every player name in the score history.
+ * Names are kept in a TreeMap, so a prefix lookup is a range scan that stops after
+ * the requested number of players. Each entry holds the player's results (highest
+ * score first) in primitive arrays, and the index is updated one record at a time
+ * as scores are merged.
+ */
+class NameIndex {
+    private final TreeMap<String, Entry> names = new TreeMap<>();
+
+    /**
+     * Per-player data: display name and results sorted by score, highest first.
+     * Score, grid size and finish time of a result share one index.
+     */
+    static class Entry {
+        final String name;
+        int[] scores = new int[2];
+        byte[] gridSizes = new byte[2];
+        long[] timestamps = new long[2];
+        int count;
+
+        Entry(String name) {
+            this.name = name;
+        }
+
+        void add(ScoreRecord record) {
+            if (count == scores.length) {
+                scores = Arrays.copyOf(scores, count * 2);
+                gridSizes = Arrays.copyOf(gridSizes, count * 2);
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+            }
+            // Insertion keeps the arrays sorted (highest first) without a full sort
+            int i = count++;
+            while (i > 0 && scores[i - 1] < record.getScore()) {
+                scores[i] = scores[i - 1];
+                gridSizes[i] = gridSizes[i - 1];
+                timestamps[i] = timestamps[i - 1];
+                i--;
+            }
+            scores[i] = record.getScore();
+            gridSizes[i] = (byte) record.getGridSize();
+            timestamps[i] = record.getTimestamp();
+        }
+
+        /**
+         * The player's results, highest score first.
+         */
+        ScoreRecord[] records() {
+            ScoreRecord[] records = new ScoreRecord[count];
+            for (int i = 0; i < count; i++) {
+                records[i] = new ScoreRecord(name, scores[i], gridSizes[i], timestamps[i]);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Records one result of a player.
+     */
+    void add(ScoreRecord record) {
+        names.computeIfAbsent(key(record.getName()), k -> new Entry(record.getName())).add(record);
+    }
+
+    /**
+     * Returns up to limit players whose name starts with the prefix (ignoring case),
+     * in alphabetical order.
+     */
+    List<Entry> search(String prefix, int limit) {
+        List<Entry> result = new ArrayList<>();
+        String from = prefix.toLowerCase(Locale.ROOT);
+        for (Entry entry : names.tailMap(from, true).values()) {
+            if (result.size() >= limit || !key(entry.name).startsWith(from)) break;
+            result.add(entry);
+        }
+        return result;
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    /**
+     * Lower-case name first so prefix ranges are contiguous; the original name
+     * is appended so "Bob" and "bob" stay separate players.
+     */
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT) + '\0' + name;
+    }
+}
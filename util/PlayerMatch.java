@@ -0,0 +1,49 @@
+package util;
+
+/**
+ * One player found by a leaderboard name search.
+ * Carries the player's best overall rank and every result they have recorded.
+ */
+public class PlayerMatch {
+    private final String name;
+    private final int bestRank;
+    private final ScoreRecord[] records; // highest score first
+
+    public PlayerMatch(String name, int bestRank, ScoreRecord[] records) {
+        this.name = name;
+        this.bestRank = bestRank;
+        this.records = records;
+    }
+
+    // --- Getters ---
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBestRank() {
+        return bestRank;
+    }
+
+    /**
+     * The player's highest-scoring result (grid size and date included), or null if none.
+     */
+    public ScoreRecord getBest() {
+        return records.length > 0 ? records[0] : null;
+    }
+
+    public int getBestScore() {
+        return records.length > 0 ? records[0].getScore() : 0;
+    }
+
+    public int getGames() {
+        return records.length;
+    }
+
+    /**
+     * Every result of the player, highest score first.
+     */
+    public ScoreRecord[] getRecords() {
+        return records;
+    }
+}
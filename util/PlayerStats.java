@@ -0,0 +1,108 @@
+package util;
+
+/**
+ * Lifetime statistics of one player, kept as running totals so they can be
+ * updated after every game without looking at earlier games again.
+ */
+public class PlayerStats {
+    static final int MAX_GRID = 10; // largest supported board dimension
+
+    private final String name;
+    private int games;
+    private int wins;
+    private long moves;
+    private long pairs;
+    private final int[] bestTimes = new int[MAX_GRID + 1]; // millis per grid size, 0 = never won
+
+    public PlayerStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Adds one finished game to the totals.
+     * @param won true if this player won the game.
+     * @param gameMoves Moves the player made during the game.
+     * @param gamePairs Pairs the player found during the game.
+     * @param gridSize Board dimension of the game.
+     * @param durationMillis How long the game took.
+     */
+    void recordGame(boolean won, int gameMoves, int gamePairs, int gridSize, long durationMillis) {
+        games++;
+        moves += gameMoves;
+        pairs += gamePairs;
+        if (won) {
+            wins++;
+            if (gridSize > 0 && gridSize <= MAX_GRID) {
+                int time = (int) Math.min(Integer.MAX_VALUE, durationMillis);
+                if (bestTimes[gridSize] == 0 || time < bestTimes[gridSize]) {
+                    bestTimes[gridSize] = time;
+                }
+            }
+        }
+    }
+
+    // --- Getters ---
+
+    public String getName() {
+        return name;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Share of games won, between 0 and 1.
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * Average number of moves needed per pair found (lower is better), 0 if no pair was found yet.
+     */
+    public double getAverageMovesPerPair() {
+        return pairs == 0 ? 0 : (double) moves / pairs;
+    }
+
+    /**
+     * Fastest winning game on the given board size in millis, or 0 if the player never won on it.
+     */
+    public int getBestTime(int gridSize) {
+        return gridSize > 0 && gridSize <= MAX_GRID ? bestTimes[gridSize] : 0;
+    }
+
+    // --- Persistence helpers used by StatsManager ---
+
+    void setTotals(int games, int wins, long moves, long pairs) {
+        this.games = games;
+        this.wins = wins;
+        this.moves = moves;
+        this.pairs = pairs;
+    }
+
+    void setBestTime(int gridSize, int millis) {
+        if (gridSize > 0 && gridSize <= MAX_GRID) {
+            bestTimes[gridSize] = millis;
+        }
+    }
+
+    PlayerStats copy() {
+        PlayerStats copy = new PlayerStats(name);
+        copy.setTotals(games, wins, moves, pairs);
+        System.arraycopy(bestTimes, 0, copy.bestTimes, 0, bestTimes.length);
+        return copy;
+    }
+}
@@ -0,0 +1,89 @@
+package util;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+
+/**
+ * Rendering quality profiles, from the full look down to what a slow machine can
+ * animate smoothly on a big board. A profile sets:
+ * - the animation frame interval (card flips)
+ * - the interpolation and rendering hints used while painting animation frames
+ * - the algorithm used to scale card faces (see view.ScaledImageCache)
+ * - whether cards react to the mouse hovering over them
+ * - the theme extras: Cyberpunk glitch and neon pulse, Sapphire card zoom
+ */
+public enum RenderQuality {
+    HIGH("High", 25, RenderingHints.VALUE_INTERPOLATION_BICUBIC, Image.SCALE_SMOOTH, true, true),
+    MEDIUM("Medium", 40, RenderingHints.VALUE_INTERPOLATION_BILINEAR, Image.SCALE_SMOOTH, true, false),
+    LOW("Low", 80, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR, Image.SCALE_FAST, false, false);
+
+    private final String label;
+    private final int frameMillis;
+    private final Object interpolation;
+    private final int scaleHint;
+    private final boolean hoverEffects;
+    private final boolean themeExtras;
+
+    RenderQuality(String label, int frameMillis, Object interpolation, int scaleHint,
+                  boolean hoverEffects, boolean themeExtras) {
+        this.label = label;
+        this.frameMillis = frameMillis;
+        this.interpolation = interpolation;
+        this.scaleHint = scaleHint;
+        this.hoverEffects = hoverEffects;
+        this.themeExtras = themeExtras;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Time between two animation frames.
+     */
+    public int getFrameMillis() {
+        return frameMillis;
+    }
+
+    /**
+     * The Image.getScaledInstance hint for card faces.
+     */
+    public int getScaleHint() {
+        return scaleHint;
+    }
+
+    public boolean isHoverEffects() {
+        return hoverEffects;
+    }
+
+    public boolean isThemeExtras() {
+        return themeExtras;
+    }
+
+    /**
+     * Sets the interpolation and rendering hints of this profile.
+     */
+    public void applyHints(Graphics2D g2) {
+        boolean quality = this != LOW;
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING,
+                quality ? RenderingHints.VALUE_RENDER_QUALITY : RenderingHints.VALUE_RENDER_SPEED);
+        g2.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION,
+                quality ? RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY : RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);
+    }
+
+    /**
+     * The next cheaper profile, or this one if it is already the cheapest.
+     */
+    public RenderQuality lower() {
+        return this == LOW ? LOW : values()[ordinal() + 1];
+    }
+
+    /**
+     * The next better profile, or this one if it is already the best.
+     */
+    public RenderQuality higher() {
+        return this == HIGH ? HIGH : values()[ordinal() - 1];
+    }
+}
@@ -2,66 +2,251 @@ package util;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
 
 /**
- * Utility class to handle reading and writing high scores to a text file.
- * Keeps track of the top 10 players and ensures data persistence.
+ * Utility class to handle reading and writing high scores.
+ * Every result is kept in a memory-mapped, score-sorted history so the leaderboard
+ * and a player's overall rank can be read without loading the history.
+ * The history lives in a directory that several game processes can share.
+ * Saving a score and reading its rank never wait for other processes; writing the
+ * score and folding it into the shared history happen on a background thread.
  */
 public class ScoreManager {
-    // The file where scores are stored locally
+    // The shared score directory (per-process segments + merged history)
+    private static final String STORE_DIR = "scores";
+    // The legacy text file (Name;Score), imported once when the history is created
     private static final String FILE_PATH = "highscores.txt";
 
+    private static SegmentedScoreStore store;
+
+    // Saves scores and merges them into the shared history; a merge cut off at exit is redone next run
+    private static final ExecutorService merger = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "score-merge");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicBoolean mergeQueued = new AtomicBoolean();
+
+    private static final LatencyHistogram READ_TIME = Metrics.histogram("score.read");
+    private static final LatencyHistogram WRITE_TIME = Metrics.histogram("score.write");
+
     /**
-     * Saves a new score to the high scores file.
-     * The method loads existing scores, adds the new one, sorts them,
-     * trims the list to the top 10, and saves everything back to the file.
-     * * @param name The player's name.
+     * Saves a new score into the shared history on the background thread, so the
+     * caller (usually the EDT) never waits for the disk or for opening the store.
+     * The score is appended to this process' own segment first, so concurrent
+     * games finishing at the same moment never overwrite each other. The rank is
+     * read from the history as merged so far, then the score is merged.
+     * @param name The player's name.
      * @param score The score achieved.
+     * @param gridSize The board dimension the game was played on (e.g., 4 for 4x4).
+     * @param onSaved Called on the background thread once the score is on disk, with its
+     *                1-based rank, or -1 if it could not be saved.
+     */
+    public static void saveScore(String name, int score, int gridSize, IntConsumer onSaved) {
+        long time = System.currentTimeMillis();
+        merger.execute(() -> {
+            int rank = append(new ScoreRecord(name, score, gridSize, time));
+            onSaved.accept(rank);
+            if (rank > 0) {
+                try {
+                    getStore().merge();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the 1-based rank a score holds among all recorded scores.
+     * Merges first, which may wait for other processes; call from a background thread.
      */
-    public static void saveScore(String name, int score) {
-        List<ScoreEntry> scores = loadScores();
-        
-        // Add the new score
-        scores.add(new ScoreEntry(name, score));
-        
-        // Sort by score in descending order (Highest first)
-        scores.sort((s1, s2) -> Integer.compare(s2.score, s1.score));
-        
-        // Keep only the top 10 scores
-        if (scores.size() > 10) {
-            scores = scores.subList(0, 10);
+    public static int getRank(int score) {
+        long start = System.nanoTime();
+        try {
+            SegmentedScoreStore s = getStore();
+            if (s == null) return -1;
+
+            try {
+                return s.rank(score);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return -1;
+            }
+        } finally {
+            READ_TIME.record(System.nanoTime() - start);
         }
-        
-        // Save the updated list back to disk
-        writeScores(scores);
     }
 
     /**
-     * Retrieves the top scores formatted for the UI.
-     * Used by HighScoresPanel to populate the table.
-     * * @return A list of String arrays, where index 0 is Name and index 1 is Score.
+     * Returns the number of scores recorded so far: those merged into the shared history
+     * plus the ones this process saved since. Never waits for a merge.
      */
-    public static List<String[]> getTopScores() {
-        List<ScoreEntry> scores = loadScores();
-        List<String[]> formattedList = new ArrayList<>();
-        
-        // Convert internal objects to String arrays for JTable compatibility
-        for (ScoreEntry entry : scores) {
-            formattedList.add(new String[]{entry.name, String.valueOf(entry.score)});
+    public static int getTotalScores() {
+        long start = System.nanoTime();
+        try {
+            SegmentedScoreStore s = getStore();
+            if (s == null) return 0;
+
+            try {
+                return s.sizeUnmerged();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return 0;
+            }
+        } finally {
+            READ_TIME.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Lists the records matching a query, in the query's order.
+     * Used by the paged high score table; call from a background thread.
+     * @return Selection to pass to readScores (empty if the store is unavailable).
+     */
+    public static ScoreSelection selectScores(ScoreQuery query) {
+        long start = System.nanoTime();
+        try {
+            SegmentedScoreStore s = getStore();
+            if (s == null) return ScoreSelection.EMPTY;
+
+            try {
+                return s.select(query);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return ScoreSelection.EMPTY;
+            }
+        } finally {
+            READ_TIME.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reads one window of records listed by selectScores.
+     * @param ranks Receives the overall rank of each returned record.
+     * @return The records, or null if new scores were merged since the selection was
+     *         made; select again for the current history.
+     */
+    public static ScoreRecord[] readScores(ScoreSelection selection, int from, int count, int[] ranks) {
+        long start = System.nanoTime();
+        try {
+            SegmentedScoreStore s = getStore();
+            if (s == null) return new ScoreRecord[0];
+
+            try {
+                return s.read(selection, from, count, ranks);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return new ScoreRecord[0];
+            }
+        } finally {
+            READ_TIME.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Finds players whose name starts with the given text (ignoring case).
+     * Fast enough to call on every keystroke once the name index is built: the index
+     * is searched as last merged, and a merge is queued in the background so scores
+     * other processes saved meanwhile show up in the following searches.
+     * @param limit Maximum number of players to return.
+     */
+    public static List<PlayerMatch> searchPlayers(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            SegmentedScoreStore s = getStore();
+            if (s == null) return new ArrayList<>();
+
+            try {
+                List<PlayerMatch> matches = s.searchNames(prefix, limit);
+                requestMerge(s);
+                return matches;
+            } catch (IOException e) {
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        } finally {
+            READ_TIME.record(System.nanoTime() - start);
         }
-        return formattedList;
     }
 
     // --- Private Helper Methods ---
 
     /**
-     * Reads the file and parses lines into ScoreEntry objects.
+     * Queues a merge on the merger thread unless one is already waiting.
      */
-    private static List<ScoreEntry> loadScores() {
-        List<ScoreEntry> scores = new ArrayList<>();
+    private static void requestMerge(SegmentedScoreStore s) {
+        if (!mergeQueued.compareAndSet(false, true)) return;
+        merger.execute(() -> {
+            mergeQueued.set(false);
+            try {
+                s.merge();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Appends a score to this process' segment and reads its rank. Runs on the merger thread.
+     * @return The 1-based rank, or -1 if the score could not be saved.
+     */
+    private static int append(ScoreRecord record) {
+        GameEvents.ScorePersist event = new GameEvents.ScorePersist();
+        event.begin();
+        long start = System.nanoTime();
+        int rank = -1;
+        SegmentedScoreStore s = getStore();
+        if (s != null) {
+            try {
+                s.append(record);
+                rank = s.rankUnmerged(record.getScore());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        WRITE_TIME.record(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.store = "highscores";
+            event.player = record.getName();
+            event.saved = rank > 0;
+            event.commit();
+        }
+        return rank;
+    }
+
+    /**
+     * Lazily opens the shared score directory. The store itself is thread-safe, so
+     * only opening it is synchronized here.
+     * The legacy text scores are imported only if the merged history does not exist yet.
+     * @return The store, or null if it could not be opened.
+     */
+    private static synchronized SegmentedScoreStore getStore() {
+        if (store != null) return store;
+
+        try {
+            store = new SegmentedScoreStore(STORE_DIR, loadLegacyScores());
+        } catch (IOException e) {
+            e.printStackTrace();
+            store = null;
+        }
+        return store;
+    }
+
+    /**
+     * Reads the legacy text file and parses lines into ScoreRecord objects.
+     */
+    private static List<ScoreRecord> loadLegacyScores() {
+        List<ScoreRecord> scores = new ArrayList<>();
         File file = new File(FILE_PATH);
 
-        // If file doesn't exist yet, return an empty list
+        // If file doesn't exist, there is nothing to import
         if (!file.exists()) {
             return scores;
         }
@@ -74,40 +259,13 @@ public class ScoreManager {
                 if (parts.length == 2) {
                     String name = parts[0];
                     int score = Integer.parseInt(parts[1]);
-                    scores.add(new ScoreEntry(name, score));
+                    scores.add(new ScoreRecord(name, score, 0, 0L));
                 }
             }
         } catch (IOException | NumberFormatException e) {
             e.printStackTrace();
         }
-        
-        return scores;
-    }
 
-    /**
-     * Writes the list of score objects to the file.
-     */
-    private static void writeScores(List<ScoreEntry> scores) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH))) {
-            for (ScoreEntry entry : scores) {
-                writer.write(entry.name + ";" + entry.score);
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Internal helper class to represent a single score record.
-     */
-    private static class ScoreEntry {
-        String name;
-        int score;
-
-        public ScoreEntry(String name, int score) {
-            this.name = name;
-            this.score = score;
-        }
+        return scores;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package util;
+
+import java.util.Objects;
+
+/**
+ * Immutable description of which score records to list and in what order.
+ * Used by the high score table to page through large histories.
+ */
+public class ScoreQuery {
+    public enum SortKey { SCORE, GRID, DATE }
+
+    private final int gridSize;  // 0 = all grid sizes
+    private final long from;     // inclusive epoch millis
+    private final long to;       // inclusive epoch millis
+    private final SortKey sortKey;
+    private final boolean ascending;
+
+    /**
+     * @param gridSize Only list games on this board size, or 0 for all sizes.
+     * @param from Earliest finish time to include (epoch millis).
+     * @param to Latest finish time to include (epoch millis).
+     * @param sortKey Field to order by; SCORE keeps the stored order.
+     * @param ascending true for lowest first, false for highest/newest first.
+     */
+    public ScoreQuery(int gridSize, long from, long to, SortKey sortKey, boolean ascending) {
+        this.gridSize = gridSize;
+        this.from = from;
+        this.to = to;
+        this.sortKey = sortKey;
+        this.ascending = ascending;
+    }
+
+    /**
+     * Every record, highest score first.
+     */
+    public static ScoreQuery all() {
+        return new ScoreQuery(0, Long.MIN_VALUE, Long.MAX_VALUE, SortKey.SCORE, false);
+    }
+
+    // --- Copy helpers used when the user changes a single option ---
+
+    public ScoreQuery withGridSize(int gridSize) {
+        return new ScoreQuery(gridSize, from, to, sortKey, ascending);
+    }
+
+    public ScoreQuery withDateRange(long from, long to) {
+        return new ScoreQuery(gridSize, from, to, sortKey, ascending);
+    }
+
+    public ScoreQuery withSort(SortKey sortKey, boolean ascending) {
+        return new ScoreQuery(gridSize, from, to, sortKey, ascending);
+    }
+
+    // --- Getters ---
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScoreQuery)) return false;
+        ScoreQuery other = (ScoreQuery) o;
+        return gridSize == other.gridSize && from == other.from && to == other.to
+                && sortKey == other.sortKey && ascending == other.ascending;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gridSize, from, to, sortKey, ascending);
+    }
+}
@@ -0,0 +1,37 @@
+package util;
+
+/**
+ * Immutable value object describing one recorded game result.
+ * Used by the score stores and the UI layers that display leaderboard data.
+ */
+public class ScoreRecord {
+    private final String name;
+    private final int score;
+    private final int gridSize;   // e.g., 4 for a 4x4 board, 0 if unknown (legacy entries)
+    private final long timestamp; // epoch millis when the game finished, 0 if unknown
+
+    public ScoreRecord(String name, int score, int gridSize, long timestamp) {
+        this.name = name;
+        this.score = score;
+        this.gridSize = gridSize;
+        this.timestamp = timestamp;
+    }
+
+    // --- Getters ---
+
+    public String getName() {
+        return name;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
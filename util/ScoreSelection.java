@@ -0,0 +1,56 @@
+package util;
+
+/**
+ * The records a ScoreQuery matched, as positions in the merged score history.
+ * Positions only hold for the history they were taken from: once more scores are
+ * merged, records move, so the selection remembers the history size it was made at
+ * and reading from it fails when that no longer matches (see SegmentedScoreStore.read).
+ *
+ * Every record in score order, the table's default view, is kept without a position
+ * array.
+ */
+public final class ScoreSelection {
+    static final ScoreSelection EMPTY = new ScoreSelection(null, new int[0], 0, false);
+
+    private final ScoreQuery query;
+    private final int[] positions; // null = every record in stored (score) order
+    private final int historySize;
+    private final boolean reversed;
+
+    ScoreSelection(ScoreQuery query, int[] positions, int historySize, boolean reversed) {
+        this.query = query;
+        this.positions = positions;
+        this.historySize = historySize;
+        this.reversed = reversed;
+    }
+
+    /**
+     * Every record of a history of the given size, highest score first (or last if reversed).
+     */
+    static ScoreSelection all(ScoreQuery query, int historySize, boolean reversed) {
+        return new ScoreSelection(query, null, historySize, reversed);
+    }
+
+    /**
+     * Number of records selected.
+     */
+    public int size() {
+        return positions == null ? historySize : positions.length;
+    }
+
+    /**
+     * History position of the i-th selected record.
+     */
+    int positionAt(int i) {
+        int index = reversed ? size() - 1 - i : i;
+        return positions == null ? index : positions[index];
+    }
+
+    ScoreQuery getQuery() {
+        return query;
+    }
+
+    int getHistorySize() {
+        return historySize;
+    }
+}
@@ -0,0 +1,610 @@
+package util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Score store that several game processes can share through one directory.
+ *
+ * Each process appends its results to its own segment file, which it keeps
+ * locked for its whole lifetime, so writers never wait on each other.
+ * Segments are folded into the sorted MappedScoreStore by a merger that only
+ * reads the bytes appended since the last merge. Only one process merges at a
+ * time (guarded by a lock on "merge.lock"), and readers merge before querying
+ * so every result any process has written is visible. The *Unmerged queries
+ * and name searches skip the merge and never wait for other processes.
+ *
+ * A merge notes what it is about to fold in before touching the history, so a
+ * merge cut short by a crash is redone without inserting any record twice.
+ * Once a segment is fully merged and its process is gone (its lock can be taken),
+ * the segment is deleted and dropped from merge.state, so neither grows with every run.
+ *
+ * Directory layout:
+ * - segment-PID.seg: append-only records in the MappedScoreStore record layout.
+ * - highscores.dat: the merged, score-sorted history.
+ * - merge.state: how many bytes of each segment are already merged (Segment;Offset),
+ *   plus how far a merge in progress goes (Segment;Offset;End).
+ */
+public class SegmentedScoreStore {
+    private static final String MERGED_FILE = "highscores.dat";
+    private static final String LOCK_FILE = "merge.lock";
+    private static final String STATE_FILE = "merge.state";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final File dir;
+    private final MappedScoreStore merged;
+    private final FileChannel lockChannel;
+
+    // This process' own segment (locked exclusively until close)
+    private final String segmentName;
+    private final FileChannel segmentChannel;
+    private final FileLock segmentLock;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(MappedScoreStore.RECORD_SIZE); // guarded by itself
+    private volatile long segmentMerged; // bytes of our own segment in the history
+
+    // Merge progress per segment file name, mirrored in merge.state
+    private final Map<String, Long> mergedOffsets = new HashMap<>();
+    // End of the records a merge is folding in; left behind only by a merge that died
+    private final Map<String, Long> mergingOffsets = new HashMap<>();
+
+    // Name search index, built on the first search and then updated as records are merged,
+    // here or by other processes. Searches only take nameLock, never the merge lock.
+    private final Object nameLock = new Object();
+    private NameIndex names; // guarded by nameLock; replaced only during a merge
+    private int indexedSize; // history size the index reflects
+    private final Map<String, Long> indexedOffsets = new HashMap<>(); // bytes of each segment in the index
+
+    // Answer to the last select, reused while the query and the history stay the same
+    private ScoreSelection lastSelection;
+
+    /**
+     * Opens the shared directory and claims a segment for this process.
+     * @param directory The shared score directory (created if missing).
+     * @param seed Scores to import when the merged history is created for the first time.
+     */
+    public SegmentedScoreStore(String directory, List<ScoreRecord> seed) throws IOException {
+        this.dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create score directory: " + dir);
+        }
+
+        this.lockChannel = FileChannel.open(new File(dir, LOCK_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        // Creating the merged file and importing the seed must happen only once across processes.
+        // Segments are claimed under the same lock, so a merge never deletes one being claimed.
+        FileLock mergeLock = lockChannel.lock();
+        try {
+            boolean isNew = !new File(dir, MERGED_FILE).exists();
+            this.merged = new MappedScoreStore(new File(dir, MERGED_FILE).getPath());
+            if (isNew) {
+                for (ScoreRecord record : seed) {
+                    merged.insert(record);
+                }
+                merged.force();
+            }
+            loadState();
+            if (retireSegments(listSegments())) {
+                saveState();
+            }
+
+            // Claim a segment; a stale file with our PID from an earlier run is continued
+            long pid = ProcessHandle.current().pid();
+            String name = null;
+            FileChannel channel = null;
+            FileLock lock = null;
+            for (int attempt = 0; lock == null; attempt++) {
+                name = SEGMENT_PREFIX + pid + (attempt == 0 ? "" : "-" + attempt) + SEGMENT_SUFFIX;
+                channel = FileChannel.open(new File(dir, name).toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                lock = channel.tryLock();
+                if (lock == null) {
+                    channel.close(); // Held by another process (e.g., same PID on another host)
+                }
+            }
+            // A run that crashed mid-append may have left part of a record at the tail
+            long size = channel.size();
+            channel.truncate(size - size % MappedScoreStore.RECORD_SIZE);
+            this.segmentName = name;
+            this.segmentChannel = channel;
+            this.segmentLock = lock;
+            segmentMerged = mergedOffsets.getOrDefault(segmentName, 0L);
+        } finally {
+            mergeLock.release();
+        }
+    }
+
+    /**
+     * Appends a score to this process' segment. Never waits for other processes,
+     * nor for a merge running in this one.
+     */
+    public void append(ScoreRecord record) throws IOException {
+        synchronized (recordBuffer) {
+            recordBuffer.clear();
+            MappedScoreStore.encode(record, recordBuffer);
+            recordBuffer.flip();
+            long position = segmentChannel.size(); // Only this process appends
+            while (recordBuffer.hasRemaining()) {
+                position += segmentChannel.write(recordBuffer, position);
+            }
+            segmentChannel.force(false);
+        }
+    }
+
+    /**
+     * Folds everything appended so far into the sorted history, and brings the name
+     * index up to date with what other processes merged.
+     */
+    public synchronized void merge() throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            mergeLocked();
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Merges everything appended so far and returns the 1-based rank of a score.
+     */
+    public synchronized int rank(int score) throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            mergeLocked();
+            return merged.rank(score);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Rank of a score in the history as merged so far: a binary search over the mapping,
+     * without merging or waiting for other processes. A score just appended already has
+     * its final rank here, since equal scores share a rank. A merge that another process
+     * is running at that moment may not be counted yet.
+     */
+    public int rankUnmerged(int score) throws IOException {
+        merged.reload();
+        return merged.rank(score);
+    }
+
+    /**
+     * Merges everything appended so far and returns the number of recorded scores.
+     */
+    public synchronized int size() throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            mergeLocked();
+            return merged.size();
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Number of scores in the history as merged so far plus those this process appended
+     * since, without merging or waiting for other processes. Scores other processes
+     * have not merged yet are not counted.
+     */
+    public int sizeUnmerged() throws IOException {
+        merged.reload();
+        long pending = (segmentChannel.size() - segmentMerged) / MappedScoreStore.RECORD_SIZE;
+        return merged.size() + (int) Math.max(0, pending);
+    }
+
+    /**
+     * Merges pending segments, then lists the records matching a query, in the query's
+     * sort order. Only the fixed fields are read, names are never decoded.
+     * The unfiltered score order needs no scan at all, and asking again for the
+     * last query returns the same selection as long as nothing was merged since.
+     * The selection can be read from until the next merge (see read).
+     */
+    public synchronized ScoreSelection select(ScoreQuery query) throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            mergeLocked();
+
+            int n = merged.size();
+            if (lastSelection != null && lastSelection.getHistorySize() == n
+                    && lastSelection.getQuery().equals(query)) {
+                return lastSelection;
+            }
+            boolean filtered = query.getGridSize() != 0
+                    || query.getFrom() != Long.MIN_VALUE || query.getTo() != Long.MAX_VALUE;
+            if (!filtered && query.getSortKey() == ScoreQuery.SortKey.SCORE) {
+                lastSelection = ScoreSelection.all(query, n, query.isAscending());
+                return lastSelection;
+            }
+
+            // Grown as matches are found, so a narrow filter never allocates for the whole history
+            int[] matches = new int[Math.min(n, 1024)];
+            int found = 0;
+            for (int i = 0; i < n; i++) {
+                if (query.getGridSize() != 0 && merged.gridSizeAt(i) != query.getGridSize()) continue;
+                long time = merged.timestampAt(i);
+                if (time < query.getFrom() || time > query.getTo()) continue;
+                if (found == matches.length) {
+                    matches = Arrays.copyOf(matches, Math.min(n, found * 2));
+                }
+                matches[found++] = i;
+            }
+            int[] positions = found == matches.length ? matches : Arrays.copyOf(matches, found);
+
+            if (query.getSortKey() != ScoreQuery.SortKey.SCORE) {
+                sortPositions(positions, query.getSortKey());
+            }
+            lastSelection = new ScoreSelection(query, positions, n, query.isAscending());
+            return lastSelection;
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Reads a window of records listed by select.
+     * @param selection Records returned by select.
+     * @param from First entry of the selection to read.
+     * @param ranks Receives the 1-based overall rank of each returned record.
+     * @return The records, or null if scores were merged since the selection was made
+     *         (its positions no longer hold; select again).
+     */
+    public synchronized ScoreRecord[] read(ScoreSelection selection, int from, int count, int[] ranks) throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            merged.reload(); // Another process may have merged since the selection was made
+            if (merged.size() != selection.getHistorySize()) return null;
+
+            int n = Math.max(0, Math.min(count, selection.size() - from));
+            ScoreRecord[] records = new ScoreRecord[n];
+            for (int i = 0; i < n; i++) {
+                records[i] = merged.get(selection.positionAt(from + i));
+                ranks[i] = merged.rank(records[i].getScore());
+            }
+            return records;
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Finds players whose name starts with a prefix in the history as merged so far.
+     * The first call merges and indexes the whole history; later calls only read the
+     * index and never wait for a merge or for other processes. Scores merged since are
+     * folded into the index by the next merge (see merge).
+     * @param limit Maximum number of players to return.
+     */
+    public List<PlayerMatch> searchNames(String prefix, int limit) throws IOException {
+        List<ScoreRecord[]> found = findNames(prefix, limit);
+        if (found == null) {
+            synchronized (this) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    mergeLocked();
+                    if (names == null) {
+                        buildNameIndex();
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+            found = findNames(prefix, limit);
+        }
+
+        List<PlayerMatch> result = new ArrayList<>();
+        for (ScoreRecord[] records : found) {
+            result.add(new PlayerMatch(records[0].getName(), merged.rank(records[0].getScore()), records));
+        }
+        return result;
+    }
+
+    /**
+     * Releases this process' segment. If every record of it is already in the history,
+     * the segment is deleted; otherwise the next merge by any process folds it in and
+     * deletes it then.
+     */
+    public synchronized void close() throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            loadState();
+            boolean done = !mergingOffsets.containsKey(segmentName)
+                    && segmentChannel.size() == mergedOffsets.getOrDefault(segmentName, 0L);
+            segmentLock.release();
+            segmentChannel.close();
+            if (done) {
+                Files.deleteIfExists(new File(dir, segmentName).toPath());
+                mergedOffsets.remove(segmentName);
+                saveState();
+            }
+        } finally {
+            lock.release();
+            lockChannel.close();
+            merged.close();
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Folds the unmerged tail of every segment into the sorted history.
+     * Must be called while holding the merge lock.
+     * merge.state first records how far the merge goes, then the records are
+     * inserted, then merge.state records them as merged. If the process dies in
+     * between, the next merge finds the range still marked and skips every record
+     * of it that is already in the history, so nothing is lost or counted twice.
+     */
+    private void mergeLocked() throws IOException {
+        merged.reload(); // Another process may have merged since our last look
+        loadState();
+        if (names != null && merged.size() != indexedSize) {
+            catchUpNameIndex(); // Records were merged elsewhere
+        }
+
+        File[] segments = listSegments();
+
+        // Only whole records; a concurrent append may still be in progress at the tail
+        Map<String, Long> targets = new HashMap<>();
+        for (File segment : segments) {
+            long available = segment.length() - (segment.length() % MappedScoreStore.RECORD_SIZE);
+            if (available > mergedOffsets.getOrDefault(segment.getName(), 0L)) {
+                targets.put(segment.getName(), available);
+            }
+        }
+        if (targets.isEmpty()) {
+            if (retireSegments(segments)) {
+                saveState();
+            }
+            return;
+        }
+
+        Map<String, Long> interrupted = new HashMap<>(mergingOffsets);
+        mergingOffsets.clear();
+        mergingOffsets.putAll(targets);
+        saveState();
+
+        for (Map.Entry<String, Long> target : targets.entrySet()) {
+            String name = target.getKey();
+            long done = mergedOffsets.getOrDefault(name, 0L);
+            long available = target.getValue();
+            long uncertain = interrupted.getOrDefault(name, done); // may be in the history already
+
+            ByteBuffer data = readSegment(name, done, available);
+            for (long offset = done; data.remaining() >= MappedScoreStore.RECORD_SIZE;
+                    offset += MappedScoreStore.RECORD_SIZE) {
+                ScoreRecord record = MappedScoreStore.decode(data);
+                if (offset < uncertain && merged.contains(record)) continue;
+                merged.insert(record);
+                if (names != null) {
+                    synchronized (nameLock) {
+                        names.add(record);
+                    }
+                    indexedSize++;
+                }
+            }
+            mergedOffsets.put(name, available);
+            if (names != null) {
+                indexedOffsets.put(name, available);
+            }
+        }
+
+        merged.force();
+        mergingOffsets.clear();
+        retireSegments(segments);
+        saveState();
+        segmentMerged = mergedOffsets.getOrDefault(segmentName, 0L);
+    }
+
+    /**
+     * Reads the bytes of a segment from one offset up to another (or its end).
+     * Our own segment is read through the channel holding its lock: on POSIX systems,
+     * closing any other channel to the file would release the lock, and other processes
+     * would take the segment for one whose process is gone (see retireSegments).
+     */
+    private ByteBuffer readSegment(String name, long from, long to) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate((int) (to - from));
+        if (name.equals(segmentName)) {
+            readFully(segmentChannel, data, from);
+        } else {
+            try (FileChannel in = FileChannel.open(new File(dir, name).toPath(), StandardOpenOption.READ)) {
+                readFully(in, data, from);
+            }
+        }
+        data.flip();
+        return data;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer data, long position) throws IOException {
+        while (data.hasRemaining()) {
+            int n = in.read(data, position);
+            if (n < 0) break;
+            position += n;
+        }
+    }
+
+    private File[] listSegments() {
+        File[] segments = dir.listFiles((d, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        return segments != null ? segments : new File[0];
+    }
+
+    /**
+     * Deletes the segments of processes that are gone once all their records are merged,
+     * and forgets segments that no longer exist. A process holds the lock on its segment
+     * until it exits, so getting the lock proves the owner gone. Must be called while
+     * holding the merge lock, which also keeps a new process from claiming the name meanwhile.
+     * @return true if the merge state changed (the caller saves it).
+     */
+    private boolean retireSegments(File[] segments) throws IOException {
+        Set<String> present = new HashSet<>();
+        for (File segment : segments) {
+            present.add(segment.getName());
+        }
+        boolean changed = mergedOffsets.keySet().removeIf(name -> !present.contains(name) && !mergingOffsets.containsKey(name));
+
+        for (File segment : segments) {
+            String name = segment.getName();
+            if (name.equals(segmentName) || mergingOffsets.containsKey(name)) continue;
+            long done = mergedOffsets.getOrDefault(name, 0L);
+            if (segment.length() != done) continue;
+
+            try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+                FileLock lock = channel.tryLock();
+                if (lock == null) continue; // Its process is still running
+                boolean unchanged = channel.size() == done;
+                lock.release();
+                if (!unchanged) continue;
+            } catch (OverlappingFileLockException e) {
+                continue; // Owned by another store in this process
+            }
+            Files.deleteIfExists(segment.toPath());
+            mergedOffsets.remove(name);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Indexes every name in the merged history (one sequential pass).
+     * Must be called while holding the merge lock, right after a merge.
+     */
+    private void buildNameIndex() {
+        NameIndex index = new NameIndex();
+        int n = merged.size();
+        for (int i = 0; i < n; i++) {
+            ScoreRecord record = merged.get(i);
+            index.add(record);
+        }
+        synchronized (nameLock) {
+            names = index;
+        }
+        indexedSize = n;
+        indexedOffsets.clear();
+        indexedOffsets.putAll(mergedOffsets);
+    }
+
+    /**
+     * Adds the records other processes merged since the index last saw the history:
+     * per segment, the bytes between what the index holds and what merge.state marks
+     * as merged. The history itself is sorted by score, so those records cannot be
+     * found there. If the index still disagrees with the history (e.g., a segment was
+     * deleted before its last records were seen), it is built again.
+     * Must be called while holding the merge lock, with merge.state just loaded.
+     */
+    private void catchUpNameIndex() throws IOException {
+        indexedOffsets.keySet().retainAll(mergedOffsets.keySet());
+        for (Map.Entry<String, Long> entry : mergedOffsets.entrySet()) {
+            String name = entry.getKey();
+            long from = indexedOffsets.getOrDefault(name, 0L);
+            long to = entry.getValue();
+            if (to <= from) continue;
+
+            ByteBuffer data;
+            try {
+                data = readSegment(name, from, to);
+            } catch (NoSuchFileException e) {
+                continue; // Deleted meanwhile; the size check below rebuilds
+            }
+            synchronized (nameLock) {
+                while (data.remaining() >= MappedScoreStore.RECORD_SIZE) {
+                    names.add(MappedScoreStore.decode(data));
+                    indexedSize++;
+                }
+            }
+            indexedOffsets.put(name, to);
+        }
+        if (indexedSize != merged.size()) {
+            buildNameIndex();
+        }
+    }
+
+    /**
+     * Results of the players matching a prefix, each highest score first.
+     * @return null if the index has not been built yet.
+     */
+    private List<ScoreRecord[]> findNames(String prefix, int limit) {
+        synchronized (nameLock) {
+            if (names == null) return null;
+            List<ScoreRecord[]> found = new ArrayList<>();
+            for (NameIndex.Entry entry : names.search(prefix, limit)) {
+                found.add(entry.records());
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Sorts positions by grid size or date (descending), keeping score order for ties.
+     * Each position is packed with its key into one long so a primitive sort can be used.
+     */
+    private void sortPositions(int[] positions, ScoreQuery.SortKey key) {
+        long minTime = Long.MAX_VALUE;
+        if (key == ScoreQuery.SortKey.DATE) {
+            for (int p : positions) minTime = Math.min(minTime, merged.timestampAt(p));
+        }
+
+        long[] packed = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            int p = positions[i];
+            long k = key == ScoreQuery.SortKey.GRID
+                    ? merged.gridSizeAt(p)
+                    : (merged.timestampAt(p) - minTime) / 1000; // seconds fit in 31 bits for decades
+            // Invert the key so the ascending primitive sort yields descending order
+            packed[i] = ((Integer.MAX_VALUE - Math.min(k, Integer.MAX_VALUE)) << 32) | p;
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < packed.length; i++) {
+            positions[i] = (int) packed[i];
+        }
+    }
+
+    /**
+     * Reads merge.state (Segment;Offset or Segment;Offset;End per line).
+     */
+    private void loadState() throws IOException {
+        mergedOffsets.clear();
+        mergingOffsets.clear();
+        File file = new File(dir, STATE_FILE);
+        if (!file.exists()) return;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(";");
+                if (parts.length == 2 || parts.length == 3) {
+                    mergedOffsets.put(parts[0], Long.parseLong(parts[1]));
+                }
+                if (parts.length == 3) {
+                    mergingOffsets.put(parts[0], Long.parseLong(parts[2]));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt merge state: " + file, e);
+        }
+    }
+
+    /**
+     * Rewrites merge.state through a temporary file so readers never see a partial file.
+     */
+    private void saveState() throws IOException {
+        File tmp = new File(dir, STATE_FILE + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp))) {
+            for (Map.Entry<String, Long> entry : mergedOffsets.entrySet()) {
+                Long end = mergingOffsets.get(entry.getKey());
+                writer.write(entry.getKey() + ";" + entry.getValue() + (end == null ? "" : ";" + end));
+                writer.newLine();
+            }
+            for (Map.Entry<String, Long> entry : mergingOffsets.entrySet()) {
+                if (!mergedOffsets.containsKey(entry.getKey())) {
+                    writer.write(entry.getKey() + ";0;" + entry.getValue());
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(tmp.toPath(), new File(dir, STATE_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
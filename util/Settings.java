@@ -2,10 +2,15 @@ package util;
 
 /**
  * Lightweight runtime settings holder.
- * Currently stores whether card flip animations are enabled.
+ * Currently stores whether card flip animations are enabled, the rendering quality
+ * (and whether it is picked automatically, see view.AdaptiveQuality) and how long
+ * the UI may be unresponsive before it counts as a freeze.
  */
 public class Settings {
     private static boolean animationsEnabled = true; // default
+    private static RenderQuality renderQuality = RenderQuality.HIGH;
+    private static boolean autoQuality = true; // adjust renderQuality to the measured frame times
+    private static volatile long stallThresholdMillis = 200; // read by the EDT watchdog thread
 
     public static boolean isAnimationsEnabled() {
         return animationsEnabled;
@@ -14,4 +19,31 @@ public class Settings {
     public static void setAnimationsEnabled(boolean enabled) {
         animationsEnabled = enabled;
     }
-}
\ No newline at end of file
+
+    /**
+     * The profile to render with right now; in auto mode it changes during play.
+     */
+    public static RenderQuality getRenderQuality() {
+        return renderQuality;
+    }
+
+    public static void setRenderQuality(RenderQuality quality) {
+        renderQuality = quality;
+    }
+
+    public static boolean isAutoQuality() {
+        return autoQuality;
+    }
+
+    public static void setAutoQuality(boolean auto) {
+        autoQuality = auto;
+    }
+
+    public static long getStallThresholdMillis() {
+        return stallThresholdMillis;
+    }
+
+    public static void setStallThresholdMillis(long millis) {
+        stallThresholdMillis = Math.max(1, millis);
+    }
+}
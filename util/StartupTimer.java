@@ -0,0 +1,57 @@
+package util;
+
+/**
+ * Times the phases of application startup, from main() to the first painted,
+ * usable menu, and logs them as one line, e.g.
+ * "Startup: 412 ms to interactive menu (edt 38, window 61, theme 9, menu 45, show 230, first paint 29)".
+ *
+ * Each phase() call closes the phase that ran since the previous call. The total is
+ * also published as the gauge startup.millis.
+ */
+public final class StartupTimer {
+    private static final long START = System.nanoTime(); // loaded first thing in main()
+
+    private static final StringBuilder phases = new StringBuilder();
+    private static long last = START;
+    private static long totalMillis = -1;
+
+    private StartupTimer() {}
+
+    /**
+     * Starts timing; call first thing in main().
+     */
+    public static void start() {
+        // Loading the class records the start time
+    }
+
+    /**
+     * Ends the current phase.
+     * @param name What ran since the previous phase (or since start).
+     */
+    public static synchronized void phase(String name) {
+        if (totalMillis >= 0) return; // Startup is over
+        long now = System.nanoTime();
+        if (phases.length() > 0) phases.append(", ");
+        phases.append(name).append(' ').append((now - last) / 1_000_000);
+        last = now;
+    }
+
+    /**
+     * Ends the last phase and logs the startup time; later calls do nothing.
+     * @param name The last phase.
+     */
+    public static synchronized void finish(String name) {
+        if (totalMillis >= 0) return;
+        phase(name);
+        totalMillis = (last - START) / 1_000_000;
+        Metrics.gauge("startup.millis", () -> totalMillis);
+        System.out.println("Startup: " + totalMillis + " ms to interactive menu (" + phases + ")");
+    }
+
+    /**
+     * Milliseconds from main() to the interactive menu, or -1 while starting up.
+     */
+    public static synchronized long getTotalMillis() {
+        return totalMillis;
+    }
+}
@@ -0,0 +1,407 @@
+package util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility class that keeps lifetime statistics for every player.
+ * Totals are kept in a HashMap, so reading one player's stats is a single lookup
+ * that never touches the disk.
+ *
+ * The stats live in the shared score directory as an append-only log: a finished
+ * game is appended as one record, so an update writes that game and nothing else.
+ * Once the log holds more games than there are players (plus a margin), it is
+ * compacted into one totals record per player.
+ *
+ * Finished games are written on a background thread under a file lock, so updates
+ * from other processes sharing the directory are never lost. The in-memory stats
+ * follow the file through refresh, which only looks at the file's size and
+ * modification time unless they changed, and then reads just the records appended
+ * since; a compaction by another process changes the header and is read in full.
+ * Updates still queued at exit are written by a shutdown hook.
+ *
+ * File layout: magic, version, generation (new with every compaction), then records,
+ * each an int length followed by the record:
+ * - TOTALS: type, name (UTF), games, wins, moves, pairs, number of best times, (grid size, millis)*
+ * - GAME: type, name (UTF), won, moves, pairs, grid size, duration millis
+ * Version 1 files (player count, then the TOTALS fields per player) are still read,
+ * and rewritten as a log by the first update.
+ */
+public class StatsManager {
+    private static final String STATS_PATH = "scores/playerstats.dat";
+    private static final String LOCK_PATH = "scores/playerstats.lock";
+    private static final int MAGIC = 0x4D4D5053; // "MMPS"
+    private static final int VERSION = 2;
+    private static final int LEGACY_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final byte TOTALS = 1;
+    private static final byte GAME = 2;
+    private static final int COMPACT_MARGIN = 256; // logged games beyond one per player before compacting
+    private static final long EXIT_WAIT_MILLIS = 2000;
+
+    // Last loaded stats; replaced as a whole, never modified once published
+    private static volatile Map<String, PlayerStats> stats = new HashMap<>();
+
+    // Java file locks belong to the whole process, so threads take turns here first
+    private static final Object fileAccess = new Object();
+
+    // The file as read so far, guarded by fileAccess. The totals are updated in place
+    // and published as copies.
+    private static final Map<String, PlayerStats> loaded = new HashMap<>();
+    private static long loadedGeneration = -1; // -1 = nothing read, 0 = version 1 file
+    private static long loadedOffset;          // end of the last whole record read
+    private static long loadedSize = -1;       // size and modification time at the last look
+    private static FileTime loadedModified;
+    private static int loggedGames;            // GAME records since the last compaction
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "stats-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(EXIT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "stats-flush"));
+    }
+
+    /**
+     * Adds one finished game to a player's totals. Returns at once; the file is
+     * updated in the background.
+     * @param name The player's name.
+     * @param won true if this player won the game.
+     * @param moves Moves the player made during the game.
+     * @param pairs Pairs the player found during the game.
+     * @param gridSize Board dimension of the game.
+     * @param durationMillis How long the game took.
+     */
+    public static void recordGame(String name, boolean won, int moves, int pairs,
+                                  int gridSize, long durationMillis) {
+        writer.execute(() -> update(name, won, moves, pairs, gridSize, durationMillis));
+    }
+
+    /**
+     * Picks up games recorded by other processes since the last look. Cheap when
+     * nothing changed (one file attribute read), but it does touch the disk, so
+     * call it from a background thread.
+     */
+    public static void refresh() {
+        synchronized (fileAccess) {
+            try {
+                publish(catchUp(false));
+            } catch (IOException e) {
+                e.printStackTrace(); // The last loaded stats are kept
+            }
+        }
+    }
+
+    /**
+     * Returns one player's lifetime stats as of the last refresh or update, or null
+     * if the player never finished a game. Never touches the disk.
+     */
+    public static PlayerStats getStats(String name) {
+        return stats.get(name);
+    }
+
+    /**
+     * Returns the stats of every known player as of the last refresh or update,
+     * sorted by name. Never touches the disk.
+     */
+    public static List<PlayerStats> getAllStats() {
+        List<PlayerStats> all = new ArrayList<>(stats.values());
+        all.sort(Comparator.comparing(PlayerStats::getName, String.CASE_INSENSITIVE_ORDER));
+        return all;
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Reads what other processes wrote, appends the game and compacts the log if it
+     * has grown long, all under the file lock.
+     */
+    private static void update(String name, boolean won, int moves, int pairs, int gridSize, long durationMillis) {
+        GameEvents.ScorePersist event = new GameEvents.ScorePersist();
+        event.begin();
+        boolean saved = false;
+
+        synchronized (fileAccess) {
+            File file = new File(STATS_PATH);
+            file.getParentFile().mkdirs();
+            try (FileChannel lockChannel = openLock()) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    Set<String> changed = catchUp(true);
+                    if (loadedGeneration <= 0) {
+                        compact(); // No file yet, or a version 1 file
+                    }
+                    appendGame(name, won, moves, pairs, gridSize, durationMillis);
+                    loaded.computeIfAbsent(name, PlayerStats::new)
+                          .recordGame(won, moves, pairs, gridSize, durationMillis);
+                    loggedGames++;
+                    if (loggedGames > loaded.size() + COMPACT_MARGIN) {
+                        compact();
+                    }
+                    if (changed != null) {
+                        changed.add(name);
+                    }
+                    publish(changed);
+                    saved = true;
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.store = "playerstats";
+            event.player = name;
+            event.saved = saved;
+            event.commit();
+        }
+    }
+
+    /**
+     * Brings the loaded totals up to date with the file: nothing to do if its size and
+     * modification time are unchanged, only the new records if it grew, everything if
+     * it was compacted or replaced meanwhile. Must be called holding fileAccess.
+     * @param locked true if the file lock is held: an incomplete record at the end can
+     *               only be left by a writer that died, and is cut off.
+     * @return The players whose totals changed, or null if everything was read again.
+     */
+    private static Set<String> catchUp(boolean locked) throws IOException {
+        Path path = Paths.get(STATS_PATH);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            if (loadedGeneration == -1) return new HashSet<>();
+            forget(-1);
+            return null;
+        }
+        if (attributes.size() == loadedSize && attributes.lastModifiedTime().equals(loadedModified)) {
+            return new HashSet<>();
+        }
+
+        Set<String> changed;
+        try (FileChannel in = locked ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                                     : FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = read(in, 0, HEADER_SIZE);
+            if (header.remaining() < 8 || header.getInt() != MAGIC) {
+                throw new IOException("Not a player stats file: " + path);
+            }
+            int version = header.getInt();
+            if (version == LEGACY_VERSION) {
+                forget(0);
+                loadLegacy(path);
+                loadedOffset = in.size();
+                changed = null;
+            } else if (version == VERSION && header.remaining() == 8) {
+                long generation = header.getLong();
+                changed = new HashSet<>();
+                if (generation != loadedGeneration || in.size() < loadedOffset) {
+                    forget(generation);
+                    loadedOffset = HEADER_SIZE;
+                    changed = null;
+                }
+                readRecords(in, changed);
+                if (locked && loadedOffset < in.size()) {
+                    in.truncate(loadedOffset);
+                }
+            } else {
+                throw new IOException("Unsupported player stats version " + version + ": " + path);
+            }
+        }
+        loadedSize = attributes.size();
+        loadedModified = attributes.lastModifiedTime();
+        return changed;
+    }
+
+    /**
+     * Drops the loaded totals, before the file is read again from the start.
+     */
+    private static void forget(long generation) {
+        loaded.clear();
+        loadedGeneration = generation;
+        loadedOffset = 0;
+        loggedGames = 0;
+    }
+
+    /**
+     * Applies every whole record from loadedOffset to the end of the file.
+     * @param changed Receives the names of the players whose totals changed, or null.
+     */
+    private static void readRecords(FileChannel in, Set<String> changed) throws IOException {
+        ByteBuffer data = read(in, loadedOffset, in.size() - loadedOffset);
+        while (data.remaining() >= 4) {
+            int length = data.getInt(data.position());
+            if (length <= 0 || data.remaining() - 4 < length) break; // Still being written, or torn
+            byte[] record = new byte[length];
+            data.position(data.position() + 4);
+            data.get(record);
+
+            DataInputStream rec = new DataInputStream(new ByteArrayInputStream(record));
+            byte type = rec.readByte();
+            String name = rec.readUTF();
+            if (type == TOTALS) {
+                loaded.put(name, readTotals(name, rec));
+            } else if (type == GAME) {
+                loaded.computeIfAbsent(name, PlayerStats::new)
+                      .recordGame(rec.readBoolean(), rec.readInt(), rec.readInt(), rec.readByte(), rec.readLong());
+                loggedGames++;
+            } else {
+                throw new IOException("Unknown player stats record type " + type);
+            }
+            if (changed != null) changed.add(name);
+            loadedOffset += 4 + length;
+        }
+    }
+
+    private static PlayerStats readTotals(String name, DataInputStream in) throws IOException {
+        PlayerStats ps = new PlayerStats(name);
+        ps.setTotals(in.readInt(), in.readInt(), in.readLong(), in.readLong());
+        int times = in.readByte();
+        for (int t = 0; t < times; t++) {
+            ps.setBestTime(in.readByte(), in.readInt());
+        }
+        return ps;
+    }
+
+    /**
+     * Reads a version 1 file: every player's totals in one block.
+     */
+    private static void loadLegacy(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            in.readInt(); // magic
+            in.readInt(); // version
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                loaded.put(name, readTotals(name, in));
+            }
+        }
+    }
+
+    /**
+     * Appends one GAME record. Must be called holding the file lock.
+     */
+    private static void appendGame(String name, boolean won, int moves, int pairs, int gridSize,
+                                   long durationMillis) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length, filled in below
+        out.writeByte(GAME);
+        out.writeUTF(name);
+        out.writeBoolean(won);
+        out.writeInt(moves);
+        out.writeInt(pairs);
+        out.writeByte(gridSize);
+        out.writeLong(durationMillis);
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        record.putInt(0, record.capacity() - 4);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(STATS_PATH), StandardOpenOption.WRITE)) {
+            long position = loadedOffset;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+        }
+        loadedOffset += record.capacity();
+        loadedSize = -1; // Our own write; the next look only needs the header
+    }
+
+    /**
+     * Rewrites the log as one TOTALS record per player, through a temporary file so
+     * readers never see a partial file. Must be called holding the file lock.
+     */
+    private static void compact() throws IOException {
+        long generation = Math.max(System.currentTimeMillis(), loadedGeneration + 1);
+        File file = new File(STATS_PATH);
+        File tmp = new File(file.getPath() + ".tmp");
+        long size = HEADER_SIZE;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream rec = new DataOutputStream(bytes);
+            for (PlayerStats ps : loaded.values()) {
+                bytes.reset();
+                rec.writeByte(TOTALS);
+                rec.writeUTF(ps.getName());
+                rec.writeInt(ps.getGames());
+                rec.writeInt(ps.getWins());
+                rec.writeLong(ps.getMoves());
+                rec.writeLong(ps.getPairs());
+
+                // Only grid sizes the player has actually won on
+                int times = 0;
+                for (int g = 1; g <= PlayerStats.MAX_GRID; g++) {
+                    if (ps.getBestTime(g) > 0) times++;
+                }
+                rec.writeByte(times);
+                for (int g = 1; g <= PlayerStats.MAX_GRID; g++) {
+                    if (ps.getBestTime(g) > 0) {
+                        rec.writeByte(g);
+                        rec.writeInt(ps.getBestTime(g));
+                    }
+                }
+                out.writeInt(bytes.size());
+                bytes.writeTo(out);
+                size += 4 + bytes.size();
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        loadedGeneration = generation;
+        loadedOffset = size;
+        loadedSize = -1;
+        loggedGames = 0;
+    }
+
+    /**
+     * Publishes the loaded totals: copies of the changed players into a new map.
+     * @param changed Players to copy, or null for all of them.
+     */
+    private static void publish(Set<String> changed) {
+        if (changed != null && changed.isEmpty()) return;
+        Map<String, PlayerStats> next = new HashMap<>();
+        if (changed != null) {
+            next.putAll(stats);
+        }
+        for (String name : changed != null ? changed : loaded.keySet()) {
+            next.put(name, loaded.get(name).copy());
+        }
+        stats = next;
+    }
+
+    private static ByteBuffer read(FileChannel in, long position, long length) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate((int) Math.max(0, Math.min(length, in.size() - position)));
+        while (data.hasRemaining()) {
+            int n = in.read(data, position + data.position());
+            if (n < 0) break;
+        }
+        data.flip();
+        return data;
+    }
+
+    private static FileChannel openLock() throws IOException {
+        return FileChannel.open(Paths.get(LOCK_PATH), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+}
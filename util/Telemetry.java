@@ -0,0 +1,264 @@
+package util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes telemetry records (e.g. one per finished game) as JSON lines, off the caller's thread.
+ *
+ * submit() only appends the record to a bounded lock-free queue and returns; when
+ * the queue is full the record is dropped and counted, so a slow disk can never
+ * stall the game. A background thread wakes up every FLUSH_MILLIS (or when a record
+ * arrives), serializes everything queued and writes it as one batch to the current
+ * file, optionally gzip-compressed. Files are named "games-yyyyMMdd-HHmmss.jsonl[.gz]"
+ * and a new one is started once the current one exceeds the rotate size. Compressed
+ * files are sync-flushed after every batch, so they stay readable up to the last batch
+ * even if the process dies.
+ *
+ * Counters: telemetry.written, telemetry.dropped.
+ */
+public class Telemetry {
+    private static final long FLUSH_MILLIS = 1000;
+
+    private final Path dir;
+    private final boolean gzip;
+    private final long rotateBytes;
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<Record> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Metrics.Counter written = Metrics.counter("telemetry.written");
+    private final Metrics.Counter dropped = Metrics.counter("telemetry.dropped");
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Writer thread only
+    private Writer out;
+    private CountingStream counter;
+
+    /**
+     * One JSON object; values may be strings, numbers, booleans, null, lists and
+     * nested records. Build it completely before submitting it.
+     */
+    public static final class Record {
+        private final Map<String, Object> fields = new LinkedHashMap<>();
+
+        public Record put(String name, Object value) {
+            fields.put(name, value);
+            return this;
+        }
+    }
+
+    /**
+     * Starts the writer thread.
+     * @param dir Directory for the files (created if missing).
+     * @param gzip true to compress the files.
+     * @param rotateBytes File size (on disk) after which a new file is started.
+     * @param capacity Records that may wait to be written before new ones are dropped.
+     */
+    public Telemetry(Path dir, boolean gzip, long rotateBytes, int capacity) {
+        this.dir = dir;
+        this.gzip = gzip;
+        this.rotateBytes = rotateBytes;
+        this.capacity = capacity;
+
+        writer = new Thread(this::writeLoop, "telemetry-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a record for writing. Never blocks.
+     * @return false if the queue was full (or the sink closed) and the record was dropped.
+     */
+    public boolean submit(Record record) {
+        if (closed || queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.add(record);
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    public long getWrittenCount() {
+        return written.getCount();
+    }
+
+    public long getDroppedCount() {
+        return dropped.getCount();
+    }
+
+    /**
+     * Writes what is still queued and closes the current file. Later records are dropped.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    private void writeLoop() {
+        StringBuilder line = new StringBuilder(1024);
+        while (true) {
+            boolean last = closed;
+            if (!queue.isEmpty()) {
+                try {
+                    writeBatch(line);
+                } catch (IOException e) {
+                    e.printStackTrace(); // The record being written is lost; the rest go to a new file
+                    closeFile();
+                }
+            }
+            if (last) break;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_MILLIS));
+        }
+        closeFile();
+    }
+
+    private void writeBatch(StringBuilder line) throws IOException {
+        if (out == null) openFile();
+        Record r;
+        while ((r = queue.poll()) != null) {
+            queued.decrementAndGet();
+            line.setLength(0);
+            appendJson(line, r);
+            line.append('\n');
+            out.append(line);
+            written.increment();
+        }
+        out.flush();
+        if (counter.count >= rotateBytes) closeFile();
+    }
+
+    private void openFile() throws IOException {
+        Files.createDirectories(dir);
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path file = dir.resolve("games-" + stamp + (gzip ? ".jsonl.gz" : ".jsonl"));
+        for (int i = 1; Files.exists(file); i++) {
+            file = dir.resolve("games-" + stamp + "-" + i + (gzip ? ".jsonl.gz" : ".jsonl"));
+        }
+        counter = new CountingStream(Files.newOutputStream(file));
+        OutputStream stream = gzip ? new GZIPOutputStream(counter, 8192, true) : counter;
+        out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    }
+
+    private void closeFile() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        out = null;
+        counter = null;
+    }
+
+    private static void appendJson(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Record) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> e : ((Record) value).fields.entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                appendString(sb, e.getKey());
+                sb.append(':');
+                appendJson(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof List) {
+            sb.append('[');
+            List<?> list = (List<?>) value;
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) sb.append(',');
+                appendJson(sb, list.get(i));
+            }
+            sb.append(']');
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) sb.append("null");
+            else sb.append(d);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            appendString(sb, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Counts the bytes that reach the file, i.e. after compression.
+     */
+    private static final class CountingStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        CountingStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
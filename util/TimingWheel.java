@@ -0,0 +1,211 @@
+package util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel: runs delayed tasks (AI think time, mismatch reveal time,
+ * turn timeouts, idle sweeps) for any number of boards on a single thread.
+ *
+ * Time is cut into ticks and the wheel has one bucket per tick, a doubly-linked
+ * list of timeouts; a delay longer than one turn of the wheel waits extra rounds
+ * in its bucket. Scheduling and cancelling are O(1) from any thread: both only
+ * enqueue the timeout, and the wheel thread links or unlinks it on its next tick.
+ * Deadlines are rounded up to the next tick, so tasks never run early.
+ *
+ * Tasks run on the wheel thread and must be short: UI work should be handed to
+ * the EDT (SwingUtilities.invokeLater). The thread sleeps while nothing is pending.
+ */
+public class TimingWheel {
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_WHEEL_SIZE = 512; // one turn = 5.12 s
+
+    private static TimingWheel shared;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final long startNanos;
+    private final Thread worker;
+
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private volatile boolean idle;
+    private volatile boolean running = true;
+
+    // Owned by the wheel thread
+    private long tick;
+    private int pending;
+
+    /**
+     * A scheduled task. Cancelling it before it runs guarantees it never runs.
+     */
+    public static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        // Bucket links, touched only by the wheel thread
+        private Timeout prev;
+        private Timeout next;
+        private int bucket = -1;
+        private long rounds;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task.
+         * @return false if it already ran (or was already cancelled).
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+
+    /**
+     * Starts a wheel with its own daemon thread.
+     * @param tickMillis Resolution of the deadlines.
+     * @param wheelSize Buckets per turn, rounded up to a power of two.
+     */
+    public TimingWheel(String name, long tickMillis, int wheelSize) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+        this.startNanos = System.nanoTime();
+
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * The wheel shared by every board in this process (10 ms ticks).
+     */
+    public static synchronized TimingWheel shared() {
+        if (shared == null) {
+            shared = new TimingWheel("timing-wheel", DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+        }
+        return shared;
+    }
+
+    /**
+     * Runs the task on the wheel thread once the delay has passed.
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(this, task, deadline);
+        added.add(timeout);
+        if (idle) LockSupport.unpark(worker);
+        return timeout;
+    }
+
+    /**
+     * Stops the wheel thread. Pending tasks never run.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    // --- Private Helper Methods ---
+
+    private void run() {
+        tick = currentTick();
+        while (running) {
+            if (pending == 0 && added.isEmpty()) {
+                // Nothing to time: sleep until schedule wakes us, then skip the idle ticks
+                idle = true;
+                if (added.isEmpty()) LockSupport.park(this);
+                idle = false;
+                tick = Math.max(tick, currentTick());
+                continue;
+            }
+
+            long wait = startNanos + tick * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+
+            removeCancelled();
+            addScheduled();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    private void addScheduled() {
+        Timeout t;
+        while ((t = added.poll()) != null) {
+            if (t.state.get() != Timeout.WAITING) continue; // Cancelled before it was placed
+
+            long due = (t.deadline - startNanos + tickNanos - 1) / tickNanos; // round up
+            due = Math.max(due, tick);
+            t.rounds = (due - tick) / buckets.length;
+            t.bucket = (int) (due & mask);
+
+            t.next = buckets[t.bucket];
+            if (t.next != null) t.next.prev = t;
+            buckets[t.bucket] = t;
+            pending++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout t;
+        while ((t = cancelled.poll()) != null) {
+            if (t.bucket >= 0) unlink(t);
+        }
+    }
+
+    private void expire(Timeout t) {
+        while (t != null) {
+            Timeout next = t.next;
+            if (t.rounds > 0) {
+                t.rounds--;
+            } else {
+                unlink(t);
+                if (t.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                    try {
+                        t.task.run();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace(); // One bad task must not stop every other board
+                    }
+                }
+            }
+            t = next;
+        }
+    }
+
+    private void unlink(Timeout t) {
+        if (t.prev != null) t.prev.next = t.next;
+        else buckets[t.bucket] = t.next;
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = null;
+        t.next = null;
+        t.bucket = -1;
+        pending--;
+    }
+}
@@ -0,0 +1,119 @@
+package view;
+
+import util.GameEvents;
+import util.LatencyHistogram;
+import util.Metrics;
+import util.RenderQuality;
+import util.Settings;
+
+/**
+ * Auto mode for the rendering quality: steps Settings.getRenderQuality() down when
+ * animation frames arrive late and back up when they are on time again.
+ *
+ * Card flips report every frame with how long it actually took against the planned
+ * interval. When the EDT cannot keep up (painting, layout, GC) the Swing timer
+ * ticks late, so the lateness covers everything that delays a frame, and it is only
+ * measured during play. Frames are judged in windows of WINDOW_FRAMES by the 90th
+ * percentile lateness. The thresholds are far apart and several windows in a row
+ * must agree, so a single hiccup changes nothing:
+ * - SLOW_WINDOWS windows later than SLOW_FRACTION of the interval: one step down
+ * - upWindows windows later than at most FAST_FRACTION of the interval: one step up
+ * Every step down doubles upWindows (up to MAX_UP_WINDOWS), so a board that is too
+ * much for a profile is not retried with it every few flips; a step up that holds
+ * resets it. EDT only.
+ */
+final class AdaptiveQuality {
+    static final int WINDOW_FRAMES = 24;
+    private static final double SLOW_FRACTION = 0.5;
+    private static final double FAST_FRACTION = 0.1;
+    private static final int SLOW_WINDOWS = 2;
+    private static final int MIN_UP_WINDOWS = 4;
+    private static final int MAX_UP_WINDOWS = 64;
+
+    private static final LatencyHistogram window = new LatencyHistogram();
+    private static final Metrics.Counter changes = Metrics.counter("render.quality.changes");
+    private static int frames;
+    private static int slowWindows;
+    private static int fastWindows;
+    private static int upWindows = MIN_UP_WINDOWS;
+    private static boolean steppedUp; // the last change was a step up, not yet confirmed
+
+    static {
+        Metrics.gauge("render.quality", () -> Settings.getRenderQuality().ordinal());
+    }
+
+    private AdaptiveQuality() {}
+
+    /**
+     * Reports one animation frame.
+     * @param actualNanos Time since the previous frame of the same animation.
+     * @param plannedMillis The frame interval the animation was started with.
+     */
+    static void frame(long actualNanos, int plannedMillis) {
+        if (!Settings.isAutoQuality()) return;
+        long plannedNanos = plannedMillis * 1_000_000L;
+        window.record(Math.max(0, actualNanos - plannedNanos));
+        if (++frames < WINDOW_FRAMES) return;
+
+        long lateness = window.getPercentile(0.90);
+        window.reset();
+        frames = 0;
+        if (lateness > SLOW_FRACTION * plannedNanos) {
+            fastWindows = 0;
+            if (++slowWindows >= SLOW_WINDOWS) stepDown(lateness);
+        } else if (lateness <= FAST_FRACTION * plannedNanos) {
+            slowWindows = 0;
+            if (steppedUp) {
+                steppedUp = false;
+                upWindows = MIN_UP_WINDOWS; // the better profile holds up
+            }
+            if (++fastWindows >= upWindows) stepUp(lateness);
+        } else {
+            // In between: good enough to stay, not good enough to ask for more
+            slowWindows = 0;
+            fastWindows = 0;
+        }
+    }
+
+    /**
+     * Forgets the frames measured so far, e.g. when the user picks a profile.
+     */
+    static void reset() {
+        window.reset();
+        frames = 0;
+        slowWindows = 0;
+        fastWindows = 0;
+        upWindows = MIN_UP_WINDOWS;
+        steppedUp = false;
+    }
+
+    // --- Private Helper Methods ---
+
+    private static void stepDown(long lateness) {
+        slowWindows = 0;
+        upWindows = Math.min(MAX_UP_WINDOWS, upWindows * 2);
+        steppedUp = false;
+        change(Settings.getRenderQuality().lower(), lateness);
+    }
+
+    private static void stepUp(long lateness) {
+        fastWindows = 0;
+        steppedUp = change(Settings.getRenderQuality().higher(), lateness);
+    }
+
+    private static boolean change(RenderQuality to, long lateness) {
+        RenderQuality from = Settings.getRenderQuality();
+        if (to == from) return false;
+        Settings.setRenderQuality(to);
+        changes.increment();
+
+        GameEvents.QualityChange event = new GameEvents.QualityChange();
+        if (event.shouldCommit()) {
+            event.from = from.name();
+            event.to = to.name();
+            event.lateness = lateness;
+            event.commit();
+        }
+        return true;
+    }
+}
@@ -1,16 +1,24 @@
 package view;
 
 import model.Card;
+import util.GameEvents;
+import util.LatencyHistogram;
+import util.Metrics;
+import util.RenderQuality;
+import util.Settings;
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.LineBorder;
 import java.awt.*;
+import java.util.function.LongConsumer;
 
 /**
  * A specialized button representing a card on the UI grid.
  * Handles the visual rendering of the card (face up/down) and automatic image scaling.
  */
 public class CardButton extends JButton {
+    private static final LatencyHistogram FRAME_TIME = Metrics.histogram("animation.frame");
+
     private Card card;
     private Dimension targetSize; 
     // Animation state
@@ -18,6 +26,9 @@ public class CardButton extends JButton {
     private float animProgress = 1.0f; // 0.0 = showing back, 1.0 = showing front
     private javax.swing.Timer animTimer;
     private final int ANIM_DURATION = 240; // ms
+    private long lastFrameNanos; // when the previous animation frame ran
+    private GameEvents.CardFlip flipEvent; // the running flip, for JFR
+    private LongConsumer onPainted; // one-shot, see whenPainted
 
     /**
      * Initializes the button with a specific card model and target dimensions.
@@ -25,99 +36,100 @@ public class CardButton extends JButton {
      * @param targetSize The width and height for the card image.
      */
     public CardButton(Card card, Dimension targetSize) {
-        this.card = card;
-        this.targetSize = targetSize;
-
         // Basic button configuration
-        setPreferredSize(targetSize);
-        setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY, 1));
-
         setFocusable(false); // Removes the focus outline for a cleaner look
         setOpaque(true);
         setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
 
-        // Hover effects
+        // Hover effects (pulse and zoom are theme extras, see RenderQuality)
         addMouseListener(new java.awt.event.MouseAdapter() {
-            private Border origBorder = null;
-            private Dimension origSize = getPreferredSize();
-            private javax.swing.Timer pulseTimer;
-
             @Override
             public void mouseEntered(java.awt.event.MouseEvent e) {
-                // Do not change hover visuals if card is currently selected or matched
-                if (card.isFaceUp() || card.isMatched()) return;
-
-                // Capture current border as the revert target
-                origBorder = getBorder();
-
-                switch (Theme.currentTheme) {
-                    case COZY:
-                        // subtle glowing white border on top of existing border
-                        setBorder(BorderFactory.createCompoundBorder(new LineBorder(Color.WHITE, 2, true), origBorder));
-                        break;
-                    case CYBERPUNK:
-                        // neon border pulse
-                        setBorder(new LineBorder(Theme.SECONDARY, 3, true));
-                        pulseTimer = new javax.swing.Timer(300, ev -> {
-                            if (!(getBorder() instanceof LineBorder)) return;
-                            Color c = ((LineBorder) getBorder()).getLineColor();
-                            int alpha = Math.min(255, c.getAlpha() + 30);
-                            setBorder(new LineBorder(new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha), 3, true));
-                        });
-                        pulseTimer.setRepeats(true);
-                        pulseTimer.start();
-                        break;
-                    case SAPPHIRE:
-                        // slight scale up and shine effect (simulate with thicker border)
-                        setPreferredSize(new Dimension((int)(origSize.width*1.05), (int)(origSize.height*1.05)));
-                        setBorder(new LineBorder(Theme.SECONDARY, 2, true));
-                        revalidate();
-                        break;
-                }
+                startHover();
             }
 
             @Override
             public void mouseExited(java.awt.event.MouseEvent e) {
-                // Revert to the captured border to preserve theme details
-                setBorder(origBorder != null ? origBorder : BorderFactory.createLineBorder(Color.DARK_GRAY, 1));
-                setPreferredSize(origSize);
-                revalidate();
-                if (pulseTimer != null) {
-                    pulseTimer.stop();
-                    pulseTimer = null;
-                }
+                endHover();
             }
         });
-        
+
+        bind(card, targetSize);
+    }
+
+    /**
+     * Shows a card on this button: the one it is created for, or a card of a later
+     * game when the button is reused (see CardButtonPool).
+     * @param card The data model for this button.
+     * @param targetSize The width and height for the card image.
+     */
+    void bind(Card card, Dimension targetSize) {
+        this.card = card;
+        this.targetSize = targetSize;
+        setPreferredSize(targetSize);
+        setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY, 1));
+        prevFaceUp = false;
+        animProgress = 1.0f;
+
         // Render initial state
         updateDisplay();
         // Ensure prevFaceUp matches initial state
         prevFaceUp = card.isFaceUp();
     }
 
+    /**
+     * Stops the running animation and hover effect and drops the card and the click
+     * listeners of its board, so the button holds on to nothing of a finished game.
+     */
+    void unbind() {
+        if (animTimer != null) {
+            animTimer.stop();
+            animTimer = null;
+            endFlipEvent(true);
+        }
+        endHover();
+        for (java.awt.event.ActionListener l : getActionListeners()) {
+            removeActionListener(l);
+        }
+        getModel().setRollover(false);
+        getModel().setArmed(false);
+        getModel().setPressed(false);
+        setIcon(null);
+        setDisabledIcon(null);
+        scaledFront = null;
+        onPainted = null;
+        card = null;
+    }
+
+    /**
+     * Calls back once, right after the button has next been painted, with the
+     * System.nanoTime() of that moment. A later call replaces a pending callback.
+     */
+    void whenPainted(LongConsumer callback) {
+        onPainted = callback;
+        repaint();
+    }
+
     /**
      * Updates the button's appearance based on the card's state (Face Up vs Face Down).
-     * Handles image scaling to ensure the icon fits the button perfectly.
+     * The front image is scaled to fit the button once and shared (see ScaledImageCache),
+     * with the scaling algorithm of the current render quality.
      */
     public void updateDisplay() {
         // Update scaled front image if available
         ImageIcon icon = card.getFrontImage();
-        if (icon != null) {
-            Image img = icon.getImage();
-            scaledFrontImage = img.getScaledInstance(targetSize.width, targetSize.height, Image.SCALE_SMOOTH);
-        } else {
-            scaledFrontImage = null;
-        }
+        scaledFront = icon != null ? ScaledImageCache.get(icon, targetSize.width, targetSize.height,
+                Settings.getRenderQuality().getScaleHint()) : null;
 
         boolean nowFaceUp = card.isFaceUp() || card.isMatched();
 
         // If the face-up state changed, animate if enabled
-        if (nowFaceUp != prevFaceUp && util.Settings.isAnimationsEnabled()) {
+        if (nowFaceUp != prevFaceUp && Settings.isAnimationsEnabled()) {
             startFlipAnimation(nowFaceUp);
         } else {
             // No state change or animations disabled — set visuals immediately
             if (nowFaceUp) {
-                setIcon(scaledFrontImage != null ? new ImageIcon(scaledFrontImage) : null);
+                setIcon(scaledFront);
                 if (card.isMatched()) {
                     setEnabled(false);
                     setDisabledIcon(getIcon());
@@ -158,15 +170,79 @@ public class CardButton extends JButton {
         return card;
     }
 
+    // --- Hover effects ---
+    private Border hoverOrigBorder;           // border to restore when the mouse leaves
+    private javax.swing.Timer pulseTimer;     // Cyberpunk neon pulse, while hovering
+    private boolean hovering;                 // startHover changed the visuals
+
+    private void startHover() {
+        // Do not change hover visuals if card is currently selected or matched
+        if (card == null || card.isFaceUp() || card.isMatched()) return;
+        RenderQuality quality = Settings.getRenderQuality();
+        if (!quality.isHoverEffects()) return;
+
+        // Capture current border as the revert target
+        Border origBorder = getBorder();
+        hoverOrigBorder = origBorder;
+        hovering = true;
+
+        switch (Theme.currentTheme) {
+            case COZY:
+                // subtle glowing white border on top of existing border
+                setBorder(BorderFactory.createCompoundBorder(new LineBorder(Color.WHITE, 2, true), origBorder));
+                break;
+            case CYBERPUNK:
+                // neon border pulse
+                setBorder(new LineBorder(Theme.SECONDARY, 3, true));
+                if (!quality.isThemeExtras()) break;
+                pulseTimer = new javax.swing.Timer(300, ev -> {
+                    if (!(getBorder() instanceof LineBorder)) return;
+                    Color c = ((LineBorder) getBorder()).getLineColor();
+                    int alpha = Math.min(255, c.getAlpha() + 30);
+                    setBorder(new LineBorder(new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha), 3, true));
+                });
+                pulseTimer.setRepeats(true);
+                pulseTimer.start();
+                break;
+            case SAPPHIRE:
+                // slight scale up and shine effect (simulate with thicker border)
+                setBorder(new LineBorder(Theme.SECONDARY, 2, true));
+                if (!quality.isThemeExtras()) break; // the zoom lays out the whole grid again
+                setPreferredSize(new Dimension((int)(targetSize.width*1.05), (int)(targetSize.height*1.05)));
+                revalidate();
+                break;
+        }
+    }
+
+    private void endHover() {
+        if (!hovering) return;
+        hovering = false;
+        // Revert to the captured border to preserve theme details
+        setBorder(hoverOrigBorder != null ? hoverOrigBorder : BorderFactory.createLineBorder(Color.DARK_GRAY, 1));
+        hoverOrigBorder = null;
+        if (!targetSize.equals(getPreferredSize())) {
+            setPreferredSize(targetSize);
+            revalidate();
+        }
+        if (pulseTimer != null) {
+            pulseTimer.stop();
+            pulseTimer = null;
+        }
+    }
+
     // --- Animation: simple fade between back and front ---
-    private Image scaledFrontImage = null;
+    private ImageIcon scaledFront = null;
 
     private void startFlipAnimation(boolean toFaceUp) {
         if (animTimer != null && animTimer.isRunning()) {
             animTimer.stop();
+            endFlipEvent(true);
         }
+        flipEvent = new GameEvents.CardFlip();
+        flipEvent.begin();
+        flipEvent.toFaceUp = toFaceUp;
 
-        final int interval = 40; // ms
+        final int interval = Settings.getRenderQuality().getFrameMillis();
         final int steps = Math.max(1, ANIM_DURATION / interval);
         final float stepAmount = 1.0f / steps;
 
@@ -176,15 +252,24 @@ public class CardButton extends JButton {
             animProgress = 1.0f;
         }
 
+        lastFrameNanos = 0;
         animTimer = new javax.swing.Timer(interval, null);
         animTimer.addActionListener(ev -> {
+            long now = System.nanoTime();
+            if (lastFrameNanos != 0) {
+                FRAME_TIME.record(now - lastFrameNanos);
+                AdaptiveQuality.frame(now - lastFrameNanos, interval);
+            }
+            lastFrameNanos = now;
+            flipEvent.frames++;
             if (toFaceUp) {
                 animProgress += stepAmount;
                 if (animProgress >= 1.0f) {
                     animProgress = 1.0f;
                     animTimer.stop();
+                    endFlipEvent(false);
                     // finalize state
-                    setIcon(scaledFrontImage != null ? new ImageIcon(scaledFrontImage) : null);
+                    setIcon(scaledFront);
                     setBackground(Color.WHITE);
                     setBorder(BorderFactory.createEmptyBorder());
                     prevFaceUp = true;
@@ -194,6 +279,7 @@ public class CardButton extends JButton {
                 if (animProgress <= 0.0f) {
                     animProgress = 0.0f;
                     animTimer.stop();
+                    endFlipEvent(false);
                     // finalize state
                     setIcon(null);
                     setEnabled(true);
@@ -222,11 +308,23 @@ public class CardButton extends JButton {
         animTimer.start();
     }
 
+    private void endFlipEvent(boolean interrupted) {
+        GameEvents.CardFlip event = flipEvent;
+        flipEvent = null;
+        if (event == null) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.card = card.getValue() + card.getSuit();
+        event.interrupted = interrupted;
+        event.commit();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
-        if (animProgress > 0.0f && animProgress < 1.0f && util.Settings.isAnimationsEnabled()) {
+        if (animProgress > 0.0f && animProgress < 1.0f && Settings.isAnimationsEnabled()) {
             // Custom cross-fade
             Graphics2D g2 = (Graphics2D) g.create();
+            Settings.getRenderQuality().applyHints(g2);
 
             // Draw back (alpha = 1 - animProgress)
             float backAlpha = 1.0f - animProgress;
@@ -238,7 +336,8 @@ public class CardButton extends JButton {
 
             // Draw standard button border/background features by painting children? We'll draw icon overlay next
             // Draw front (alpha = animProgress)
-            if (scaledFrontImage != null) {
+            if (scaledFront != null) {
+                Image scaledFrontImage = scaledFront.getImage();
                 int x = (getWidth() - scaledFrontImage.getWidth(null)) / 2;
                 int y = (getHeight() - scaledFrontImage.getHeight(null)) / 2;
                 g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, animProgress));
@@ -251,5 +350,11 @@ public class CardButton extends JButton {
             // Default rendering
             super.paintComponent(g);
         }
+
+        LongConsumer painted = onPainted;
+        if (painted != null) {
+            onPainted = null;
+            painted.accept(System.nanoTime());
+        }
     }
 }
\ No newline at end of file
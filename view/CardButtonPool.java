@@ -0,0 +1,50 @@
+package view;
+
+import model.Card;
+import util.Metrics;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.util.ArrayDeque;
+
+/**
+ * Card buttons of finished games, kept to build the next board with.
+ *
+ * A board takes its buttons here and gives them back when it is disposed; a returned
+ * button is unbound first (see CardButton.unbind), so it keeps nothing of its old game
+ * alive. The pool holds at most one button per cell of the largest grid, so after the
+ * first big game every board is built without creating a single button.
+ * Counters: board.buttons.created, board.buttons.reused. EDT only.
+ */
+final class CardButtonPool {
+    static final int CAPACITY = 10 * 10; // the largest grid
+
+    private static final ArrayDeque<CardButton> idle = new ArrayDeque<>(CAPACITY);
+    private static final Metrics.Counter created = Metrics.counter("board.buttons.created");
+    private static final Metrics.Counter reused = Metrics.counter("board.buttons.reused");
+
+    private CardButtonPool() {}
+
+    /**
+     * A button showing the card: an idle one rebound to it, or a new one.
+     */
+    static CardButton acquire(Card card, Dimension size) {
+        CardButton btn = idle.poll();
+        if (btn == null) {
+            created.increment();
+            return new CardButton(card, size);
+        }
+        reused.increment();
+        btn.bind(card, size);
+        return btn;
+    }
+
+    /**
+     * Takes back a button whose board is going away; it is removed from that board.
+     */
+    static void release(CardButton btn) {
+        Container parent = btn.getParent();
+        if (parent != null) parent.remove(btn);
+        btn.unbind();
+        if (idle.size() < CAPACITY) idle.push(btn);
+    }
+}
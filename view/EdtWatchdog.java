@@ -0,0 +1,314 @@
+package view;
+
+import util.LatencyHistogram;
+import util.Metrics;
+import util.Settings;
+import java.awt.EventQueue;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects freezes of the Event Dispatch Thread.
+ *
+ * A daemon thread keeps one heartbeat queued on the EDT. If the heartbeat has not
+ * run after the stall threshold (Settings.getStallThresholdMillis), the EDT is busy
+ * with something else: its stack is captured right then, while it is still stuck,
+ * and the stall is recorded with its full length once the heartbeat finally runs.
+ *
+ * Stalls are grouped by where they happened in our code (the application frames of
+ * the stack), so a freeze that repeats shows up once with a count. At most MAX_STALLS
+ * places are kept; when full, a new place replaces the one with the shortest worst
+ * stall if it is longer. Every stall is also counted in the "edt.stall" histogram.
+ */
+public final class EdtWatchdog {
+    public static final int MAX_STALLS = 20;
+    private static final long MIN_POLL_MILLIS = 10;
+    private static final int MAX_FRAMES = 40; // stack frames kept per stall
+
+    private static final EdtWatchdog INSTANCE = new EdtWatchdog();
+    private static final LatencyHistogram STALL_TIME = Metrics.histogram("edt.stall");
+
+    private final Map<String, Stall> stalls = new LinkedHashMap<>();
+    private long stallCount;
+    private long droppedCount; // stalls of places that did not make it into the table
+
+    private Thread monitor;
+    private volatile Thread edt;
+    private volatile long pendingSince; // nanoTime the queued heartbeat was posted, 0 if none
+    private volatile long lastDelay;    // nanos the last heartbeat waited
+    private StackTraceElement[] stuckStack; // monitor thread only
+
+    /**
+     * A place where the EDT stalled, and how often and how long it did.
+     */
+    public static final class Stall {
+        private final String where;
+        private final StackTraceElement[] stack;
+        private int count;
+        private long worstNanos;
+        private long totalNanos;
+        private long lastSeen;
+
+        private Stall(String where, StackTraceElement[] stack) {
+            this.where = where;
+            this.stack = stack;
+        }
+
+        private Stall(Stall other) {
+            this.where = other.where;
+            this.stack = other.stack;
+            this.count = other.count;
+            this.worstNanos = other.worstNanos;
+            this.totalNanos = other.totalNanos;
+            this.lastSeen = other.lastSeen;
+        }
+
+        /**
+         * The innermost application frame, e.g. "model.Deck.loadCardImage(Deck.java:91)".
+         */
+        public String getWhere() {
+            return where;
+        }
+
+        /**
+         * The EDT stack of the worst stall at this place.
+         */
+        public StackTraceElement[] getStack() {
+            return stack.clone();
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getWorstMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(worstNanos);
+        }
+
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+
+        /**
+         * When the last stall at this place ended (System.currentTimeMillis).
+         */
+        public long getLastSeen() {
+            return lastSeen;
+        }
+    }
+
+    private EdtWatchdog() {}
+
+    public static EdtWatchdog get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts watching; does nothing if already running. Best called on the EDT,
+     * so stalls can be traced from the very first event. While running, the steady
+     * heartbeats keep AWT from shutting down on its own; exit with System.exit.
+     */
+    public synchronized void start() {
+        if (monitor != null) return;
+        if (EventQueue.isDispatchThread()) edt = Thread.currentThread();
+        monitor = new Thread(this::watch, "edt-watchdog");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    public synchronized void stop() {
+        if (monitor == null) return;
+        monitor.interrupt();
+        monitor = null;
+    }
+
+    /**
+     * The recorded stall places, worst first.
+     */
+    public synchronized List<Stall> getStalls() {
+        List<Stall> copy = new ArrayList<>();
+        for (Stall s : stalls.values()) copy.add(new Stall(s));
+        copy.sort((a, b) -> Long.compare(b.worstNanos, a.worstNanos));
+        return copy;
+    }
+
+    /**
+     * Number of stalls since the start or the last clear, including dropped ones.
+     */
+    public synchronized long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * How long the EDT currently takes to get to a new event: what the last heartbeat
+     * waited, or the one still queued if it has waited longer already.
+     */
+    public long getLatencyNanos() {
+        long posted = pendingSince;
+        long waiting = posted == 0 ? 0 : System.nanoTime() - posted;
+        return Math.max(lastDelay, waiting);
+    }
+
+    public synchronized void clear() {
+        stalls.clear();
+        stallCount = 0;
+        droppedCount = 0;
+    }
+
+    /**
+     * A plain-text report of all recorded stalls with their stacks.
+     */
+    public String getReport() {
+        List<Stall> list = getStalls();
+        long count;
+        long dropped;
+        synchronized (this) {
+            count = stallCount;
+            dropped = droppedCount;
+        }
+        SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        StringBuilder sb = new StringBuilder();
+        sb.append("EDT stalls over ").append(Settings.getStallThresholdMillis()).append(" ms: ").append(count);
+        if (dropped > 0) sb.append(" (").append(dropped).append(" at places not listed)");
+        sb.append('\n');
+        for (Stall s : list) {
+            sb.append('\n').append(s.where).append('\n');
+            sb.append("  count ").append(s.count)
+              .append(", worst ").append(s.getWorstMillis()).append(" ms")
+              .append(", total ").append(s.getTotalMillis()).append(" ms")
+              .append(", last ").append(time.format(new Date(s.lastSeen))).append('\n');
+            for (StackTraceElement frame : s.stack) {
+                sb.append("    at ").append(frame).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the report to a file, replacing it.
+     */
+    public void dumpTo(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(getReport());
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    private void watch() {
+        Runnable heartbeat = () -> {
+            edt = Thread.currentThread();
+            lastDelay = System.nanoTime() - pendingSince;
+            pendingSince = 0;
+        };
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long threshold = Settings.getStallThresholdMillis();
+                long now = System.nanoTime();
+                long posted = pendingSince;
+                if (posted == 0) {
+                    // The previous heartbeat ran; if it was stuck, record how long for
+                    if (stuckStack != null) {
+                        record(lastDelay, stuckStack);
+                        stuckStack = null;
+                    }
+                    pendingSince = now;
+                    EventQueue.invokeLater(heartbeat);
+                } else if (stuckStack == null && now - posted >= TimeUnit.MILLISECONDS.toNanos(threshold)) {
+                    Thread t = edt;
+                    if (t != null) stuckStack = t.getStackTrace();
+                }
+                Thread.sleep(Math.max(MIN_POLL_MILLIS, threshold / 4));
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    private void record(long nanos, StackTraceElement[] stack) {
+        STALL_TIME.record(nanos);
+        if (stack.length > MAX_FRAMES) {
+            StackTraceElement[] top = new StackTraceElement[MAX_FRAMES];
+            System.arraycopy(stack, 0, top, 0, MAX_FRAMES);
+            stack = top;
+        }
+        String key = placeOf(stack);
+
+        synchronized (this) {
+            stallCount++;
+            Stall s = stalls.get(key);
+            if (s == null) {
+                if (stalls.size() >= MAX_STALLS && !evictShorterThan(nanos)) {
+                    droppedCount++;
+                    return;
+                }
+                s = new Stall(whereOf(stack), stack);
+                stalls.put(key, s);
+            } else if (nanos > s.worstNanos) {
+                Stall worse = new Stall(s.where, stack); // Keep the stack of the worst one
+                worse.count = s.count;
+                worse.totalNanos = s.totalNanos;
+                s = worse;
+                stalls.put(key, s);
+            }
+            s.count++;
+            s.totalNanos += nanos;
+            s.worstNanos = Math.max(s.worstNanos, nanos);
+            s.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    private boolean evictShorterThan(long nanos) {
+        String shortest = null;
+        long shortestNanos = nanos;
+        for (Map.Entry<String, Stall> e : stalls.entrySet()) {
+            if (e.getValue().worstNanos < shortestNanos) {
+                shortest = e.getKey();
+                shortestNanos = e.getValue().worstNanos;
+            }
+        }
+        if (shortest == null) return false;
+        droppedCount += stalls.remove(shortest).count;
+        return true;
+    }
+
+    /**
+     * Identifies a stall by its application frames, so the same freeze reached through
+     * different JDK internals (e.g. a different point inside image decoding) counts once.
+     */
+    private static String placeOf(StackTraceElement[] stack) {
+        StringBuilder sb = new StringBuilder();
+        for (StackTraceElement frame : stack) {
+            if (isApplication(frame)) sb.append(format(frame)).append('\n');
+        }
+        return sb.length() > 0 ? sb.toString() : (stack.length > 0 ? stack[0].toString() : "?");
+    }
+
+    private static String whereOf(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (isApplication(frame)) return format(frame);
+        }
+        return stack.length > 0 ? stack[0].toString() : "unknown (no stack)";
+    }
+
+    private static String format(StackTraceElement frame) {
+        return frame.getClassName() + "." + frame.getMethodName()
+               + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")";
+    }
+
+    private static boolean isApplication(StackTraceElement frame) {
+        String c = frame.getClassName();
+        return !(c.startsWith("java.") || c.startsWith("javax.") || c.startsWith("sun.")
+                 || c.startsWith("jdk.") || c.startsWith("com.sun."));
+    }
+}
@@ -1,5 +1,8 @@
 package view;
 
+import controller.GameEngine;
+import controller.MoveStats;
+import util.LatencyHistogram;
 import javax.swing.*;
 import java.awt.*;
 
@@ -12,6 +15,8 @@ public class GameOverPanel extends JPanel {
     private JLabel lblWinner;
     private JLabel lblScore1;
     private JLabel lblScore2;
+    private JLabel lblRank;
+    private JLabel lblTimings;
 
     /**
      * Initializes the Game Over UI layout.
@@ -31,7 +36,7 @@ public class GameOverPanel extends JPanel {
 
         // 1. Title Label
         JLabel lblTitle = new JLabel("GAME OVER");
-        lblTitle.setFont(new Font("Arial", Font.BOLD, 40));
+        lblTitle.setFont(Theme.font("Arial", Font.BOLD, 40));
         lblTitle.setForeground(Color.RED);
         lblTitle.setHorizontalAlignment(SwingConstants.CENTER);
         
@@ -40,7 +45,7 @@ public class GameOverPanel extends JPanel {
 
         // 2. Winner Label
         lblWinner = new JLabel("Winner: ???");
-        lblWinner.setFont(new Font("Arial", Font.BOLD, 24));
+        lblWinner.setFont(Theme.font("Arial", Font.BOLD, 24));
         lblWinner.setForeground(Color.GREEN);
         lblWinner.setHorizontalAlignment(SwingConstants.CENTER);
         
@@ -49,7 +54,7 @@ public class GameOverPanel extends JPanel {
 
         // 3. Score Labels
         lblScore1 = new JLabel("Player 1 Score: 0");
-        lblScore1.setFont(new Font("Arial", Font.PLAIN, 18));
+        lblScore1.setFont(Theme.font("Arial", Font.PLAIN, 18));
         lblScore1.setForeground(Color.WHITE);
         lblScore1.setHorizontalAlignment(SwingConstants.CENTER);
         
@@ -57,20 +62,38 @@ public class GameOverPanel extends JPanel {
         add(lblScore1, gbc);
 
         lblScore2 = new JLabel("Player 2 Score: 0");
-        lblScore2.setFont(new Font("Arial", Font.PLAIN, 18));
+        lblScore2.setFont(Theme.font("Arial", Font.PLAIN, 18));
         lblScore2.setForeground(Color.WHITE);
         lblScore2.setHorizontalAlignment(SwingConstants.CENTER);
         
         gbc.gridy = 3;
         add(lblScore2, gbc);
 
-        // 4. Return to Menu Button
+        // 4. Leaderboard placement (hidden when no score was saved)
+        lblRank = new JLabel(" ");
+        lblRank.setFont(Theme.font("Arial", Font.ITALIC, 18));
+        lblRank.setForeground(Color.ORANGE);
+        lblRank.setHorizontalAlignment(SwingConstants.CENTER);
+
+        gbc.gridy = 4;
+        add(lblRank, gbc);
+
+        // 5. Move timings per player (median / 90th / 99th percentile)
+        lblTimings = new JLabel(" ");
+        lblTimings.setFont(Theme.font("Arial", Font.PLAIN, 14));
+        lblTimings.setForeground(Color.LIGHT_GRAY);
+        lblTimings.setHorizontalAlignment(SwingConstants.CENTER);
+
+        gbc.gridy = 5;
+        add(lblTimings, gbc);
+
+        // 6. Return to Menu Button
         JButton btnMenu = new JButton("Return to Main Menu");
-        btnMenu.setFont(new Font("Arial", Font.BOLD, 16));
+        btnMenu.setFont(Theme.font("Arial", Font.BOLD, 16));
         btnMenu.setFocusPainted(false);
         btnMenu.addActionListener(e -> frame.showPanel("Menu"));
 
-        gbc.gridy = 4;
+        gbc.gridy = 6;
         gbc.insets = new Insets(30, 10, 10, 10); // Add extra space above button
         add(btnMenu, gbc);
     }
@@ -94,4 +117,56 @@ public class GameOverPanel extends JPanel {
         lblScore1.setText("Player 1 Score: " + p1Score);
         lblScore2.setText("Player 2 Score: " + p2Score);
     }
-}
\ No newline at end of file
+
+    /**
+     * Shows where the winning score placed in the all-time history.
+     * @param rank 1-based rank of the saved score, or -1 if no score was saved.
+     * @param total Number of scores in the history.
+     */
+    public void setRank(int rank, int total) {
+        if (rank > 0) {
+            lblRank.setText("You placed #" + rank + " of " + total);
+        } else {
+            lblRank.setText(" ");
+        }
+    }
+
+    /**
+     * Shows how long each player's moves took: median, 90th and 99th percentile of
+     * every timing recorded for them (see MoveStats).
+     */
+    public void setMoveStats(GameEngine engine) {
+        MoveStats stats = engine.getMoveStats();
+        StringBuilder html = new StringBuilder("<html><table cellpadding=2>");
+        html.append("<tr><th align=left>Move timings</th><th>p50</th><th>p90</th><th>p99</th><th>moves</th></tr>");
+        boolean any = false;
+        for (int seat = 0; seat < 2; seat++) {
+            String name = (seat == 0 ? engine.getP1() : engine.getP2()).getName();
+            for (MoveStats.Kind kind : MoveStats.Kind.values()) {
+                LatencyHistogram h = stats.get(seat, kind);
+                if (h == null || h.getCount() == 0) continue;
+                any = true;
+                html.append("<tr><td>").append(escape(name)).append(" - ").append(kind.getLabel()).append("</td>")
+                    .append("<td align=right>").append(format(h.getPercentile(0.50))).append("</td>")
+                    .append("<td align=right>").append(format(h.getPercentile(0.90))).append("</td>")
+                    .append("<td align=right>").append(format(h.getPercentile(0.99))).append("</td>")
+                    .append("<td align=right>").append(h.getCount()).append("</td></tr>");
+            }
+        }
+        html.append("</table></html>");
+        lblTimings.setText(any ? html.toString() : " ");
+    }
+
+    // --- Private Helper Methods ---
+
+    private static String format(long nanos) {
+        double millis = nanos / 1e6;
+        if (millis >= 1000) return String.format("%.1f s", millis / 1000);
+        if (millis >= 10) return String.format("%.0f ms", millis);
+        return String.format("%.1f ms", millis);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
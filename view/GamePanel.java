@@ -1,23 +1,43 @@
 package view;
 
 import controller.GameEngine;
+import controller.GameSnapshot;
 import model.Card;
 import model.ComputerPlayer; 
+import util.LatencyHistogram;
+import util.Metrics;
+import util.TimingWheel;
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The main game board panel.
  * Handles grid layout, user interactions (clicks), and coordinates the AI's turn.
  */
 public class GamePanel extends JPanel {
+    private static final long AI_THINK_MILLIS = 1000;        // before each card the AI turns over
+    private static final long MISMATCH_REVEAL_MILLIS = 1000; // both cards of a mismatch stay visible
+    private static final long TURN_TIMEOUT_MILLIS = 30_000;  // a player who makes no move in time loses the turn
+    private static final long NOT_CLICKED = Long.MIN_VALUE;  // handleCardClick for an AI move
+    private static final LatencyHistogram REFRESH_TIME = Metrics.histogram("ui.refresh");
+    private static final LatencyHistogram BUILD_TIME = Metrics.histogram("board.build");
+
     private GameEngine engine;
     private MainFrame frame;
     private int gridSize;
     private List<CardButton> cardButtons;
     private JLabel lblStatus;
+    private TimingWheel.Timeout pendingStep; // next delayed AI or turn step, if any
+    private TimingWheel.Timeout turnTimeout; // while a player is expected to click
+    private int turnTimeouts;                // bumped per timeout, so a cancelled one that already fired is ignored
+    private boolean disposed;
+    private final long imageBytes;
 
     /**
      * Initializes the game board.
@@ -26,6 +46,7 @@ public class GamePanel extends JPanel {
      * @param gridSize The size of the grid (e.g., 4 for 4x4).
      */
     public GamePanel(GameEngine engine, MainFrame frame, int gridSize) {
+        long start = System.nanoTime();
         this.engine = engine;
         this.frame = frame;
         this.gridSize = gridSize;
@@ -52,36 +73,54 @@ public class GamePanel extends JPanel {
         board.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
 
         // Calculate card size dynamically based on screen space
-        Dimension cardDim = calculateCardSize(gridSize);
+        Dimension cardDim = cardSize(gridSize);
 
+        Set<Image> fronts = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
         for (Card card : engine.getCards()) {
-            CardButton btn = new CardButton(card, cardDim);
-            btn.addActionListener(e -> handleCardClick(btn));
+            CardButton btn = CardButtonPool.acquire(card, cardDim);
+            btn.addActionListener(e -> handleCardClick(btn, System.nanoTime()));
             cardButtons.add(btn);
             board.add(btn);
+
+            // Both cards of a pair share the decoded original and its scaled copy
+            if (card.getFrontImage() == null) continue;
+            Image front = card.getFrontImage().getImage();
+            if (!fronts.add(front)) continue;
+            bytes += 4L * Math.max(0, front.getWidth(null)) * Math.max(0, front.getHeight(null));
+            bytes += 4L * cardDim.width * cardDim.height;
         }
+        imageBytes = bytes;
         add(board, BorderLayout.CENTER);
 
         // 3. Control Panel (Bottom)
         JButton btnQuit = new JButton("Quit Game");
         Theme.styleSmallButton(btnQuit, false);
-        btnQuit.addActionListener(e -> frame.showPanel("Menu"));
+        btnQuit.addActionListener(e -> frame.quitGame());
         
         JPanel southPanel = new JPanel();
         southPanel.setOpaque(false);
         southPanel.add(btnQuit);
         add(southPanel, BorderLayout.SOUTH);
 
-        // Check if Computer starts first (rare case, but handled)
-        if (engine.getCurrentPlayer() instanceof ComputerPlayer) {
+        // A resumed game may stop right after a mismatch: finish that turn first
+        if (engine.getSecondSelectedCard() != null) {
+            scheduleTurnSwitch();
+        }
+        // Check if Computer starts first (rare case, or a resumed game on the AI's turn)
+        else if (engine.getCurrentPlayer() instanceof ComputerPlayer) {
             startComputerTurn();
+        } else {
+            startTurnTimeout();
         }
+        BUILD_TIME.record(System.nanoTime() - start);
     }
 
     /**
      * Calculates appropriate card dimensions to fit the window.
+     * Also used to scale the faces before the board is built (see GameSetup).
      */
-    private Dimension calculateCardSize(int size) {
+    static Dimension cardSize(int size) {
         int availableWidth = 1100;
         int availableHeight = 700;
         int w = (availableWidth / size) - 10;
@@ -95,10 +134,13 @@ public class GamePanel extends JPanel {
 
     /**
      * Handles the logic when a user (or AI) clicks a card.
+     * For a user's click, the time until the revealed card has been painted is recorded.
+     * @param clickedNanos System.nanoTime() when the click was dispatched, or NOT_CLICKED for AI moves.
      */
-    private void handleCardClick(CardButton btn) {
+    private void handleCardClick(CardButton btn, long clickedNanos) {
         // Validate: Ignore if processing animation, card is up, or matched
         if (engine.isProcessing() || btn.getCard().isFaceUp() || btn.getCard().isMatched()) return;
+        cancelTurnTimeout();
 
         // --- AI MEMORY UPDATE ---
         // If playing against AI, show this card to the AI so it can remember it
@@ -110,20 +152,15 @@ public class GamePanel extends JPanel {
         // Process the selection in the engine
         boolean isMatch = engine.handleCardSelection(btn.getCard());
         refreshUI();
+        if (clickedNanos != NOT_CLICKED) {
+            btn.whenPainted(paintedNanos -> {
+                if (!disposed) engine.recordRevealLatency(paintedNanos - clickedNanos);
+            });
+        }
 
         // Scenario 1: No Match (Wait and Switch Turn)
         if (!isMatch && engine.getSecondSelectedCard() != null) {
-            Timer timer = new Timer(1000, e -> {
-                engine.switchTurn();
-                refreshUI();
-                
-                // If turn passed to Computer, start AI logic
-                if (engine.getCurrentPlayer() instanceof ComputerPlayer) {
-                    startComputerTurn();
-                }
-            });
-            timer.setRepeats(false);
-            timer.start();
+            scheduleTurnSwitch();
         }
         // Scenario 2: Match Found (Current player continues)
         else if (isMatch) {
@@ -134,17 +171,110 @@ public class GamePanel extends JPanel {
 
              // If it was the AI's turn, it plays again
              if (engine.getCurrentPlayer() instanceof ComputerPlayer) {
-                 Timer timer = new Timer(1000, e -> startComputerTurn());
-                 timer.setRepeats(false);
-                 timer.start();
+                 schedule(AI_THINK_MILLIS, this::startComputerTurn);
              }
         }
 
         // Check Game Over
         if (engine.isGameOver()) {
-            frame.triggerGameOver(engine.getWinner().getName(), 
-                                engine.getP1().getScore(), 
-                                engine.getP2().getScore());
+            frame.triggerGameOver(engine, gridSize);
+        } else {
+            autosave();
+            if (!engine.isProcessing()) startTurnTimeout(); // The same player picks the next card
+        }
+    }
+
+    /**
+     * Waits so both cards of a mismatch stay visible, then passes the turn.
+     */
+    private void scheduleTurnSwitch() {
+        schedule(MISMATCH_REVEAL_MILLIS, this::passTurn);
+    }
+
+    /**
+     * Gives the turn to the other player, turning the unmatched cards face down again.
+     */
+    private void passTurn() {
+        engine.switchTurn();
+        refreshUI();
+        autosave();
+
+        // If turn passed to Computer, start AI logic
+        if (engine.getCurrentPlayer() instanceof ComputerPlayer) {
+            startComputerTurn();
+        } else {
+            startTurnTimeout();
+        }
+    }
+
+    /**
+     * Gives the player on turn TURN_TIMEOUT_MILLIS for the next card; if no card is
+     * clicked by then, a card already turned over goes face down and the turn passes.
+     * The AI keeps its own pace and is never timed out.
+     */
+    private void startTurnTimeout() {
+        cancelTurnTimeout();
+        if (disposed || engine.isGameOver() || engine.getCurrentPlayer() instanceof ComputerPlayer) return;
+        int id = turnTimeouts;
+        turnTimeout = TimingWheel.shared().schedule(TURN_TIMEOUT_MILLIS, () -> SwingUtilities.invokeLater(() -> {
+            if (!disposed && id == turnTimeouts && !engine.isProcessing()) passTurn();
+        }));
+    }
+
+    private void cancelTurnTimeout() {
+        turnTimeouts++;
+        if (turnTimeout != null) {
+            turnTimeout.cancel();
+            turnTimeout = null;
+        }
+    }
+
+    /**
+     * Runs a step of the game on the EDT after a delay. All boards share one timing
+     * wheel thread instead of a Swing Timer per move.
+     */
+    private void schedule(long delayMillis, Runnable step) {
+        pendingStep = TimingWheel.shared().schedule(delayMillis, () -> SwingUtilities.invokeLater(() -> {
+            if (!disposed) step.run();
+        }));
+    }
+
+    /**
+     * Stops the board once it is no longer shown: pending AI moves, turn switches and
+     * turn timeouts are dropped so they cannot act on the game, and the card buttons, with their
+     * animations stopped, go back to the pool for the next board.
+     */
+    public void dispose() {
+        if (disposed) return;
+        disposed = true;
+        if (pendingStep != null) pendingStep.cancel();
+        cancelTurnTimeout();
+        for (CardButton btn : cardButtons) {
+            CardButtonPool.release(btn);
+        }
+        cardButtons.clear();
+    }
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Approximate heap taken by this board's card images (decoded originals plus
+     * their scaled copies), in bytes. Safe to call from any thread.
+     */
+    public long getImageBytes() {
+        return imageBytes;
+    }
+
+    /**
+     * Saves the current state so the game can be resumed after the app is closed.
+     */
+    private void autosave() {
+        try {
+            GameSnapshot.save(engine, gridSize, MainFrame.AUTOSAVE_PATH);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
@@ -152,11 +282,16 @@ public class GamePanel extends JPanel {
      * Refreshes the UI state (card images and status text).
      */
     public void refreshUI() {
-        for (CardButton btn : cardButtons) {
-            btn.updateDisplay();
+        long start = System.nanoTime();
+        try {
+            for (CardButton btn : cardButtons) {
+                btn.updateDisplay();
+            }
+            lblStatus.setText("Turn: " + engine.getCurrentPlayer().getName() + 
+                             " (Score: " + engine.getCurrentPlayer().getScore() + ")");
+        } finally {
+            REFRESH_TIME.record(System.nanoTime() - start);
         }
-        lblStatus.setText("Turn: " + engine.getCurrentPlayer().getName() + 
-                         " (Score: " + engine.getCurrentPlayer().getScore() + ")");
     }
 
     /**
@@ -169,28 +304,38 @@ public class GamePanel extends JPanel {
 
         ComputerPlayer ai = (ComputerPlayer) engine.getCurrentPlayer();
 
+        // A resumed game may already have the AI's first card face up
+        if (engine.getFirstSelectedCard() != null) {
+            startComputerSecondMove(ai, engine.getFirstSelectedCard());
+            return;
+        }
+
         // Delay 1: "Thinking" time before first move
-        Timer t1 = new Timer(1000, e1 -> {
+        schedule(AI_THINK_MILLIS, () -> {
             // Ask AI for the best first move
             CardButton btn1 = ai.makeMove(cardButtons, null);
             
             if (btn1 != null) {
-                handleCardClick(btn1); 
-
-                // Delay 2: Time before second move
-                Timer t2 = new Timer(1000, e2 -> {
-                    // Ask AI for the best second move (knowing the first card)
-                    CardButton btn2 = ai.makeMove(cardButtons, btn1.getCard());
-                    
-                    if (btn2 != null) {
-                        handleCardClick(btn2); 
-                    }
-                });
-                t2.setRepeats(false);
-                t2.start();
+                engine.recordAiDecision(ai.getLastMoveNanos());
+                handleCardClick(btn1, NOT_CLICKED);
+                startComputerSecondMove(ai, btn1.getCard());
+            }
+        });
+    }
+
+    /**
+     * Second half of the Computer's turn, once its first card is face up.
+     */
+    private void startComputerSecondMove(ComputerPlayer ai, Card firstCard) {
+        // Delay 2: Time before second move
+        schedule(AI_THINK_MILLIS, () -> {
+            // Ask AI for the best second move (knowing the first card)
+            CardButton btn2 = ai.makeMove(cardButtons, firstCard);
+            
+            if (btn2 != null) {
+                engine.recordAiDecision(ai.getLastMoveNanos());
+                handleCardClick(btn2, NOT_CLICKED);
             }
         });
-        t1.setRepeats(false);
-        t1.start();
     }
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package view;
+
+import controller.GameEngine;
+import model.Card;
+import net.RemoteGameClient;
+import util.Settings;
+import javax.swing.ImageIcon;
+import javax.swing.SwingWorker;
+import java.awt.Dimension;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Prepares a game off the Event Dispatch Thread.
+ *
+ * The slow part of starting a game runs in the background:
+ * - decoding the card images
+ * - talking to the game server
+ * - replaying a saved game
+ * - creating the players and the engine
+ * - scaling every face to the card size
+ * Only attaching the finished game to a new board runs on the EDT (see MainFrame),
+ * and by then every face is already in the ScaledImageCache.
+ *
+ * Progress goes to an optional listener on the EDT. A setup can be cancelled until
+ * it attaches: the background work stops at its next step, and whatever it built
+ * is dropped. That includes closing a server connection it opened.
+ */
+final class GameSetup extends SwingWorker<GameSetup.Prepared, GameSetup.Step> {
+    /**
+     * Builds the game on the background thread, reporting progress through step().
+     */
+    interface Builder {
+        Prepared build(GameSetup setup) throws Exception;
+    }
+
+    /**
+     * Shows the progress of a setup, e.g. in a progress bar. Called on the EDT.
+     */
+    interface Listener {
+        void setupProgress(String phase, int percent);
+
+        /**
+         * The setup attached its game, failed or was cancelled.
+         */
+        void setupFinished();
+    }
+
+    /**
+     * A game ready to be shown.
+     */
+    static final class Prepared {
+        final GameEngine engine;
+        final int gridSize;
+        final RemoteGameClient client; // connection of a server-hosted game, or null
+
+        Prepared(GameEngine engine, int gridSize, RemoteGameClient client) {
+            this.engine = engine;
+            this.gridSize = gridSize;
+            this.client = client;
+        }
+    }
+
+    static final class Step {
+        final String phase;
+        final int percent;
+
+        Step(String phase, int percent) {
+            this.phase = phase;
+            this.percent = percent;
+        }
+    }
+
+    private static final int SCALE_START = 70; // percent reached when the engine is built
+
+    private final Builder builder;
+    private final Listener listener;
+    private final Consumer<Prepared> onReady;
+    private final Consumer<Throwable> onFailure;
+    private final int scaleHint; // read on the EDT, where the render quality changes
+    private final AtomicReference<Prepared> prepared = new AtomicReference<>(); // built, not yet shown
+
+    /**
+     * @param listener Progress display, or null.
+     * @param onReady Attaches the game; runs on the EDT unless the setup was cancelled.
+     * @param onFailure Reports what made the build fail; runs on the EDT.
+     */
+    GameSetup(Builder builder, Listener listener, Consumer<Prepared> onReady, Consumer<Throwable> onFailure) {
+        this.builder = builder;
+        this.listener = listener;
+        this.onReady = onReady;
+        this.onFailure = onFailure;
+        this.scaleHint = Settings.getRenderQuality().getScaleHint();
+    }
+
+    /**
+     * Reports progress from the builder and stops the build if the setup was cancelled.
+     * @throws CancellationException If it was.
+     */
+    void step(String phase, int percent) {
+        if (isCancelled()) throw new CancellationException();
+        publish(new Step(phase, percent));
+    }
+
+    /**
+     * Percentage for the builder's own progress, which gets the first 70 percent.
+     * @param done Units of work done, e.g. images decoded.
+     * @param total Units of work in all.
+     */
+    static int buildPercent(int done, int total) {
+        return total <= 0 ? SCALE_START : done * SCALE_START / total;
+    }
+
+    @Override
+    protected Prepared doInBackground() throws Exception {
+        Prepared game = builder.build(this);
+        prepared.set(game);
+        if (isCancelled()) {
+            discard(); // done() may have run before the game was there
+            throw new CancellationException();
+        }
+
+        // Scale each distinct face now, so building the board only looks them up
+        Dimension size = GamePanel.cardSize(game.gridSize);
+        Set<ImageIcon> faces = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Card card : game.engine.getCards()) {
+            if (card.getFrontImage() != null) faces.add(card.getFrontImage());
+        }
+        int done = 0;
+        for (ImageIcon face : faces) {
+            step("Scaling card images", SCALE_START + done++ * (99 - SCALE_START) / faces.size());
+            ScaledImageCache.get(face, size.width, size.height, scaleHint);
+        }
+        step("Building the board", 99);
+        return game;
+    }
+
+    @Override
+    protected void process(List<Step> steps) {
+        if (listener == null || isCancelled()) return;
+        Step last = steps.get(steps.size() - 1);
+        listener.setupProgress(last.phase, last.percent);
+    }
+
+    @Override
+    protected void done() {
+        try {
+            if (isCancelled()) {
+                discard();
+                return;
+            }
+            try {
+                Prepared game = get();
+                prepared.set(null); // The board owns it now
+                onReady.accept(game);
+            } catch (ExecutionException e) {
+                discard();
+                onFailure.accept(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Cannot happen: the work is done
+            }
+        } finally {
+            if (listener != null) listener.setupFinished();
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Drops a game that will not be shown. Called from done() and, if the setup was
+     * cancelled while the builder ran, from the background thread; whichever comes
+     * second finds nothing left to close.
+     */
+    private void discard() {
+        Prepared game = prepared.getAndSet(null);
+        if (game != null && game.client != null) game.client.close();
+    }
+}
@@ -1,20 +1,42 @@
 package view;
 
+import util.PlayerMatch;
 import util.ScoreManager;
+import util.ScoreQuery;
+import util.ScoreRecord;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
 
 /**
- * Displays the leaderboard showing the top 10 highest scores.
- * Fetches data from the ScoreManager and renders it in a styled table.
+ * Displays the leaderboard with the full score history.
+ * Rows are paged in lazily from the ScoreManager and can be filtered by grid
+ * size and date, and sorted by clicking the Rank, Score, Grid or Date header.
+ * A search box finds a player's entries and best rank as they type; the lookup
+ * runs once typing pauses for SEARCH_DELAY_MS.
  */
 public class HighScoresPanel extends JPanel {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final int MAX_SEARCH_RESULTS = 20;
+    private static final int SEARCH_DELAY_MS = 250;
+
     private MainFrame frame;
     private JTable scoreTable;
-    private DefaultTableModel tableModel;
+    private ScoreTableModel tableModel;
+    private JComboBox<String> cbGrid;
+    private JComboBox<String> cbDate;
+    private JTextField txtSearch;
+    private DefaultListModel<String> searchResults;
+    private SwingWorker<List<PlayerMatch>, Void> searchWorker;
+    private final Timer searchDelay = new Timer(SEARCH_DELAY_MS, e -> searchPlayers());
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
     /**
      * Initializes the High Scores UI layout.
@@ -28,30 +50,38 @@ public class HighScoresPanel extends JPanel {
         setBackground(new Color(45, 45, 45));
         setBorder(BorderFactory.createEmptyBorder(30, 50, 30, 50));
 
-        // 1. Title Label
-        JLabel lblTitle = new JLabel("TOP 10 HIGH SCORES");
-        lblTitle.setFont(new Font("Arial", Font.BOLD, 30));
+        // 1. Title Label and Filters
+        JLabel lblTitle = new JLabel("HIGH SCORES");
+        lblTitle.setFont(Theme.font("Arial", Font.BOLD, 30));
         lblTitle.setForeground(Color.ORANGE);
         lblTitle.setHorizontalAlignment(SwingConstants.CENTER);
-        add(lblTitle, BorderLayout.NORTH);
 
-        // 2. Table Setup
-        String[] columnNames = {"Rank", "Player Name", "Score"};
-        
-        // Make cells non-editable
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; 
-            }
-        };
+        cbGrid = new JComboBox<>(new String[]{"All Grids", "4x4", "6x6", "8x8", "10x10"});
+        cbDate = new JComboBox<>(new String[]{"All Time", "Last 24 Hours", "Last 7 Days", "Last 30 Days"});
+        cbGrid.addActionListener(e -> applyFilters());
+        cbDate.addActionListener(e -> applyFilters());
+
+        JPanel filterPanel = new JPanel();
+        filterPanel.setOpaque(false);
+        filterPanel.add(cbGrid);
+        filterPanel.add(cbDate);
+
+        JPanel northPanel = new JPanel(new BorderLayout(10, 10));
+        northPanel.setOpaque(false);
+        northPanel.add(lblTitle, BorderLayout.NORTH);
+        northPanel.add(filterPanel, BorderLayout.SOUTH);
+        add(northPanel, BorderLayout.NORTH);
+
+        // 2. Table Setup (rows are loaded page by page on demand)
+        tableModel = new ScoreTableModel();
 
         scoreTable = new JTable(tableModel);
-        scoreTable.setFont(new Font("Arial", Font.PLAIN, 16));
+        scoreTable.setFont(Theme.font("Arial", Font.PLAIN, 16));
         scoreTable.setRowHeight(30);
-        scoreTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 18));
+        scoreTable.getTableHeader().setFont(Theme.font("Arial", Font.BOLD, 18));
+        scoreTable.getTableHeader().setReorderingAllowed(false);
         scoreTable.setFillsViewportHeight(true);
-        
+
         // Customizing Table Colors to match Dark Theme
         scoreTable.setBackground(new Color(60, 60, 60));
         scoreTable.setForeground(Color.WHITE);
@@ -66,35 +96,149 @@ public class HighScoresPanel extends JPanel {
             scoreTable.getColumnModel().getColumn(i).setCellRenderer(centerRenderer);
         }
 
+        // Header clicks sort through the store instead of a RowSorter (rows are not all loaded)
+        scoreTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = scoreTable.columnAtPoint(e.getPoint());
+                ScoreQuery.SortKey key = column < 0 ? null : tableModel.getSortKey(column);
+                if (key == null) return;
+
+                // Same column again toggles the direction, a new column starts with highest/newest first
+                ScoreQuery current = tableModel.getQuery();
+                boolean ascending = current.getSortKey() == key && !current.isAscending();
+                tableModel.setQuery(current.withSort(key, ascending));
+            }
+        });
+
         // ScrollPane for the table
         JScrollPane scrollPane = new JScrollPane(scoreTable);
         scrollPane.getViewport().setBackground(new Color(45, 45, 45));
         scrollPane.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
         add(scrollPane, BorderLayout.CENTER);
 
-        // 3. Back Button
+        // 3. Player Search (results listed next to the table)
+        JLabel lblSearch = new JLabel("Find Player:");
+        lblSearch.setFont(Theme.font("Arial", Font.BOLD, 16));
+        lblSearch.setForeground(Color.WHITE);
+
+        txtSearch = new JTextField(15);
+        txtSearch.setFont(Theme.font("Arial", Font.PLAIN, 16));
+        txtSearch.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { searchDelay.restart(); }
+            @Override public void removeUpdate(DocumentEvent e) { searchDelay.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { searchDelay.restart(); }
+        });
+        searchDelay.setRepeats(false);
+
+        searchResults = new DefaultListModel<>();
+        JList<String> resultList = new JList<>(searchResults);
+        resultList.setFont(Theme.font("Arial", Font.PLAIN, 14));
+        resultList.setBackground(new Color(60, 60, 60));
+        resultList.setForeground(Color.WHITE);
+
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 5));
+        searchPanel.setOpaque(false);
+        searchPanel.setPreferredSize(new Dimension(280, 0));
+        JPanel searchHeader = new JPanel(new BorderLayout(5, 5));
+        searchHeader.setOpaque(false);
+        searchHeader.add(lblSearch, BorderLayout.NORTH);
+        searchHeader.add(txtSearch, BorderLayout.CENTER);
+        searchPanel.add(searchHeader, BorderLayout.NORTH);
+        searchPanel.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        add(searchPanel, BorderLayout.EAST);
+
+        // 4. Navigation Buttons
         JButton btnBack = new JButton("Back to Menu");
-        btnBack.setFont(new Font("Arial", Font.BOLD, 16));
+        btnBack.setFont(Theme.font("Arial", Font.BOLD, 16));
         btnBack.addActionListener(e -> frame.showPanel("Menu"));
-        
+
+        // Lifetime stats live on their own screen
+        JButton btnStats = new JButton("Player Stats");
+        btnStats.setFont(Theme.font("Arial", Font.BOLD, 16));
+        btnStats.addActionListener(e -> frame.showPanel("PlayerStats"));
+
         JPanel southPanel = new JPanel();
         southPanel.setOpaque(false);
         southPanel.add(btnBack);
+        southPanel.add(btnStats);
         add(southPanel, BorderLayout.SOUTH);
     }
 
     /**
-     * Refreshes the table data from the file.
+     * Refreshes the table data from the score history.
      * This is called every time the user navigates to this panel.
+     * Loading happens in the background, so this returns immediately.
      */
     public void refreshScores() {
-        tableModel.setRowCount(0); // Clear existing data
-        List<String[]> scores = ScoreManager.getTopScores();
-        
-        int rank = 1;
-        for (String[] entry : scores) {
-            // entry[0] is Name, entry[1] is Score
-            tableModel.addRow(new Object[]{rank++, entry[0], entry[1]});
+        tableModel.refresh();
+    }
+
+    /**
+     * Rebuilds the query from the grid and date filters.
+     */
+    private void applyFilters() {
+        // Grid combobox entries map to 0 (all), 4, 6, 8, 10
+        int gridIndex = cbGrid.getSelectedIndex();
+        int gridSize = gridIndex <= 0 ? 0 : 2 + gridIndex * 2;
+
+        // Whole minutes, so picking the same filters again asks the same query (the store reuses it)
+        long now = System.currentTimeMillis() / 60_000 * 60_000;
+        long from;
+        switch (cbDate.getSelectedIndex()) {
+            case 1: from = now - DAY_MILLIS; break;
+            case 2: from = now - 7 * DAY_MILLIS; break;
+            case 3: from = now - 30 * DAY_MILLIS; break;
+            default: from = Long.MIN_VALUE;
+        }
+
+        tableModel.setQuery(tableModel.getQuery()
+                .withGridSize(gridSize)
+                .withDateRange(from, Long.MAX_VALUE));
+    }
+
+    /**
+     * Looks up players matching the search box text in the background.
+     * A newer search cancels the previous lookup so only the latest results are shown.
+     */
+    private void searchPlayers() {
+        String prefix = txtSearch.getText().trim();
+        if (searchWorker != null) {
+            searchWorker.cancel(false);
         }
+        searchResults.clear();
+        if (prefix.isEmpty()) return;
+
+        searchWorker = new SwingWorker<List<PlayerMatch>, Void>() {
+            @Override
+            protected List<PlayerMatch> doInBackground() {
+                return ScoreManager.searchPlayers(prefix, MAX_SEARCH_RESULTS);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+                try {
+                    for (PlayerMatch match : get()) {
+                        searchResults.addElement(match.getName() + " - best #" + match.getBestRank()
+                                + " (" + describe(match.getBest()) + ", " + match.getGames() + " games)");
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        searchWorker.execute();
+    }
+
+    /**
+     * Score, grid and date of a result, e.g. "120 pts, 6x6, 2026-10-19"; legacy entries
+     * without grid or date show just the score.
+     */
+    private String describe(ScoreRecord record) {
+        String text = record.getScore() + " pts";
+        if (record.getGridSize() > 0) text += ", " + record.getGridSize() + "x" + record.getGridSize();
+        if (record.getTimestamp() > 0) text += ", " + dateFormat.format(new Date(record.getTimestamp()));
+        return text;
     }
-}
\ No newline at end of file
+}
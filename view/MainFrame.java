@@ -1,10 +1,30 @@
 package view;
 
 import controller.GameEngine;
+import controller.GameSnapshot;
+import controller.MoveJournal;
+import controller.MoveStats;
 import model.*;
-import util.ScoreManager; 
+import net.RemoteGameClient;
+import util.LatencyHistogram;
+import util.Metrics;
+import util.ScoreManager;
+import util.Settings;
+import util.StartupTimer;
+import util.StatsManager;
+import util.Telemetry;
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * The main window controller that acts as the central hub of the application.
@@ -12,16 +32,28 @@ import java.awt.*;
  * and handles the initialization of new game sessions.
  */
 public class MainFrame extends JFrame {
+    // In-progress game, rewritten after every move and removed when the game ends
+    static final Path AUTOSAVE_PATH = Paths.get("autosave.dat");
+    // Append-only record of every move, used to rebuild a game after a crash
+    private static final Path JOURNAL_PATH = Paths.get("moves.journal");
+    // One JSON line per finished game for offline analysis, gzipped, new file every 8 MB
+    private static final Path TELEMETRY_DIR = Paths.get("telemetry");
+    private static final LatencyHistogram SCREEN_BUILD_TIME = Metrics.histogram("screen.build");
+
     private CardLayout cardLayout;
     private JPanel mainContainer;
     
-    // References to the various screens of the application
-    private MenuPanel menuPanel;
-    private ModeSelectionPanel modeSelectionPanel;
-    private RulesPanel rulesPanel;
-    private SettingsPanel settingsPanel;
-    private GameOverPanel gameOverPanel;
-    private HighScoresPanel highScoresPanel;
+    // The various screens of the application, each built the first time it is shown
+    private final Map<String, Supplier<JPanel>> screenFactories = new HashMap<>();
+    private final Map<String, JPanel> screens = new HashMap<>();
+    private boolean painted; // the window has been painted once
+
+    private MoveJournal journal; // null if the journal file could not be opened
+    private RemoteGameClient remoteClient; // connection of the current server-hosted game, if any
+    private volatile GamePanel gamePanel;  // the board of the current game, if any
+    private GameSetup setup;               // the game being prepared in the background, if any
+    private int gamesOver;                 // finished games, so a late rank only lands on its own game
+    private final Telemetry telemetry = new Telemetry(TELEMETRY_DIR, true, 8L * 1024 * 1024, 1024);
 
     public MainFrame() {
         // Window configuration
@@ -29,50 +61,103 @@ public class MainFrame extends JFrame {
         setSize(1200, 900);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null); // Center on screen
+        StartupTimer.phase("window");
+
+        try {
+            journal = new MoveJournal(JOURNAL_PATH);
+        } catch (IOException e) {
+            e.printStackTrace(); // Games still work, they just cannot be recovered
+        }
+
+        // Write out queued telemetry when the window closes the application
+        Runtime.getRuntime().addShutdownHook(new Thread(telemetry::close, "telemetry-close"));
+
+        Metrics.gauge("images.heapBytes", () -> {
+            GamePanel board = gamePanel;
+            return board == null ? 0 : board.getImageBytes();
+        });
+
+        StartupTimer.phase("journal");
 
         // Use CardLayout to switch between views
         cardLayout = new CardLayout();
-        mainContainer = new JPanel(cardLayout);
-
-        // Initialize all interface panels
-        // IMPORTANT: settingsPanel must be initialized here so we can access it later
-        menuPanel = new MenuPanel(this);
-        modeSelectionPanel = new ModeSelectionPanel(this);
-        rulesPanel = new RulesPanel(this);
-        settingsPanel = new SettingsPanel(this);
-        gameOverPanel = new GameOverPanel(this);
-        highScoresPanel = new HighScoresPanel(this);
-
-        // Add panels to the container with unique identifiers
-        mainContainer.add(menuPanel, "Menu");
-        mainContainer.add(modeSelectionPanel, "ModeSelection");
-        mainContainer.add(rulesPanel, "Rules");
-        mainContainer.add(settingsPanel, "Settings");
-        mainContainer.add(gameOverPanel, "GameOver");
-        mainContainer.add(highScoresPanel, "HighScores");
+        mainContainer = new JPanel(cardLayout) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (painted) return;
+                painted = true;
+                // The menu is on screen; it takes input as soon as the EDT is free again
+                SwingUtilities.invokeLater(() -> StartupTimer.finish("first paint"));
+            }
+        };
+
+        // Register the interface panels with unique identifiers; showPanel builds them
+        screenFactories.put("Menu", () -> new MenuPanel(this));
+        screenFactories.put("ModeSelection", () -> new ModeSelectionPanel(this));
+        screenFactories.put("Rules", () -> new RulesPanel(this));
+        screenFactories.put("Settings", () -> new SettingsPanel(this));
+        screenFactories.put("GameOver", () -> new GameOverPanel(this));
+        screenFactories.put("HighScores", () -> new HighScoresPanel(this));
+        screenFactories.put("PlayerStats", () -> new PlayerStatsPanel(this));
 
         add(mainContainer);
         
         // Apply theme defaults to the window
         Theme.applyWindowDefaults(this);
+        StartupTimer.phase("theme");
+
+        // Performance overlay, toggled with F3
+        PerformanceHud hud = new PerformanceHud(this);
+        setGlassPane(hud);
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("F3"), "toggleHud");
+        getRootPane().getActionMap().put("toggleHud", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                hud.toggle();
+            }
+        });
 
         // Start showing the main menu
         showPanel("Menu");
+        StartupTimer.phase("menu");
     }
 
     /**
-     * Switches the current view to the specified panel.
+     * The board of the current game, or null if none has been started.
+     */
+    public GamePanel getGamePanel() {
+        return gamePanel;
+    }
+
+    /**
+     * Switches the current view to the specified panel, building it on first use.
      * Also handles data refreshing for specific panels like High Scores.
      * @param panelName The string identifier of the panel to show.
      */
     public void showPanel(String panelName) {
-        if (panelName.equals("HighScores")) {
-            highScoresPanel.refreshScores();
+        JPanel panel = screen(panelName);
+        if (panelName.equals("Menu")) {
+            ((MenuPanel) panel).setResumeAvailable(Files.exists(AUTOSAVE_PATH));
+        } else if (panelName.equals("HighScores")) {
+            ((HighScoresPanel) panel).refreshScores();
+        } else if (panelName.equals("PlayerStats")) {
+            ((PlayerStatsPanel) panel).refreshStats();
         }
         cardLayout.show(mainContainer, panelName);
         mainContainer.requestFocusInWindow();
     }
 
+    /**
+     * Leaves the current game for the menu. The board is stopped and dropped; the
+     * game itself can still be resumed from its autosave.
+     */
+    public void quitGame() {
+        disposeBoard();
+        closeRemoteGame();
+        showPanel("Menu");
+    }
+
     /**
      * Helper method to open the game mode selection screen.
      */
@@ -93,6 +178,8 @@ public class MainFrame extends JFrame {
 
     /**
      * Sets up and starts a new game based on user configuration.
+     * The deck and players are prepared in the background while the setup screen
+     * shows the progress; the game starts once everything is ready.
      * @param isPvP True for 2-player mode, False for Player vs Computer.
      * @param p1Name Name of the first player.
      * @param p2Name Name of the second player (or ignored if AI).
@@ -100,19 +187,228 @@ public class MainFrame extends JFrame {
      */
     public void initializeGame(boolean isPvP, String p1Name, String p2Name, int gridSize, String difficulty) {
         System.out.println("Initializing Game..."); // Debug print
-
-        // 1. Prepare the Deck
         int pairsNeeded = (gridSize * gridSize) / 2;
-        
-        // Card values corresponding to file names (1.jpg ... 13.jpg)
-        String[] values = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13"};
-        String[] suits = {"c", "d", "h", "s"};
-        
-        Deck deck = new Deck();
-        // Load images from the resources folder
-        deck.initializeDeck(values, suits, "resources/images/", pairsNeeded);
+        int images = Math.min(pairsNeeded, Deck.VALUES.length * Deck.SUITS.length);
+
+        runSetup(setup -> {
+            // 1. Prepare the Deck
+            setup.step("Loading card images", 0);
+            Deck deck = new Deck();
+            deck.setLoadProgress(loaded -> setup.step("Loading card images", GameSetup.buildPercent(loaded, images)));
+            // Load images from the resources folder
+            deck.initializeDeck(Deck.VALUES, Deck.SUITS, Deck.IMAGE_PATH, pairsNeeded);
+
+            // 2. Configure Players and 3. Initialize Game Logic Engine
+            setup.step("Creating players", GameSetup.buildPercent(images, images));
+            GameEngine engine = createEngine(isPvP, p1Name, p2Name, difficulty, deck.getCards());
+
+            // 4. The board is created once this returns
+            return new GameSetup.Prepared(engine, gridSize, null);
+        }, (ModeSelectionPanel) screen("ModeSelection"), "Setup Error", "The game could not be started.");
+    }
+
+    /**
+     * Starts a game hosted on a game server. The board comes from the server, which
+     * checks every move; the game itself is played locally like any other game
+     * (both seats are on this screen, so the server sends the whole layout).
+     * Connecting and loading happen in the background, like for a local game.
+     * @param host Server host name.
+     * @param port Server port.
+     */
+    public void initializeRemoteGame(String host, int port, boolean isPvP, String p1Name, String p2Name,
+                                     int gridSize, String difficulty) {
+        runSetup(setup -> {
+            setup.step("Connecting to " + host + ":" + port, 0);
+            RemoteGameClient client = new RemoteGameClient(host, port);
+            try {
+                RemoteGameClient.RemoteGame remote = client.createGame(p1Name, isPvP ? p2Name : "Computer AI", gridSize, true);
+
+                int[] faceIds = remote.getFaceIds();
+                int images = (int) Arrays.stream(faceIds).distinct().count();
+                Deck deck = new Deck();
+                deck.setLoadProgress(loaded -> setup.step("Loading card images", GameSetup.buildPercent(loaded, images)));
+                deck.loadLayout(faceIds, Deck.IMAGE_PATH);
+
+                GameEngine engine = createEngine(isPvP, p1Name, p2Name, difficulty, deck.getCards());
+                engine.addListener(client.mirror(remote.getSessionId(), problem -> SwingUtilities.invokeLater(() -> {
+                    if (remoteClient != client) return; // That game is already over
+                    closeRemoteGame();
+                    JOptionPane.showMessageDialog(this, problem, "Server Error", JOptionPane.ERROR_MESSAGE);
+                    showPanel("Menu");
+                })));
+                return new GameSetup.Prepared(engine, gridSize, client);
+            } catch (Exception e) {
+                client.close(); // Includes a cancelled setup
+                throw e;
+            }
+        }, (ModeSelectionPanel) screen("ModeSelection"), "Server Error", "Could not start a game on " + host + ":" + port + ".");
+    }
+
+    /**
+     * Restores the interrupted game and continues playing it.
+     * The move journal is replayed first; the autosave snapshot is the fallback.
+     * Both are read in the background; the menu stays usable meanwhile.
+     */
+    public void resumeGame() {
+        runSetup(setup -> {
+            setup.step("Loading the saved game", 0);
+            GameSnapshot snapshot = MoveJournal.recoverLastGame(JOURNAL_PATH, Deck.IMAGE_PATH);
+            if (snapshot == null) {
+                snapshot = GameSnapshot.load(AUTOSAVE_PATH, Deck.IMAGE_PATH);
+            }
+            return new GameSetup.Prepared(snapshot.getEngine(), snapshot.getGridSize(), null);
+        }, null, "Resume Error", "The saved game could not be loaded.");
+    }
+
+    /**
+     * Stops preparing a game that has not started yet, e.g. when the player leaves
+     * the setup screen. Does nothing if no game is being prepared.
+     */
+    public void cancelSetup() {
+        if (setup != null) {
+            setup.cancel(false);
+            setup = null;
+        }
+    }
+
+    /**
+     * Handles the end-of-game sequence.
+     * Saves scores and lifetime stats, then displays the results screen.
+     * The rank of a saved score is filled in once it is on disk.
+     * @param engine The finished game.
+     * @param gridSize The dimension of the finished board (stored with the score).
+     */
+    public void triggerGameOver(GameEngine engine, int gridSize) {
+        String winnerName = engine.getWinner().getName();
+        int p1Score = engine.getP1().getScore();
+        int p2Score = engine.getP2().getScore();
+
+        // Calculate the winning high score
+        int winningScore = Math.max(p1Score, p2Score);
+
+        GameOverPanel gameOverPanel = (GameOverPanel) screen("GameOver");
+        gameOverPanel.setRank(-1, 0); // Shown once the score is saved
+        Telemetry.Record record = telemetryRecord(engine, gridSize, winnerName);
+
+        // Save score only if it's a valid human win
+        // We don't save "Draw" or if the Computer won
+        if (!winnerName.equals("Draw") && !winnerName.equals("Computer AI")) {
+            int game = ++gamesOver;
+            ScoreManager.saveScore(winnerName, winningScore, gridSize, rank -> {
+                // On the score thread, once the score is on disk
+                int total = ScoreManager.getTotalScores();
+                telemetry.submit(record.put("rank", rank > 0 ? rank : null));
+                SwingUtilities.invokeLater(() -> {
+                    if (game == gamesOver) gameOverPanel.setRank(rank, total);
+                });
+            });
+        } else {
+            // Queue the game for the telemetry files; never waits for the disk
+            telemetry.submit(record);
+        }
 
-        // 2. Configure Players
+        // Update lifetime stats of every human player in the game
+        long duration = engine.getElapsedMillis();
+        for (Player p : new Player[]{engine.getP1(), engine.getP2()}) {
+            if (!(p instanceof ComputerPlayer)) {
+                StatsManager.recordGame(p.getName(), p.getName().equals(winnerName),
+                        p.getMoves(), p.getPairs(), gridSize, duration);
+            }
+        }
+
+        closeRemoteGame();
+
+        // A finished game can no longer be resumed
+        if (journal != null) {
+            journal.endGame(engine);
+        }
+        try {
+            Files.deleteIfExists(AUTOSAVE_PATH);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // Update the Game Over screen with details
+        gameOverPanel.setResults(winnerName, p1Score, p2Score);
+        gameOverPanel.setMoveStats(engine);
+        showPanel("GameOver");
+
+        // The board is done; its buttons go back to the pool for the next game
+        disposeBoard();
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Everything worth analysing about a finished game: its setup, outcome, per-move
+     * timings, and the rendering stats of this session so far.
+     */
+    private Telemetry.Record telemetryRecord(GameEngine engine, int gridSize, String winnerName) {
+        MoveStats stats = engine.getMoveStats();
+        List<Telemetry.Record> players = new ArrayList<>();
+        String difficulty = null;
+        for (int seat = 0; seat < 2; seat++) {
+            Player p = seat == 0 ? engine.getP1() : engine.getP2();
+            boolean ai = p instanceof ComputerPlayer;
+            if (ai) difficulty = ((ComputerPlayer) p).getDifficulty();
+
+            Telemetry.Record timings = new Telemetry.Record();
+            for (MoveStats.Kind kind : MoveStats.Kind.values()) {
+                LatencyHistogram h = stats.get(seat, kind);
+                if (h != null && h.getCount() > 0) timings.put(kind.name().toLowerCase(), summary(h));
+            }
+            players.add(new Telemetry.Record()
+                    .put("name", p.getName())
+                    .put("ai", ai)
+                    .put("score", p.getScore())
+                    .put("moves", p.getMoves())
+                    .put("pairs", p.getPairs())
+                    .put("timings", timings));
+        }
+
+        GamePanel board = gamePanel;
+        long lookups = ScaledImageCache.getHits() + ScaledImageCache.getMisses();
+        Telemetry.Record render = new Telemetry.Record()
+                .put("animations", Settings.isAnimationsEnabled())
+                .put("renderQuality", Settings.getRenderQuality().name())
+                .put("autoQuality", Settings.isAutoQuality())
+                .put("theme", Theme.currentTheme.name())
+                .put("animationFrame", summary(Metrics.histogram("animation.frame")))
+                .put("uiRefresh", summary(Metrics.histogram("ui.refresh")))
+                .put("imageCacheHitRate", lookups == 0 ? null : (double) ScaledImageCache.getHits() / lookups)
+                .put("imageBytes", board == null ? 0 : board.getImageBytes())
+                .put("edtStalls", EdtWatchdog.get().getStallCount());
+
+        return new Telemetry.Record()
+                .put("type", "game")
+                .put("endedAt", System.currentTimeMillis())
+                .put("gridSize", gridSize)
+                .put("mode", engine.isPvP() ? "pvp" : "pvc")
+                .put("difficulty", difficulty)
+                .put("remote", remoteClient != null)
+                .put("durationMillis", engine.getElapsedMillis())
+                .put("winner", winnerName)
+                .put("rank", null) // Set once the score is saved
+                .put("players", players)
+                .put("render", render);
+    }
+
+    /**
+     * Count and percentiles of a histogram, in milliseconds.
+     */
+    private static Telemetry.Record summary(LatencyHistogram h) {
+        return new Telemetry.Record()
+                .put("count", h.getCount())
+                .put("p50", h.getPercentile(0.50) / 1e6)
+                .put("p90", h.getPercentile(0.90) / 1e6)
+                .put("p99", h.getPercentile(0.99) / 1e6)
+                .put("max", h.getMax() / 1e6);
+    }
+
+    /**
+     * Creates the players and the game engine for a new game.
+     */
+    private GameEngine createEngine(boolean isPvP, String p1Name, String p2Name, String difficulty, List<Card> cards) {
         // Using anonymous subclass for human players to implement abstract methods
         Player p1 = new Player(p1Name) { @Override public void playTurn() {} };
         Player p2;
@@ -131,17 +427,43 @@ public class MainFrame extends JFrame {
             
             p2 = ai;
         }
+        return new GameEngine(p1, p2, cards, isPvP);
+    }
 
-        // 3. Initialize Game Logic Engine
-        GameEngine engine = new GameEngine(p1, p2, deck.getCards(), isPvP);
+    /**
+     * Prepares a game in the background (cancelling one still being prepared) and
+     * starts it when it is ready; if preparing it fails, shows the error instead.
+     * @param listener Shows the progress, or null.
+     */
+    private void runSetup(GameSetup.Builder builder, GameSetup.Listener listener, String errorTitle, String errorMessage) {
+        cancelSetup();
+        setup = new GameSetup(builder, listener, game -> {
+            setup = null;
+            closeRemoteGame();
+            remoteClient = game.client;
+            startGame(game.engine, game.gridSize);
+        }, error -> {
+            setup = null;
+            error.printStackTrace();
+            JOptionPane.showMessageDialog(this, errorMessage, errorTitle, JOptionPane.ERROR_MESSAGE);
+        });
+        setup.execute();
+    }
 
-        // 4. Create Game Board UI
-        // We create a new GamePanel instance for every new game to reset state
-        GamePanel gamePanel = new GamePanel(engine, this, gridSize);
-        
-        // Add it to the layout (replacing any old game instance if necessary)
-        // Note: CardLayout handles duplicate names by keeping the latest one usually, 
-        // but removing the old one first is cleaner if possible. Swing handles this ok.
+    /**
+     * Journals the game, shows a new board for it and switches to the game view.
+     */
+    private void startGame(GameEngine engine, int gridSize) {
+        if (journal != null) {
+            journal.startGame(engine, gridSize);
+        }
+
+        // Remove the previous board so finished games do not pile up in memory
+        disposeBoard();
+
+        // We create a new GamePanel instance for every game to reset state (its buttons are reused)
+        gamePanel = new GamePanel(engine, this, gridSize);
+        gamePanel.refreshUI(); // A resumed game already has cards face up
         mainContainer.add(gamePanel, "Game");
         
         // Switch view to the game
@@ -149,21 +471,37 @@ public class MainFrame extends JFrame {
     }
 
     /**
-     * Handles the end-of-game sequence.
-     * Saves scores and displays the results screen.
+     * The screen registered under the name, built and added to the window the first
+     * time it is asked for; null for the game board, which startGame adds itself.
      */
-    public void triggerGameOver(String winnerName, int p1Score, int p2Score) {
-        // Calculate the winning high score
-        int winningScore = Math.max(p1Score, p2Score);
+    private JPanel screen(String name) {
+        JPanel panel = screens.get(name);
+        Supplier<JPanel> factory = screenFactories.get(name);
+        if (panel != null || factory == null) return panel;
 
-        // Save score only if it's a valid human win
-        // We don't save "Draw" or if the Computer won
-        if (!winnerName.equals("Draw") && !winnerName.equals("Computer AI")) {
-            ScoreManager.saveScore(winnerName, winningScore);
-        }
+        long start = System.nanoTime();
+        panel = factory.get();
+        mainContainer.add(panel, name);
+        screens.put(name, panel);
+        SCREEN_BUILD_TIME.record(System.nanoTime() - start);
+        return panel;
+    }
 
-        // Update the Game Over screen with details
-        gameOverPanel.setResults(winnerName, p1Score, p2Score);
-        showPanel("GameOver");
+    /**
+     * Stops the current board and removes it from the window, if there is one.
+     */
+    private void disposeBoard() {
+        GamePanel board = gamePanel;
+        if (board == null) return;
+        gamePanel = null;
+        board.dispose();
+        mainContainer.remove(board);
+    }
+
+    private void closeRemoteGame() {
+        if (remoteClient != null) {
+            remoteClient.close();
+            remoteClient = null;
+        }
     }
-}
\ No newline at end of file
+}
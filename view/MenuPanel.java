@@ -9,6 +9,7 @@ import java.awt.*;
  */
 public class MenuPanel extends JPanel {
     private MainFrame frame;
+    private JButton btnResume;
 
     /**
      * Initializes the Menu UI with buttons and styling.
@@ -53,37 +54,52 @@ public class MenuPanel extends JPanel {
         gbc.gridy = 2;
         add(btnNewGame, gbc);
 
-        // 4. High Scores Button
+        // 4. Resume Button (only shown when an autosaved game exists)
+        btnResume = new JButton("Resume Game");
+        Theme.styleButton(btnResume, false);
+        btnResume.addActionListener(e -> frame.resumeGame());
+        btnResume.setVisible(false);
+        gbc.gridy = 3;
+        add(btnResume, gbc);
+
+        // 5. High Scores Button
         JButton btnHighScores = new JButton("High Scores");
         Theme.styleButton(btnHighScores, false);
         btnHighScores.addActionListener(e -> frame.showPanel("HighScores"));
-        gbc.gridy = 3;
+        gbc.gridy = 4;
         add(btnHighScores, gbc);
 
-        // 5. Settings Button
+        // 6. Settings Button
         JButton btnSettings = new JButton("Settings");
         Theme.styleButton(btnSettings, false);
         btnSettings.addActionListener(e -> frame.showPanel("Settings"));
-        gbc.gridy = 4;
+        gbc.gridy = 5;
         add(btnSettings, gbc);
 
-        // 6. Rules Button
+        // 7. Rules Button
         JButton btnRules = new JButton("How to Play");
         Theme.styleButton(btnRules, false);
         btnRules.addActionListener(e -> frame.showPanel("Rules"));
-        gbc.gridy = 5;
+        gbc.gridy = 6;
         add(btnRules, gbc);
 
-        // 7. Exit Button
+        // 8. Exit Button
         JButton btnExit = new JButton("Exit Game");
         Theme.styleButton(btnExit, false);
         btnExit.setBackground(new Color(0xE06A6A)); // Soft red for exit
         btnExit.setForeground(Theme.BG);
         btnExit.addActionListener(e -> System.exit(0));
-        gbc.gridy = 6;
+        gbc.gridy = 7;
         gbc.insets = new Insets(30, 50, 10, 50); // Extra top margin
         add(btnExit, gbc);
     }
 
+    /**
+     * Shows or hides the Resume button depending on whether a saved game exists.
+     */
+    public void setResumeAvailable(boolean available) {
+        btnResume.setVisible(available);
+        revalidate();
+    }
 
 }
\ No newline at end of file
@@ -1,13 +1,16 @@
 package view;
 
+import net.Protocol;
 import javax.swing.*;
 import java.awt.*;
 
 /**
  * The configuration screen where players set up the game parameters.
  * Allows selection of Game Mode (PvP or vs Computer), Player Names, and Grid Size.
+ * While the chosen game is being prepared it shows the progress; going back to the
+ * menu cancels it.
  */
-public class ModeSelectionPanel extends JPanel {
+public class ModeSelectionPanel extends JPanel implements GameSetup.Listener {
     private MainFrame frame;
     private JTextField txtP1Name;
     private JTextField txtP2Name;
@@ -15,6 +18,9 @@ public class ModeSelectionPanel extends JPanel {
     private JRadioButton rbMultiPlayer;
     private JComboBox<String> cbGridSize;
     private JComboBox<String> difficultyBox;
+    private JTextField txtServer;
+    private JButton btnStart;
+    private JProgressBar setupProgress;
 
     /**
      * Initializes the configuration UI.
@@ -75,7 +81,7 @@ public class ModeSelectionPanel extends JPanel {
         // 3. Player 1 Name
         JLabel lblP1 = new JLabel("Player 1 Name:");
         lblP1.setForeground(Color.WHITE);
-        lblP1.setFont(new Font("Arial", Font.PLAIN, 16));
+        lblP1.setFont(Theme.font("Arial", Font.PLAIN, 16));
         
         gbc.gridx = 0; gbc.gridy = 2;
         add(lblP1, gbc);
@@ -88,7 +94,7 @@ public class ModeSelectionPanel extends JPanel {
         // 4. Player 2 Name
         JLabel lblP2 = new JLabel("Player 2 Name:");
         lblP2.setForeground(Color.WHITE);
-        lblP2.setFont(new Font("Arial", Font.PLAIN, 16));
+        lblP2.setFont(Theme.font("Arial", Font.PLAIN, 16));
         
         gbc.gridx = 0; gbc.gridy = 3;
         add(lblP2, gbc);
@@ -102,7 +108,7 @@ public class ModeSelectionPanel extends JPanel {
         // Prepare AI difficulty selector (kept off-layout for now; will be added below Start button)
         String[] levelOptions = {"Easy", "Normal", "Hard"};
         difficultyBox = new JComboBox<>(levelOptions);
-        difficultyBox.setFont(new Font("Arial", Font.PLAIN, 14));
+        difficultyBox.setFont(Theme.font("Arial", Font.PLAIN, 14));
         difficultyBox.setEnabled(rbSinglePlayer.isSelected());
 
         // Logic to toggle P2 text field and difficulty control based on mode
@@ -121,7 +127,7 @@ public class ModeSelectionPanel extends JPanel {
         // 5. Grid Size Selection
         JLabel lblGrid = new JLabel("Grid Size:");
         lblGrid.setForeground(Color.WHITE);
-        lblGrid.setFont(new Font("Arial", Font.PLAIN, 16));
+        lblGrid.setFont(Theme.font("Arial", Font.PLAIN, 16));
         
         gbc.gridx = 0; gbc.gridy = 4;
         add(lblGrid, gbc);
@@ -133,7 +139,7 @@ public class ModeSelectionPanel extends JPanel {
         add(cbGridSize, gbc);
 
         // 6. Action Buttons
-        JButton btnStart = new JButton("START GAME");
+        btnStart = new JButton("START GAME");
         btnStart.setBackground(new Color(50, 200, 50));
         btnStart.setForeground(Color.BLACK);
         Theme.styleButton(btnStart, true);
@@ -144,24 +150,65 @@ public class ModeSelectionPanel extends JPanel {
         gbc.insets = new Insets(30, 10, 10, 10);
         add(btnStart, gbc);
 
+        // Progress of the game being prepared (hidden until Start is pressed)
+        setupProgress = new JProgressBar(0, 100);
+        setupProgress.setStringPainted(true);
+        setupProgress.setFont(Theme.FONT_BODY);
+        setupProgress.setVisible(false);
+        gbc.gridy = 6; gbc.insets = new Insets(0, 10, 10, 10);
+        add(setupProgress, gbc);
+
         // 7. AI Difficulty (visible only when Single Player is selected)
         JLabel lblDiff = new JLabel("AI Difficulty:");
         Theme.styleHeadingLabel(lblDiff);
-        gbc.gridwidth = 1; gbc.gridy = 6; gbc.gridx = 0; gbc.insets = new Insets(10, 10, 10, 10);
+        gbc.gridwidth = 1; gbc.gridy = 7; gbc.gridx = 0; gbc.insets = new Insets(10, 10, 10, 10);
         add(lblDiff, gbc);
 
         Theme.styleComboBox(difficultyBox);
-        gbc.gridx = 1; gbc.gridy = 6;
+        gbc.gridx = 1; gbc.gridy = 7;
         add(difficultyBox, gbc);
 
+        // 8. Game Server (optional): the game is hosted on a server when an address is given
+        JLabel lblServer = new JLabel("Server (host:port):");
+        Theme.styleHeadingLabel(lblServer);
+        gbc.gridx = 0; gbc.gridy = 8;
+        add(lblServer, gbc);
+
+        txtServer = new JTextField(15);
+        txtServer.setFont(Theme.FONT_BODY);
+        txtServer.setToolTipText("Leave empty to play on this computer only");
+        gbc.gridx = 1;
+        add(txtServer, gbc);
+
         JButton btnBack = new JButton("Back to Menu");
-        btnBack.addActionListener(e -> frame.showPanel("Menu"));
+        btnBack.addActionListener(e -> {
+            frame.cancelSetup(); // Backing out abandons a game that is still loading
+            frame.showPanel("Menu");
+        });
         
-        gbc.gridy = 7;
+        gbc.gridy = 9;
         gbc.insets = new Insets(10, 10, 10, 10);
         add(btnBack, gbc);
     }
 
+    @Override
+    public void setupProgress(String phase, int percent) {
+        btnStart.setEnabled(false);
+        setupProgress.setValue(percent);
+        setupProgress.setString(phase + "...");
+        if (!setupProgress.isVisible()) {
+            setupProgress.setVisible(true);
+            revalidate();
+        }
+    }
+
+    @Override
+    public void setupFinished() {
+        btnStart.setEnabled(true);
+        setupProgress.setVisible(false);
+        revalidate();
+    }
+
     /**
      * Validates input and triggers the game initialization in MainFrame.
      */
@@ -185,6 +232,27 @@ public class ModeSelectionPanel extends JPanel {
 
         // Launch the game
         String selectedDifficulty = (String) difficultyBox.getSelectedItem();
-        frame.initializeGame(isPvP, p1, p2, gridSize, selectedDifficulty);
+        String server = txtServer.getText().trim();
+        if (server.isEmpty()) {
+            btnStart.setEnabled(false); // Until the game is ready (see setupFinished)
+            frame.initializeGame(isPvP, p1, p2, gridSize, selectedDifficulty);
+            return;
+        }
+
+        // Server address: "host" or "host:port"
+        String host = server;
+        int port = Protocol.DEFAULT_PORT;
+        int colon = server.lastIndexOf(':');
+        if (colon >= 0) {
+            host = server.substring(0, colon);
+            try {
+                port = Integer.parseInt(server.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(this, "Please enter the server as host:port!", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        btnStart.setEnabled(false);
+        frame.initializeRemoteGame(host, port, isPvP, p1, p2, gridSize, selectedDifficulty);
     }
 }
\ No newline at end of file
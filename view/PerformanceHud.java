@@ -0,0 +1,162 @@
+package view;
+
+import controller.GameEngine;
+import model.ComputerPlayer;
+import model.Player;
+import util.Settings;
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Performance overlay, drawn in the frame's glass pane and toggled with F3.
+ *
+ * Shows paints per second and the longest paint, how long the EDT takes to get to a
+ * new event, heap use, the scaled image cache, the AI's last move time and the
+ * render quality in use. The numbers are collected continuously but the overlay only
+ * updates every REFRESH_MILLIS and repaints just its own box, so it adds about two
+ * cheap paints per second to what it measures. It never takes mouse input, so the board behaves (and
+ * shows the same cursors) as without it.
+ */
+public class PerformanceHud extends JComponent {
+    private static final int REFRESH_MILLIS = 500;
+    private static final int MARGIN = 10;
+    private static final int PADDING = 8;
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    private final MainFrame frame;
+    private final Timer refreshTimer;
+    private String[] lines = new String[0];
+    private Rectangle box = new Rectangle();
+
+    private static FrameCounter frames; // installed the first time a HUD is shown
+    private long lastRefresh;
+
+    /**
+     * Counts paint passes (frames) and times the longest one.
+     */
+    private static final class FrameCounter extends RepaintManager {
+        private long count;
+        private long worstNanos;
+
+        @Override
+        public void paintDirtyRegions() {
+            long start = System.nanoTime();
+            super.paintDirtyRegions();
+            worstNanos = Math.max(worstNanos, System.nanoTime() - start);
+            count++;
+        }
+    }
+
+    public PerformanceHud(MainFrame frame) {
+        this.frame = frame;
+        setOpaque(false);
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+    }
+
+    /**
+     * Shows or hides the overlay.
+     */
+    public void toggle() {
+        boolean show = !isVisible();
+        if (show) {
+            if (frames == null) {
+                frames = new FrameCounter();
+                RepaintManager.setCurrentManager(frames);
+            }
+            lastRefresh = System.nanoTime();
+            frames.count = 0;
+            frames.worstNanos = 0;
+            lines = new String[] {"Measuring..."};
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+        setVisible(show);
+        repaint();
+    }
+
+    /**
+     * Invisible to the mouse: clicks and cursors belong to the components below.
+     */
+    @Override
+    public boolean contains(int x, int y) {
+        return false;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        box = layoutBox();
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(FONT);
+        FontMetrics fm = g2.getFontMetrics();
+
+        g2.setColor(new Color(0, 0, 0, 170));
+        g2.fillRoundRect(box.x, box.y, box.width, box.height, 10, 10);
+        g2.setColor(Color.WHITE);
+        int y = box.y + PADDING + fm.getAscent();
+        for (String line : lines) {
+            g2.drawString(line, box.x + PADDING, y);
+            y += fm.getHeight();
+        }
+        g2.dispose();
+    }
+
+    // --- Private Helper Methods ---
+
+    private void refresh() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - lastRefresh) / 1e9);
+        lastRefresh = now;
+
+        double fps = frames.count / seconds;
+        double worstMillis = frames.worstNanos / 1e6;
+        frames.count = 0;
+        frames.worstNanos = 0;
+
+        Runtime rt = Runtime.getRuntime();
+        long usedMb = (rt.totalMemory() - rt.freeMemory()) >> 20;
+        long maxMb = rt.maxMemory() >> 20;
+
+        long lookups = ScaledImageCache.getHits() + ScaledImageCache.getMisses();
+        String hitRate = lookups == 0 ? "-" : String.format("%.0f%%", 100.0 * ScaledImageCache.getHits() / lookups);
+
+        lines = new String[] {
+            String.format("FPS %5.1f   worst frame %6.1f ms", fps, worstMillis),
+            String.format("EDT latency %6.1f ms", EdtWatchdog.get().getLatencyNanos() / 1e6),
+            String.format("Heap %d / %d MB", usedMb, maxMb),
+            String.format("Image cache %d faces, %.1f MB, hit rate %s", ScaledImageCache.size(),
+                          ScaledImageCache.getBytes() / 1048576.0, hitRate),
+            "AI move " + lastAiMove(),
+            "Render quality " + Settings.getRenderQuality().getLabel() + (Settings.isAutoQuality() ? " (auto)" : "")
+        };
+
+        // Only the box changes; repaint the old and the new area
+        Rectangle old = box;
+        box = layoutBox();
+        repaint(old.union(box));
+    }
+
+    /**
+     * Where the current lines go: the top right corner.
+     */
+    private Rectangle layoutBox() {
+        FontMetrics fm = getFontMetrics(FONT);
+        int width = 0;
+        for (String line : lines) width = Math.max(width, fm.stringWidth(line));
+        int height = lines.length * fm.getHeight();
+        return new Rectangle(getWidth() - width - 2 * PADDING - MARGIN, MARGIN, width + 2 * PADDING, height + 2 * PADDING);
+    }
+
+    private String lastAiMove() {
+        GamePanel board = frame.getGamePanel();
+        if (board == null) return "-";
+        GameEngine engine = board.getEngine();
+        for (Player p : new Player[] {engine.getP1(), engine.getP2()}) {
+            if (p instanceof ComputerPlayer && ((ComputerPlayer) p).getLastMoveNanos() > 0) {
+                return String.format("%.2f ms", ((ComputerPlayer) p).getLastMoveNanos() / 1e6);
+            }
+        }
+        return "-";
+    }
+}
@@ -0,0 +1,152 @@
+package view;
+
+import util.PlayerStats;
+import util.StatsManager;
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Displays lifetime statistics for every player who has finished a game:
+ * games played, win rate, average moves per pair and best time per grid size.
+ */
+public class PlayerStatsPanel extends JPanel {
+    private static final int[] GRID_SIZES = {4, 6, 8, 10};
+
+    private MainFrame frame;
+    private DefaultTableModel tableModel;
+    private SwingWorker<List<PlayerStats>, Void> loader; // the running refresh, if any
+
+    /**
+     * Initializes the Player Stats UI layout.
+     * @param frame Reference to the main window for navigation.
+     */
+    public PlayerStatsPanel(MainFrame frame) {
+        this.frame = frame;
+
+        // Same dark layout as the High Scores screen
+        setLayout(new BorderLayout(20, 20));
+        setBackground(new Color(45, 45, 45));
+        setBorder(BorderFactory.createEmptyBorder(30, 50, 30, 50));
+
+        // 1. Title Label
+        JLabel lblTitle = new JLabel("PLAYER STATS");
+        lblTitle.setFont(Theme.font("Arial", Font.BOLD, 30));
+        lblTitle.setForeground(Color.ORANGE);
+        lblTitle.setHorizontalAlignment(SwingConstants.CENTER);
+        add(lblTitle, BorderLayout.NORTH);
+
+        // 2. Table Setup
+        String[] columnNames = {"Player Name", "Games", "Win Rate", "Moves / Pair",
+                                "Best 4x4", "Best 6x6", "Best 8x8", "Best 10x10"};
+
+        // Make cells non-editable
+        tableModel = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        JTable statsTable = new JTable(tableModel);
+        statsTable.setFont(Theme.font("Arial", Font.PLAIN, 16));
+        statsTable.setRowHeight(30);
+        statsTable.getTableHeader().setFont(Theme.font("Arial", Font.BOLD, 16));
+        statsTable.setFillsViewportHeight(true);
+
+        // Customizing Table Colors to match Dark Theme
+        statsTable.setBackground(new Color(60, 60, 60));
+        statsTable.setForeground(Color.WHITE);
+        statsTable.getTableHeader().setBackground(new Color(30, 30, 30));
+        statsTable.getTableHeader().setForeground(Color.WHITE);
+        statsTable.setGridColor(new Color(100, 100, 100));
+
+        // Center align text in all cells
+        DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
+        centerRenderer.setHorizontalAlignment(JLabel.CENTER);
+        for (int i = 0; i < statsTable.getColumnCount(); i++) {
+            statsTable.getColumnModel().getColumn(i).setCellRenderer(centerRenderer);
+        }
+
+        JScrollPane scrollPane = new JScrollPane(statsTable);
+        scrollPane.getViewport().setBackground(new Color(45, 45, 45));
+        scrollPane.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
+        add(scrollPane, BorderLayout.CENTER);
+
+        // 3. Navigation Buttons
+        JButton btnScores = new JButton("High Scores");
+        btnScores.setFont(Theme.font("Arial", Font.BOLD, 16));
+        btnScores.addActionListener(e -> frame.showPanel("HighScores"));
+
+        JButton btnBack = new JButton("Back to Menu");
+        btnBack.setFont(Theme.font("Arial", Font.BOLD, 16));
+        btnBack.addActionListener(e -> frame.showPanel("Menu"));
+
+        JPanel southPanel = new JPanel();
+        southPanel.setOpaque(false);
+        southPanel.add(btnBack);
+        southPanel.add(btnScores);
+        add(southPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Shows the stats as last loaded right away, then picks up games recorded since
+     * (possibly by other processes) in the background, so the disk never holds up the UI.
+     * Called every time the user navigates to this panel.
+     */
+    public void refreshStats() {
+        if (loader != null) {
+            loader.cancel(false);
+        }
+        showStats(StatsManager.getAllStats());
+
+        loader = new SwingWorker<List<PlayerStats>, Void>() {
+            @Override
+            protected List<PlayerStats> doInBackground() {
+                StatsManager.refresh();
+                return StatsManager.getAllStats();
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+                try {
+                    showStats(get());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        loader.execute();
+    }
+
+    /**
+     * Fills the table, one row per player.
+     */
+    private void showStats(List<PlayerStats> all) {
+        tableModel.setRowCount(0); // Clear existing data
+
+        for (PlayerStats ps : all) {
+            Object[] row = new Object[4 + GRID_SIZES.length];
+            row[0] = ps.getName();
+            row[1] = ps.getGames();
+            row[2] = String.format("%.0f%%", ps.getWinRate() * 100);
+            row[3] = ps.getPairs() == 0 ? "-" : String.format("%.2f", ps.getAverageMovesPerPair());
+            for (int i = 0; i < GRID_SIZES.length; i++) {
+                row[4 + i] = formatTime(ps.getBestTime(GRID_SIZES[i]));
+            }
+            tableModel.addRow(row);
+        }
+    }
+
+    /**
+     * Formats a duration in millis as m:ss, or "-" if there is none.
+     */
+    private static String formatTime(int millis) {
+        if (millis <= 0) return "-";
+        int seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
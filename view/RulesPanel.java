@@ -24,7 +24,7 @@ public class RulesPanel extends JPanel {
 
         // 1. Title Section
         JLabel lblTitle = new JLabel("HOW TO PLAY");
-        lblTitle.setFont(new Font("Arial", Font.BOLD, 30));
+        lblTitle.setFont(Theme.font("Arial", Font.BOLD, 30));
         lblTitle.setForeground(Color.CYAN);
         lblTitle.setHorizontalAlignment(SwingConstants.CENTER);
         add(lblTitle, BorderLayout.NORTH);
@@ -52,7 +52,7 @@ public class RulesPanel extends JPanel {
         );
         
         // Styling the text area
-        txtRules.setFont(new Font("Arial", Font.PLAIN, 16));
+        txtRules.setFont(Theme.font("Arial", Font.PLAIN, 16));
         txtRules.setForeground(Color.WHITE);
         txtRules.setBackground(new Color(60, 60, 60));
         txtRules.setEditable(false); // Read-only
@@ -67,7 +67,7 @@ public class RulesPanel extends JPanel {
 
         // 3. Back Button
         JButton btnBack = new JButton("Back to Menu");
-        btnBack.setFont(new Font("Arial", Font.BOLD, 16));
+        btnBack.setFont(Theme.font("Arial", Font.BOLD, 16));
         btnBack.addActionListener(e -> frame.showPanel("Menu"));
         
         JPanel southPanel = new JPanel();
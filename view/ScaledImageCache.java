@@ -0,0 +1,143 @@
+package view;
+
+import util.GameEvents;
+import util.LatencyHistogram;
+import util.Metrics;
+import javax.swing.ImageIcon;
+import java.awt.Image;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Card faces scaled to a button size, shared by every button showing the same face
+ * at the same size (both cards of a pair, and the same face in later games).
+ *
+ * Scaling happens once, eagerly, when a face is first requested, instead of on every
+ * flip. Faces are keyed by their image file (the ImageIcon description), so a new
+ * game that loads the same files again still hits. The scaling algorithm is part of
+ * the key, so a render quality change (see util.RenderQuality) rescales the faces
+ * once. The least recently used faces are dropped beyond MAX_ENTRIES.
+ *
+ * Thread-safe, so a game being set up in the background (see GameSetup) can scale
+ * its faces before the board is shown. Scaling happens outside the lock: the EDT
+ * never waits for another thread's scaling, and two threads scaling the same face
+ * at the same time both do the work but keep one copy.
+ */
+final class ScaledImageCache {
+    static final int MAX_ENTRIES = 4 * 52; // every face at a few grid sizes
+
+    private static final LatencyHistogram SCALE_TIME = Metrics.histogram("image.scale");
+
+    private static final Map<Key, ImageIcon> cache = new LinkedHashMap<Key, ImageIcon>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ImageIcon> eldest) {
+            if (size() <= MAX_ENTRIES) return false;
+            bytes -= bytesOf(eldest.getValue());
+            return true;
+        }
+    };
+    private static long hits;
+    private static long misses;
+    private static long bytes;
+
+    private ScaledImageCache() {}
+
+    /**
+     * The face scaled to the given size, fully loaded.
+     * @param hint Image.SCALE_SMOOTH, Image.SCALE_FAST, ...
+     */
+    static ImageIcon get(ImageIcon face, int width, int height, int hint) {
+        Key key = new Key(face.getDescription() != null ? face.getDescription() : face.getImage(), width, height, hint);
+        synchronized (cache) {
+            ImageIcon scaled = cache.get(key);
+            if (scaled != null) {
+                hits++;
+                return scaled;
+            }
+            misses++;
+        }
+        ImageIcon scaled = scale(face.getImage(), width, height, hint);
+        synchronized (cache) {
+            ImageIcon other = cache.putIfAbsent(key, scaled);
+            if (other != null) return other;
+            bytes += bytesOf(scaled);
+        }
+        return scaled;
+    }
+
+    static int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Approximate heap taken by the cached images.
+     */
+    static long getBytes() {
+        synchronized (cache) {
+            return bytes;
+        }
+    }
+
+    static long getHits() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    static long getMisses() {
+        synchronized (cache) {
+            return misses;
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    private static ImageIcon scale(Image source, int width, int height, int hint) {
+        GameEvents.ImageScale event = new GameEvents.ImageScale();
+        event.begin();
+        long start = System.nanoTime();
+        // Creating the icon waits for the (otherwise lazy) scaled image to be produced
+        ImageIcon icon = new ImageIcon(source.getScaledInstance(width, height, hint));
+        SCALE_TIME.record(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.commit();
+        }
+        return icon;
+    }
+
+    private static long bytesOf(ImageIcon icon) {
+        return 4L * Math.max(0, icon.getIconWidth()) * Math.max(0, icon.getIconHeight());
+    }
+
+    private static final class Key {
+        private final Object source; // file name, or the image itself if it has none
+        private final int width;
+        private final int height;
+        private final int hint;
+
+        Key(Object source, int width, int height, int hint) {
+            this.source = source;
+            this.width = width;
+            this.height = height;
+            this.hint = hint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return width == k.width && height == k.height && hint == k.hint && source.equals(k.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, width, height, hint);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package view;
+
+import util.ScoreManager;
+import util.ScoreQuery;
+import util.ScoreRecord;
+import util.ScoreSelection;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lazily paged table model over the whole score history.
+ * Only the pages the table actually asks for are read from the ScoreManager,
+ * always on a background thread; rows that are not loaded yet show a placeholder
+ * and are filled in when their page arrives. When new scores are merged the
+ * selection goes stale (records move); the next page read notices and the
+ * selection is rebuilt.
+ */
+public class ScoreTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Rank", "Player Name", "Score", "Grid", "Date"};
+    private static final String LOADING = "...";
+
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 50;
+
+    // Single background worker so page loads and query rebuilds never run concurrently
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "score-table-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    // Newest generation, read by the loader to skip work for queries already replaced
+    private final AtomicInteger latest = new AtomicInteger();
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+    // EDT-confined state
+    private ScoreQuery query = ScoreQuery.all();
+    private ScoreSelection selection;
+    private int generation; // bumped on every reload so late pages from an old query are dropped
+    private final Set<Integer> pendingPages = new HashSet<>();
+    private final Map<Integer, Page> pages = new LinkedHashMap<Integer, Page>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+            return size() > MAX_CACHED_PAGES; // Least recently viewed page goes first
+        }
+    };
+
+    /**
+     * One loaded window of rows.
+     */
+    private static class Page {
+        final ScoreRecord[] records;
+        final int[] ranks;
+
+        Page(ScoreRecord[] records, int[] ranks) {
+            this.records = records;
+            this.ranks = ranks;
+        }
+    }
+
+    /**
+     * Replaces the current query and reloads the row list in the background.
+     */
+    public void setQuery(ScoreQuery query) {
+        this.query = query;
+        refresh();
+    }
+
+    public ScoreQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Drops all cached rows and rebuilds the row list for the current query.
+     */
+    public void refresh() {
+        final int gen = ++generation;
+        final ScoreQuery q = query;
+        latest.set(gen);
+        pages.clear();
+        pendingPages.clear();
+
+        loader.submit(() -> {
+            if (gen != latest.get()) return; // Filters changed again before we got here
+            ScoreSelection result = ScoreManager.selectScores(q);
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generation) return;
+                selection = result;
+                fireTableDataChanged();
+            });
+        });
+    }
+
+    /**
+     * Maps a column to the sort key it represents, or null if it cannot be sorted.
+     */
+    public ScoreQuery.SortKey getSortKey(int column) {
+        switch (column) {
+            case 0:
+            case 2:
+                return ScoreQuery.SortKey.SCORE;
+            case 3:
+                return ScoreQuery.SortKey.GRID;
+            case 4:
+                return ScoreQuery.SortKey.DATE;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return selection == null ? 0 : selection.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int pageIndex = row / PAGE_SIZE;
+        Page page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return column == 1 ? LOADING : "";
+        }
+
+        int offset = row % PAGE_SIZE;
+        if (offset >= page.records.length || page.records[offset] == null) return "";
+        ScoreRecord record = page.records[offset];
+
+        switch (column) {
+            case 0: return page.ranks[offset];
+            case 1: return record.getName();
+            case 2: return record.getScore();
+            case 3: return record.getGridSize() > 0 ? record.getGridSize() + "x" + record.getGridSize() : "-";
+            case 4: return record.getTimestamp() > 0 ? dateFormat.format(new Date(record.getTimestamp())) : "-";
+            default: return "";
+        }
+    }
+
+    /**
+     * Loads one page in the background and repaints its rows once it arrives.
+     */
+    private void requestPage(int pageIndex) {
+        if (!pendingPages.add(pageIndex)) return; // Already on its way
+
+        final int gen = generation;
+        final ScoreSelection current = selection;
+        final int from = pageIndex * PAGE_SIZE;
+
+        loader.submit(() -> {
+            if (gen != latest.get()) return;
+            int[] ranks = new int[PAGE_SIZE];
+            ScoreRecord[] records = ScoreManager.readScores(current, from, PAGE_SIZE, ranks);
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generation) return;
+                if (records == null) {
+                    refresh(); // Scores were merged since the selection was made
+                    return;
+                }
+                pendingPages.remove(pageIndex);
+                pages.put(pageIndex, new Page(records, ranks));
+                int last = Math.min(from + records.length, getRowCount()) - 1;
+                if (last >= from) {
+                    fireTableRowsUpdated(from, last);
+                }
+            });
+        });
+    }
+}
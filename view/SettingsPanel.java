@@ -1,13 +1,19 @@
 package view;
 
+import util.RenderQuality;
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * The configuration screen where users can adjust game preferences.
  * Currently supports changing the AI difficulty level.
  */
 public class SettingsPanel extends JPanel {
+    private static final Path STALL_REPORT_PATH = Paths.get("edt-stalls.txt");
+
     private MainFrame frame;
     private JCheckBox animationCheck;
 
@@ -80,15 +86,104 @@ public class SettingsPanel extends JPanel {
         gbc.gridx = 1; gbc.gridy = 3; gbc.anchor = GridBagConstraints.WEST;
         add(themeBox, gbc);
 
-        // 5. Save & Back Button (more explicit label and confirmation)
+        // 5. UI freeze watchdog: threshold and report
+        JLabel lblStall = new JLabel("Freeze Threshold (ms):");
+        Theme.styleHeadingLabel(lblStall);
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 1; gbc.anchor = GridBagConstraints.WEST;
+        add(lblStall, gbc);
+
+        JSpinner stallSpinner = new JSpinner(new SpinnerNumberModel(
+                (int) util.Settings.getStallThresholdMillis(), 16, 5000, 50));
+        stallSpinner.setFont(Theme.FONT_BODY);
+        stallSpinner.setToolTipText("The UI counts as frozen when it cannot react to input for this long.");
+        stallSpinner.addChangeListener(e -> util.Settings.setStallThresholdMillis((Integer) stallSpinner.getValue()));
+
+        JButton btnStalls = new JButton("View Freezes");
+        Theme.styleSmallButton(btnStalls, false);
+        btnStalls.addActionListener(e -> showStallReport());
+
+        JPanel stallRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        stallRow.setOpaque(false);
+        stallRow.add(stallSpinner);
+        stallRow.add(btnStalls);
+        gbc.gridx = 1; gbc.gridy = 4; gbc.anchor = GridBagConstraints.WEST;
+        add(stallRow, gbc);
+
+        // 6. Rendering quality: a fixed profile, or picked from the measured frame times
+        JLabel lblQuality = new JLabel("Render Quality:");
+        Theme.styleHeadingLabel(lblQuality);
+        gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 1; gbc.anchor = GridBagConstraints.WEST;
+        add(lblQuality, gbc);
+
+        RenderQuality[] profiles = RenderQuality.values();
+        String[] qualities = new String[profiles.length + 1];
+        qualities[0] = "Auto (adapts to this computer)";
+        for (RenderQuality q : profiles) qualities[q.ordinal() + 1] = q.getLabel();
+        JComboBox<String> qualityBox = new JComboBox<>(qualities);
+        Theme.styleComboBox(qualityBox);
+        qualityBox.setToolTipText("Animation frame rate, image smoothing and hover effects. "
+                + "Auto lowers them when animations stutter and raises them again when they run smoothly.");
+        qualityBox.setSelectedIndex(util.Settings.isAutoQuality() ? 0 : util.Settings.getRenderQuality().ordinal() + 1);
+        qualityBox.addActionListener(e -> {
+            int idx = qualityBox.getSelectedIndex();
+            util.Settings.setAutoQuality(idx == 0);
+            if (idx > 0) util.Settings.setRenderQuality(profiles[idx - 1]);
+            AdaptiveQuality.reset();
+        });
+        gbc.gridx = 1; gbc.gridy = 5; gbc.anchor = GridBagConstraints.WEST;
+        add(qualityBox, gbc);
+
+        // 7. Save & Back Button (more explicit label and confirmation)
         JButton btnBack = new JButton("Save & Back to Menu");
         Theme.styleButton(btnBack, true);
         btnBack.addActionListener(e -> frame.showPanel("Menu"));
         
-        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2; gbc.fill = GridBagConstraints.NONE;
+        gbc.gridx = 0; gbc.gridy = 6; gbc.gridwidth = 2; gbc.fill = GridBagConstraints.NONE;
         gbc.anchor = GridBagConstraints.CENTER; gbc.insets = new Insets(15, 15, 15, 15);
         add(btnBack, gbc);
     }
 
+    // --- Private Helper Methods ---
 
-}
\ No newline at end of file
+    /**
+     * Shows the UI freezes recorded by the EdtWatchdog, worst first, with the option
+     * to save them to a file (e.g. to attach to a bug report) or start over.
+     */
+    private void showStallReport() {
+        EdtWatchdog watchdog = EdtWatchdog.get();
+        JTextArea text = new JTextArea(watchdog.getReport(), 25, 90);
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setCaretPosition(0);
+
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this), "UI Freezes", Dialog.ModalityType.APPLICATION_MODAL);
+        JButton btnSave = new JButton("Save to " + STALL_REPORT_PATH);
+        btnSave.addActionListener(e -> {
+            try {
+                watchdog.dumpTo(STALL_REPORT_PATH);
+                JOptionPane.showMessageDialog(dialog, "Saved to " + STALL_REPORT_PATH.toAbsolutePath());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(dialog, "Could not save the report: " + ex.getMessage(),
+                        "Save Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        JButton btnClear = new JButton("Clear");
+        btnClear.addActionListener(e -> {
+            watchdog.clear();
+            text.setText(watchdog.getReport());
+        });
+        JButton btnClose = new JButton("Close");
+        btnClose.addActionListener(e -> dialog.dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(btnSave);
+        buttons.add(btnClear);
+        buttons.add(btnClose);
+
+        dialog.add(new JScrollPane(text), BorderLayout.CENTER);
+        dialog.add(buttons, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+}
@@ -5,6 +5,9 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.border.Border;
 import java.awt.*;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Cozy Pastel theme utility. Centralizes colors, fonts and helper styles for the UI.
@@ -30,11 +33,38 @@ public class Theme {
     public static Font FONT_BODY;
     public static Font FONT_BUTTON;
 
+    // Fonts by "family/style/size", and what each requested family resolved to
+    private static final Map<String, Font> fonts = new ConcurrentHashMap<>();
+    private static final Map<String, String> families = new ConcurrentHashMap<>();
+
     static {
         // Initialize default theme
         setTheme(ThemeName.COZY);
     }
 
+    /**
+     * A font of the family if it is installed, else of the closest logical font
+     * (SansSerif). Each family is looked up once per run and each font is created
+     * once, so switching themes or building a screen never repeats a font search:
+     * asking for a font that is not installed makes Java scan the system fonts.
+     * Safe to call from any thread.
+     */
+    public static Font font(String family, int style, int size) {
+        return fonts.computeIfAbsent(family + "/" + style + "/" + size,
+                key -> new Font(families.computeIfAbsent(family, Theme::resolveFamily), style, size));
+    }
+
+    /**
+     * Resolves the fonts of every theme and of the screens ahead of time. Meant to run
+     * on a thread other than the EDT during startup, while the window is being built
+     * (the first font lookup also starts up the font system).
+     */
+    public static void preloadFonts() {
+        for (String family : new String[] {"Nunito", "Monospaced", "SansSerif", "Arial"}) {
+            font(family, Font.PLAIN, 14).getFamily();
+        }
+    }
+
     public static ThemeName currentTheme;
 
     public static void setTheme(ThemeName theme) {
@@ -62,10 +92,10 @@ public class Theme {
         SHADOW = new Color(50, 40, 40, 16);
 
         RADIUS_LG = 20;
-        FONT_TITLE = new Font("Nunito", Font.BOLD, 36);
-        FONT_HEADING = new Font("Nunito", Font.BOLD, 18);
-        FONT_BODY = new Font("Nunito", Font.PLAIN, 14);
-        FONT_BUTTON = new Font("Nunito", Font.BOLD, 16);
+        FONT_TITLE = font("Nunito", Font.BOLD, 36);
+        FONT_HEADING = font("Nunito", Font.BOLD, 18);
+        FONT_BODY = font("Nunito", Font.PLAIN, 14);
+        FONT_BUTTON = font("Nunito", Font.BOLD, 16);
     }
 
     private static void applyCyberpunk() {
@@ -78,10 +108,10 @@ public class Theme {
         SHADOW = new Color(0, 255, 255, 40);
 
         RADIUS_LG = 6; // sharper corners
-        FONT_TITLE = new Font("Monospaced", Font.BOLD, 36);
-        FONT_HEADING = new Font("Monospaced", Font.BOLD, 16);
-        FONT_BODY = new Font("Monospaced", Font.PLAIN, 14);
-        FONT_BUTTON = new Font("Monospaced", Font.BOLD, 14);
+        FONT_TITLE = font("Monospaced", Font.BOLD, 36);
+        FONT_HEADING = font("Monospaced", Font.BOLD, 16);
+        FONT_BODY = font("Monospaced", Font.PLAIN, 14);
+        FONT_BUTTON = font("Monospaced", Font.BOLD, 14);
     }
 
     private static void applySapphire() {
@@ -94,10 +124,10 @@ public class Theme {
         SHADOW = new Color(10, 20, 30, 30);
 
         RADIUS_LG = 14; // moderate rounding for glass
-        FONT_TITLE = new Font("SansSerif", Font.BOLD, 36);
-        FONT_HEADING = new Font("SansSerif", Font.BOLD, 16);
-        FONT_BODY = new Font("SansSerif", Font.PLAIN, 14);
-        FONT_BUTTON = new Font("SansSerif", Font.BOLD, 14);
+        FONT_TITLE = font("SansSerif", Font.BOLD, 36);
+        FONT_HEADING = font("SansSerif", Font.BOLD, 16);
+        FONT_BODY = font("SansSerif", Font.PLAIN, 14);
+        FONT_BUTTON = font("SansSerif", Font.BOLD, 14);
     }
 
     // Helpers
@@ -162,10 +192,11 @@ public class Theme {
                         btn.setBackground(origBg.brighter());
                         break;
                     case CYBERPUNK:
-                        // Neon fill and glitch vibration
+                        // Neon fill and glitch vibration (a theme extra, see RenderQuality)
                         btn.setBackground(PRIMARY);
                         btn.setForeground(Color.BLACK);
                         btn.setBorder(new LineBorder(SECONDARY, 3, true));
+                        if (!util.Settings.getRenderQuality().isThemeExtras()) break;
                         // simple vibration with timer
                         glitchTimer = new javax.swing.Timer(40, ev -> {
                             int dx = (Math.random() > 0.5) ? 1 : -1;
@@ -210,6 +241,12 @@ public class Theme {
         cb.setBorder(new LineBorder(new Color(0,0,0,0),1,true));
     }
 
+    private static String resolveFamily(String family) {
+        Font probe = new Font(family, Font.PLAIN, 12);
+        // A missing family resolves to the default (Dialog); logical names resolve to themselves
+        return probe.getFamily(Locale.ROOT).equalsIgnoreCase(family) ? family : Font.SANS_SERIF;
+    }
+
     private static boolean isLightText() {
         // crude check: return true if BG is light-ish
         int brightness = (BG.getRed() + BG.getGreen() + BG.getBlue())/3;
@@ -231,6 +268,12 @@ public class Theme {
             ((JLabel) c).setForeground(TEXT);
             ((JLabel) c).setFont(FONT_BODY);
         }
+        if (c instanceof CardButton) {
+            // Cards draw their own theme; styling them as menu buttons would also add a
+            // hover listener per theme change that pooled buttons carry into later games
+            ((CardButton) c).updateDisplay();
+            return;
+        }
         if (c instanceof JButton) {
             JButton b = (JButton) c;
             Object prim = b.getClientProperty("themePrimary");